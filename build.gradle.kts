@@ -3,6 +3,7 @@ plugins {
     `maven-publish`
     signing
     id("org.jreleaser") version "1.23.0"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 // Project metadata from gradle.properties
@@ -27,6 +28,7 @@ val sonatypePassword: String by project
 val jspecifyVersion: String by project
 //val vertxVersion: String by project
 val lz4Version: String by project
+val zstdVersion: String by project
 val protobufVersion: String by project
 val keelCoreVersion: String by project
 val keelTestVersion: String by project
@@ -56,6 +58,9 @@ dependencies {
     // LZ4 compression (from pom.xml and module-info.java)
     implementation("at.yawk.lz4:lz4-java:$lz4Version")
 
+    // Zstandard compression for PutLogs body (x-log-compresstype: zstd)
+    implementation("com.github.luben:zstd-jni:$zstdVersion")
+
     // Protocol Buffers (from pom.xml and module-info.java)
     implementation("com.google.protobuf:protobuf-java:$protobufVersion")
 
@@ -63,6 +68,7 @@ dependencies {
     // https://mvnrepository.com/artifact/org.jspecify/jspecify
     compileOnly("org.jspecify:jspecify:$jspecifyVersion")
     testCompileOnly("org.jspecify:jspecify:$jspecifyVersion")
+    jmhCompileOnly("org.jspecify:jspecify:$jspecifyVersion")
 
     // Test dependencies
     testImplementation("io.github.sinri:keel-test:$keelTestVersion")
@@ -99,6 +105,25 @@ tasks.test {
     include("io/github/sinri/keel/integration/aliyun/**/*Test.class")
 }
 
+// JMH benchmarks for the write path (src/jmh/java), run with `./gradlew jmh`;
+// select benchmarks with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=WritePath
+jmh {
+    jmhVersion.set(project.property("jmhVersion") as String)
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("2s")
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    resultFormat.set("JSON")
+}
+
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.encoding = "UTF-8"
+    options.release.set(17)
+}
+
 // Configure JavaDoc (matching Maven javadoc plugin configuration)
 tasks.javadoc {
     options.encoding = "UTF-8"
@@ -0,0 +1,73 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.Lz4Utils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码后的 LogGroup 的压缩与解压：{@link Lz4Utils} 的字节数组接口，以及各 {@link CompressionCodec} 的池化内存接口。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+    @Param({"256", "4096"})
+    public int logItems;
+
+    @Param({"lz4", "zstd", "deflate"})
+    public String compressType;
+
+    private byte[] raw;
+    private byte[] lz4Compressed;
+    private Buffer codecCompressed;
+    private CompressionCodec codec;
+    private ByteBuf pooledRaw;
+
+    @Setup
+    public void setUp() {
+        raw = LogGroupEncoder.encodeToByteArray(LogCorpus.logGroup(logItems));
+        lz4Compressed = Lz4Utils.compress(raw);
+        codec = Objects.requireNonNull(CompressionCodecs.forCompressType(compressType));
+        codecCompressed = codec.compress(Buffer.buffer(raw));
+        pooledRaw = PooledByteBufAllocator.DEFAULT.directBuffer(raw.length);
+        pooledRaw.writeBytes(raw);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pooledRaw.release();
+    }
+
+    @Benchmark
+    public byte[] lz4UtilsCompress() {
+        return Lz4Utils.compress(raw);
+    }
+
+    @Benchmark
+    public byte[] lz4UtilsDecompress() {
+        return Lz4Utils.decompress(lz4Compressed, raw.length);
+    }
+
+    @Benchmark
+    public int codecCompressPooled() {
+        ByteBuf compressed = codec.compress(pooledRaw.duplicate(), PooledByteBufAllocator.DEFAULT);
+        try {
+            return compressed.readableBytes();
+        } finally {
+            compressed.release();
+        }
+    }
+
+    @Benchmark
+    public Buffer codecDecompress() {
+        return codec.decompress(codecCompressed, raw.length);
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.log.Log;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个生产者线程写入、单个消费者线程批量取出的日志入口：{@link IngressRing} 与 {@link ConcurrentLinkedQueue} 的对比。
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngressBenchmark {
+    private static final int DRAIN_BATCH = 128;
+
+    private final SpecificLog<?> log = new Log();
+    private final IngressRing ring = new IngressRing(65536);
+    private final Queue<SpecificLog<?>> queue = new ConcurrentLinkedQueue<>();
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(3)
+    public boolean ringOffer() {
+        return ring.offer(LogCorpus.TOPIC, log);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public int ringDrain(Blackhole blackhole) {
+        return ring.drain((topic, specificLog) -> blackhole.consume(specificLog), DRAIN_BATCH);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(3)
+    public boolean queueOffer() {
+        return queue.offer(log);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public int queueDrain(Blackhole blackhole) {
+        int drained = 0;
+        SpecificLog<?> polled;
+        while (drained < DRAIN_BATCH && (polled = queue.poll()) != null) {
+            blackhole.consume(polled);
+            drained++;
+        }
+        return drained;
+    }
+}
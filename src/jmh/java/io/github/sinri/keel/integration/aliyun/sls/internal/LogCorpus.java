@@ -0,0 +1,114 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.logger.api.LogLevel;
+import io.github.sinri.keel.logger.api.log.Log;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试所用的日志样本，模拟业务服务的日志构成：以带上下文的 INFO 日志为主，
+ * 夹杂少量带异常的 ERROR 日志与较长的 SQL 日志，消息中含中文。样本由固定的随机种子生成，每次运行一致。
+ */
+@NullMarked
+final class LogCorpus {
+    static final String TOPIC = "order-service";
+    static final String SOURCE = "192.0.2.10";
+    private static final long SEED = 20260101L;
+    private static final String[] ROUTES = {
+            "/api/order/create", "/api/order/detail", "/api/payment/notify", "/api/user/profile", "/api/cart/items"
+    };
+    private static final String[] CLASSIFICATIONS = {"order", "payment", "user", "cart"};
+
+    private LogCorpus() {
+    }
+
+    /**
+     * @param size 日志条数
+     * @return 日志样本
+     */
+    static List<SpecificLog<?>> logs(int size) {
+        Random random = new Random(SEED);
+        Throwable[] failures = failures();
+        List<SpecificLog<?>> logs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String route = ROUTES[random.nextInt(ROUTES.length)];
+            String orderId = "ORD-2026-" + (100_000 + random.nextInt(900_000));
+            int kind = random.nextInt(100);
+            Log log = new Log();
+            if (kind < 80) {
+                log.level(LogLevel.INFO)
+                   .message("请求处理完成 " + route)
+                   .context("route", route)
+                   .context("orderId", orderId)
+                   .context("userId", "U" + random.nextInt(1_000_000))
+                   .context("latencyMs", random.nextInt(500))
+                   .context("amount", random.nextInt(100_000) / 100.0)
+                   .context("items", List.of(
+                           Map.of("sku", "SKU-" + random.nextInt(10_000), "count", 1 + random.nextInt(5)),
+                           Map.of("sku", "SKU-" + random.nextInt(10_000), "count", 1 + random.nextInt(5))
+                   ));
+            } else if (kind < 92) {
+                log.level(LogLevel.WARNING)
+                   .message("库存不足，订单 " + orderId + " 进入等待队列")
+                   .context("orderId", orderId)
+                   .context("retry", random.nextInt(3));
+            } else if (kind < 97) {
+                log.level(LogLevel.ERROR)
+                   .message("支付回调处理失败 " + orderId)
+                   .exception(failures[random.nextInt(failures.length)])
+                   .context("orderId", orderId);
+            } else {
+                log.level(LogLevel.DEBUG)
+                   .message("SELECT o.id, o.user_id, o.amount, o.status, o.created_at FROM orders o "
+                           + "JOIN order_items i ON i.order_id = o.id WHERE o.user_id = ? AND o.status IN (?, ?, ?) "
+                           + "ORDER BY o.created_at DESC LIMIT 20")
+                   .context("sqlMs", random.nextInt(50));
+            }
+            log.classification(List.of(CLASSIFICATIONS[random.nextInt(CLASSIFICATIONS.length)], route));
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    /**
+     * @param size 日志条数
+     * @return 由日志样本转换而成的 LogGroup，条数或大小超过 LogGroup 上限时截断
+     */
+    static LogGroup logGroup(int size) {
+        LogGroup logGroup = new LogGroup(TOPIC, SOURCE);
+        for (SpecificLog<?> log : logs(size)) {
+            LogItem logItem = SlsQueuedLogWriterAdapter.buildLogItem(log);
+            if (!logGroup.canAccept(logItem)) {
+                break;
+            }
+            logGroup.addLogItem(logItem);
+        }
+        return logGroup;
+    }
+
+    /**
+     * 模拟少数几处代码反复抛出的异常，各带一个原因。
+     */
+    private static Throwable[] failures() {
+        Throwable[] failures = new Throwable[3];
+        try {
+            Integer.parseInt("ORD");
+        } catch (NumberFormatException e) {
+            failures[0] = new IllegalStateException("invalid payment callback", e);
+        }
+        try {
+            List.of().get(0);
+        } catch (IndexOutOfBoundsException e) {
+            failures[1] = new IllegalArgumentException("order has no items", e);
+        }
+        failures[2] = new RuntimeException("gateway timeout after 3000 ms");
+        return failures;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogGroup 的 Protobuf 序列化：基于 {@link com.google.protobuf.DynamicMessage} 的 {@link LogGroup#toProtobuf()}
+ * 与直接写入字节的 {@link LogGroupEncoder}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogGroupEncodeBenchmark {
+    @Param({"16", "256", "4096"})
+    public int logItems;
+
+    private LogGroup logGroup;
+
+    @Setup
+    public void setUp() {
+        logGroup = LogCorpus.logGroup(logItems);
+    }
+
+    @Benchmark
+    public byte[] toProtobuf() {
+        return logGroup.toProtobuf().toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeToByteArray() {
+        return LogGroupEncoder.encodeToByteArray(logGroup);
+    }
+
+    @Benchmark
+    public int encodeToPooledBuffer() {
+        ByteBuf encoded = LogGroupEncoder.encode(logGroup, PooledByteBufAllocator.DEFAULT);
+        try {
+            return encoded.readableBytes();
+        } finally {
+            encoded.release();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时序指标标签串的拼接，见 {@link SlsMetricRecorder#buildLabelsContent}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricLabelsBenchmark {
+    @Param({"2", "8"})
+    public int labelCount;
+
+    private final Map<String, String> labels = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        String[] keys = {"hostname", "idc", "ip", "method", "route", "status", "service", "version"};
+        for (int i = 0; i < labelCount; i++) {
+            labels.put(keys[i], keys[i] + "-value-" + i);
+        }
+    }
+
+    @Benchmark
+    public String buildLabelsContent() {
+        return SlsMetricRecorder.buildLabelsContent(labels, LogCorpus.SOURCE);
+    }
+}
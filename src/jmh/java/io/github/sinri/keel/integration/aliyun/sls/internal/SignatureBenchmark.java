@@ -0,0 +1,54 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsRequestSigner;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsSignatureKit;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PutLogs 请求签名：逐次创建 Mac 的 {@link AliyunSlsSignatureKit#calculateSignature} 与复用 Mac 的 {@link AliyunSlsRequestSigner}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignatureBenchmark {
+    private static final String ACCESS_KEY_ID = "LTAI5tBenchmarkKeyId";
+    private static final String ACCESS_KEY_SECRET = "BenchmarkAccessKeySecretValue0123";
+    private static final String URI = "/logstores/app-log/shards/lb";
+    private static final String CONTENT_TYPE = "application/x-protobuf";
+    private static final String CONTENT_MD5 = "1B2M2Y8AsgTpgAmY7PhCfg==";
+
+    private final AliyunSlsRequestSigner signer = new AliyunSlsRequestSigner(ACCESS_KEY_ID, ACCESS_KEY_SECRET);
+    private final Buffer body = Buffer.buffer(new byte[16 * 1024]);
+    private final Map<String, String> headers = new TreeMap<>();
+    private String date;
+
+    @Setup
+    public void setUp() {
+        date = AliyunSlsRequestSigner.currentGmtDate();
+        headers.put("Content-MD5", CONTENT_MD5);
+        headers.put("x-log-apiversion", "0.6.0");
+        headers.put("x-log-bodyrawsize", "65536");
+        headers.put("x-log-compresstype", "lz4");
+        headers.put("x-log-signaturemethod", "hmac-sha1");
+    }
+
+    @Benchmark
+    public String calculateSignature() {
+        return AliyunSlsSignatureKit.calculateSignature("POST", body, CONTENT_TYPE, date, headers, URI, null, ACCESS_KEY_SECRET);
+    }
+
+    @Benchmark
+    public String requestSigner() {
+        return signer.message("POST", CONTENT_MD5, CONTENT_TYPE, date)
+                     .header("x-log-apiversion", "0.6.0")
+                     .header("x-log-bodyrawsize", "65536")
+                     .header("x-log-compresstype", "lz4")
+                     .header("x-log-signaturemethod", "hmac-sha1")
+                     .authorization(URI, null);
+    }
+}
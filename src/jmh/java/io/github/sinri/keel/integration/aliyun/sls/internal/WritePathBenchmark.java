@@ -0,0 +1,74 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.base.json.JsonifiedThrowable;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入路径的完整转换：一批 SpecificLog 经 {@link SlsQueuedLogWriterAdapter#buildLogItem} 转换、累积为 LogGroup，
+ * 再编码并压缩为 PutLogs 请求体，与 {@link SlsQueuedLogWriterAdapter#processLogRecords} 及发送器的编码步骤一致，
+ * 不含 HTTP 发送。结果按每条日志的平均耗时报告。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(WritePathBenchmark.BATCH_SIZE)
+public class WritePathBenchmark {
+    static final int BATCH_SIZE = 1024;
+
+    @Param({"true", "false"})
+    public boolean exceptionCache;
+
+    private final CompressionCodec codec = CompressionCodecs.lz4();
+    private List<SpecificLog<?>> batch;
+    private ThrowableJsonCache throwableJsonCache;
+
+    @Setup
+    public void setUp() {
+        batch = LogCorpus.logs(BATCH_SIZE);
+        throwableJsonCache = exceptionCache
+                ? new ThrowableJsonCache(ThrowableJsonCache.DEFAULT_CAPACITY, 0,
+                t -> JsonifiedThrowable.wrap(t).toJsonExpression())
+                : null;
+    }
+
+    @Benchmark
+    public long logsToPayload() {
+        long payloadBytes = 0;
+        LogGroup logGroup = new LogGroup(LogCorpus.TOPIC, LogCorpus.SOURCE);
+        for (SpecificLog<?> log : batch) {
+            LogItem logItem = SlsQueuedLogWriterAdapter.buildLogItem(log, throwableJsonCache);
+            if (!logGroup.canAccept(logItem)) {
+                payloadBytes += encodeAndCompress(logGroup);
+                logGroup = new LogGroup(LogCorpus.TOPIC, LogCorpus.SOURCE);
+            }
+            logGroup.addLogItem(logItem);
+        }
+        return payloadBytes + encodeAndCompress(logGroup);
+    }
+
+    private int encodeAndCompress(LogGroup logGroup) {
+        ByteBuf raw = LogGroupEncoder.encode(logGroup, PooledByteBufAllocator.DEFAULT);
+        ByteBuf compressed;
+        try {
+            compressed = codec.compress(raw, PooledByteBufAllocator.DEFAULT);
+        } finally {
+            raw.release();
+        }
+        try {
+            return compressed.readableBytes();
+        } finally {
+            compressed.release();
+        }
+    }
+}
@@ -3,10 +3,21 @@ package io.github.sinri.keel.integration.aliyun.sls;
 
 import io.github.sinri.keel.base.configuration.ConfigElement;
 import io.github.sinri.keel.base.configuration.NotConfiguredException;
+import io.github.sinri.keel.integration.aliyun.sls.internal.AliyunSLSLogPutter;
+import io.github.sinri.keel.integration.aliyun.sls.internal.PutLogsRetryPolicy;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsQueuedLogWriterAdapter;
+import io.github.sinri.keel.integration.aliyun.sls.internal.TopicRoute;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackFileStore;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.SpillStore;
+import io.github.sinri.keel.logger.api.LogLevel;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * 阿里云日志服务相关配置节点。
@@ -23,6 +34,39 @@ public class AliyunSlsConfigElement extends ConfigElement {
     private static final String CONFIG_KEY_ENDPOINT = "endpoint";
     private static final String CONFIG_KEY_ACCESS_KEY_ID = "accessKeyId";
     private static final String CONFIG_KEY_ACCESS_KEY_SECRET = "accessKeySecret";
+    private static final String CONFIG_KEY_MAX_IN_FLIGHT_REQUESTS = "maxInFlightRequests";
+    private static final String CONFIG_KEY_SHARD_ROUTING = "shardRouting";
+    private static final String CONFIG_KEY_SHARD_ROUTING_KEY = "shardRoutingKey";
+    private static final String CONFIG_KEY_MAX_RETRIES = "maxRetries";
+    private static final String CONFIG_KEY_RETRY_INITIAL_BACKOFF_MS = "retryInitialBackoffMs";
+    private static final String CONFIG_KEY_RETRY_MAX_BACKOFF_MS = "retryMaxBackoffMs";
+    private static final String CONFIG_KEY_SPILL_DIRECTORY = "spillDirectory";
+    private static final String CONFIG_KEY_SPILL_MAX_BYTES = "spillMaxBytes";
+    private static final String CONFIG_KEY_FALLBACK_DIRECTORY = "fallbackDirectory";
+    private static final String CONFIG_KEY_FALLBACK_ROTATE_BYTES = "fallbackRotateBytes";
+    private static final String CONFIG_KEY_FALLBACK_ROTATE_MS = "fallbackRotateMs";
+    private static final String CONFIG_KEY_FALLBACK_MAX_BYTES = "fallbackMaxBytes";
+    private static final String CONFIG_KEY_COMPRESS_TYPE = "compressType";
+    private static final String CONFIG_KEY_LINGER_MS = "lingerMs";
+    private static final String CONFIG_KEY_BATCH_FLUSH_BYTES = "batchFlushBytes";
+    private static final String CONFIG_KEY_BATCH_FLUSH_ITEMS = "batchFlushItems";
+    private static final String CONFIG_KEY_MAX_QUEUED_LOGS = "maxQueuedLogs";
+    private static final String CONFIG_KEY_OVERFLOW_POLICY = "overflowPolicy";
+    private static final String CONFIG_KEY_OVERFLOW_KEEP_LEVEL = "overflowKeepLevel";
+    private static final String CONFIG_KEY_OVERFLOW_BLOCK_TIMEOUT_MS = "overflowBlockTimeoutMs";
+    private static final String CONFIG_KEY_ENCODE_WORKERS = "encodeWorkers";
+    private static final String CONFIG_KEY_EXCEPTION_CACHE_SIZE = "exceptionCacheSize";
+    private static final String CONFIG_KEY_EXCEPTION_FULL_TRACE_WINDOW_MS = "exceptionFullTraceWindowMs";
+    private static final String CONFIG_KEY_TELEMETRY_INTERVAL_MS = "telemetryIntervalMs";
+    private static final String CONFIG_KEY_BUFFER_SIZE = "bufferSize";
+    private static final String CONFIG_KEY_DRAIN_TIMEOUT_MS = "drainTimeoutMs";
+    private static final String CONFIG_KEY_ROUTES = "routes";
+    private static final String CONFIG_KEY_ROUTE_TOPIC = "topic";
+    private static final String CONFIG_KEY_ROUTE_MATCH = "match";
+    private static final String CONFIG_KEY_WRITER_INSTANCES = "writerInstances";
+    private static final String CONFIG_KEY_INGRESS_RING = "ingressRing";
+    private static final String CONFIG_KEY_ENCODE_AT_ENQUEUE = "encodeAtEnqueue";
+    private static final String CONFIG_KEY_ARENA_MAX_BYTES = "arenaMaxBytes";
 
     public AliyunSlsConfigElement(ConfigElement another) {
         super(another);
@@ -73,4 +117,596 @@ public class AliyunSlsConfigElement extends ConfigElement {
     public final String getAccessKeySecret() throws NotConfiguredException {
         return readString(List.of(CONFIG_KEY_ACCESS_KEY_SECRET));
     }
+
+    /**
+     * 同一写入器同时未完成的 PutLogs 请求数上限，未配置或配置值小于 1 时使用默认值。
+     *
+     * @return 在途请求数上限
+     * @since 5.0.4
+     */
+    public final int getMaxInFlightRequests() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_MAX_IN_FLIGHT_REQUESTS));
+            if (configured >= 1) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return AliyunSLSLogPutter.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+    }
+
+    /**
+     * 是否启用按 Shard 哈希区间路由写入；未启用时由 SLS 负载均衡（{@code /shards/lb}）。
+     *
+     * @return 启用时返回 true，默认 false
+     * @since 5.0.4
+     */
+    public final boolean isShardRoutingEnabled() {
+        try {
+            return readBoolean(List.of(CONFIG_KEY_SHARD_ROUTING));
+        } catch (NotConfiguredException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 启用 Shard 路由时，用于计算哈希键的日志字段名；未配置或日志中缺少该字段时使用日志主题。
+     *
+     * @return 日志字段名
+     * @since 5.0.4
+     */
+    public final @Nullable String getShardRoutingKey() {
+        try {
+            return readString(List.of(CONFIG_KEY_SHARD_ROUTING_KEY));
+        } catch (NotConfiguredException e) {
+            return null;
+        }
+    }
+
+    /**
+     * PutLogs 失败时的最大重试次数（不含首次请求），为 0 时不重试。
+     *
+     * @return 最大重试次数，未配置或配置值不合法时为 {@link PutLogsRetryPolicy#DEFAULT_MAX_RETRIES}
+     * @since 5.0.4
+     */
+    public final int getMaxRetries() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_MAX_RETRIES));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return PutLogsRetryPolicy.DEFAULT_MAX_RETRIES;
+    }
+
+    /**
+     * PutLogs 首次重试的退避上限（毫秒），此后每次重试翻倍。
+     *
+     * @return 退避上限，未配置或配置值不合法时为 {@link PutLogsRetryPolicy#DEFAULT_INITIAL_BACKOFF_MS}
+     * @since 5.0.4
+     */
+    public final long getRetryInitialBackoffMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_RETRY_INITIAL_BACKOFF_MS));
+            if (configured >= 1) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return PutLogsRetryPolicy.DEFAULT_INITIAL_BACKOFF_MS;
+    }
+
+    /**
+     * PutLogs 单次重试的退避上限（毫秒），不小于 {@link #getRetryInitialBackoffMs()}。
+     *
+     * @return 退避上限，未配置或配置值不合法时为 {@link PutLogsRetryPolicy#DEFAULT_MAX_BACKOFF_MS}
+     * @since 5.0.4
+     */
+    public final long getRetryMaxBackoffMs() {
+        long maxBackoffMs = PutLogsRetryPolicy.DEFAULT_MAX_BACKOFF_MS;
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_RETRY_MAX_BACKOFF_MS));
+            if (configured >= 1) {
+                maxBackoffMs = configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return Math.max(getRetryInitialBackoffMs(), maxBackoffMs);
+    }
+
+    /**
+     * 落盘队列目录；配置后，重试次数用尽的 PutLogs 请求体会写入该目录，并在 SLS 恢复后按顺序重放。
+     *
+     * @return 落盘目录，未配置时返回 null（不落盘）
+     * @since 5.0.4
+     */
+    public final @Nullable String getSpillDirectory() {
+        try {
+            return readString(List.of(CONFIG_KEY_SPILL_DIRECTORY));
+        } catch (NotConfiguredException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 落盘队列的总容量上限（字节），未配置或配置值不合法时使用 {@link SpillStore#DEFAULT_MAX_TOTAL_BYTES}。
+     *
+     * @return 总容量上限
+     * @since 5.0.4
+     */
+    public final long getSpillMaxBytes() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_SPILL_MAX_BYTES));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SpillStore.DEFAULT_MAX_TOTAL_BYTES;
+    }
+
+    /**
+     * 降级文件目录；配置后，最终未能送达且未落盘的 LogGroup 以 NDJSON 写入该目录下按大小与时间滚动的文件，
+     * 而不是逐行输出到标准输出，并在 SLS 可用时重新写入。
+     *
+     * @return 降级文件目录，未配置时返回 null（输出到标准输出）
+     * @since 5.0.4
+     */
+    public final @Nullable String getFallbackDirectory() {
+        try {
+            return readString(List.of(CONFIG_KEY_FALLBACK_DIRECTORY));
+        } catch (NotConfiguredException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个降级文件的滚动大小（字节），未配置或配置值不合法时使用 {@link FallbackFileStore#DEFAULT_ROTATE_BYTES}。
+     *
+     * @return 滚动大小
+     * @since 5.0.4
+     */
+    public final long getFallbackRotateBytes() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_FALLBACK_ROTATE_BYTES));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return FallbackFileStore.DEFAULT_ROTATE_BYTES;
+    }
+
+    /**
+     * 降级文件的滚动间隔（毫秒），文件关闭后才会被重新写入 SLS；
+     * 未配置或配置值不合法时使用 {@link FallbackFileStore#DEFAULT_ROTATE_MS}。
+     *
+     * @return 滚动间隔（毫秒）
+     * @since 5.0.4
+     */
+    public final long getFallbackRotateMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_FALLBACK_ROTATE_MS));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return FallbackFileStore.DEFAULT_ROTATE_MS;
+    }
+
+    /**
+     * 降级文件的总容量上限（字节），写满后退回标准输出；
+     * 未配置或配置值不合法时使用 {@link FallbackFileStore#DEFAULT_MAX_TOTAL_BYTES}。
+     *
+     * @return 总容量上限
+     * @since 5.0.4
+     */
+    public final long getFallbackMaxBytes() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_FALLBACK_MAX_BYTES));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return FallbackFileStore.DEFAULT_MAX_TOTAL_BYTES;
+    }
+
+    /**
+     * PutLogs 请求体的压缩算法，取值为 {@code lz4}、{@code zstd} 或 {@code deflate}；
+     * 未配置或取值不受支持时使用 {@code lz4}。
+     *
+     * @return 小写的压缩算法名，即 {@code x-log-compresstype} 的取值
+     * @since 5.0.4
+     */
+    public final String getCompressType() {
+        try {
+            String configured = readString(List.of(CONFIG_KEY_COMPRESS_TYPE));
+            if (CompressionCodecs.forCompressType(configured) != null) {
+                return configured.toLowerCase(Locale.ROOT);
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return CompressionCodecs.LZ4;
+    }
+
+    /**
+     * LogGroup 跨批次累积的最长停留时间（毫秒），类似 Kafka 的 {@code linger.ms}。
+     * <p>
+     * 为 0 时（默认）每个批次结束即发送该批次的所有 LogGroup；大于 0 时 LogGroup 跨批次保持打开，
+     * 直到达到字节数或条数阈值，或停留时间达到该值后才发送。
+     *
+     * @return 停留时间（毫秒）
+     * @since 5.0.4
+     */
+    public final long getLingerMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_LINGER_MS));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return 0L;
+    }
+
+    /**
+     * 累积中的 LogGroup 达到该编码字节数时立即发送，不超过 {@link LogGroup#DEFAULT_MAX_SERIALIZED_SIZE}。
+     *
+     * @return 字节数阈值
+     * @since 5.0.4
+     */
+    public final int getBatchFlushBytes() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_BATCH_FLUSH_BYTES));
+            if (configured >= 1) {
+                return Math.min(configured, LogGroup.DEFAULT_MAX_SERIALIZED_SIZE);
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return LogGroup.DEFAULT_MAX_SERIALIZED_SIZE;
+    }
+
+    /**
+     * 累积中的 LogGroup 达到该日志条数时立即发送，不超过 {@link LogGroup#DEFAULT_MAX_LOG_ITEMS}。
+     *
+     * @return 条数阈值
+     * @since 5.0.4
+     */
+    public final int getBatchFlushItems() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_BATCH_FLUSH_ITEMS));
+            if (configured >= 1) {
+                return Math.min(configured, LogGroup.DEFAULT_MAX_LOG_ITEMS);
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return LogGroup.DEFAULT_MAX_LOG_ITEMS;
+    }
+
+    /**
+     * 写入队列中已接收但尚未处理完的日志数上限，超过后按 {@link #getOverflowPolicy()} 处理；
+     * {@link OverflowPolicy#UNBOUNDED} 策略下不限制。
+     *
+     * @return 日志条数上限
+     * @since 5.0.4
+     */
+    public final int getMaxQueuedLogs() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_MAX_QUEUED_LOGS));
+            if (configured >= 1) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_MAX_QUEUED_LOGS;
+    }
+
+    /**
+     * 是否以预分配的多生产者、单消费者环形缓冲作为写入适配器的日志入口，容量取不小于 {@link #getMaxQueuedLogs()} 的 2 的幂；
+     * 未启用时使用 {@code QueuedLogWriterAdapter} 的队列。
+     *
+     * @return 启用时返回 true，默认 false
+     * @since 5.0.4
+     */
+    public final boolean isIngressRingEnabled() {
+        try {
+            return readBoolean(List.of(CONFIG_KEY_INGRESS_RING));
+        } catch (NotConfiguredException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 是否在写日志的调用方线程上将日志编码为 Protobuf 字节后再入队；启用后队列只保留编码结果，
+     * 原日志对象（上下文、异常、附加字段）在入队后即可被回收，写入器拼接 LogGroup 时不再重复编码。
+     *
+     * @return 启用时返回 true，默认 false
+     * @since 5.0.4
+     */
+    public final boolean isEncodeAtEnqueueEnabled() {
+        try {
+            return readBoolean(List.of(CONFIG_KEY_ENCODE_AT_ENQUEUE));
+        } catch (NotConfiguredException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 存放入队时编码结果的堆外内存总量上限（字节），多个写入器实例共用此上限；
+     * 大于 0 时启用堆外内存区并隐含启用 {@code encodeAtEnqueue}，内存区已满时编码结果改存于堆内存。
+     *
+     * @return 堆外内存总量上限，未配置或配置值不合法时为 0，即不启用
+     * @since 5.0.4
+     */
+    public final long getArenaMaxBytes() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_ARENA_MAX_BYTES));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return 0L;
+    }
+
+    /**
+     * 写入队列积压达到上限时的处理策略，取值为 {@code unbounded}、{@code block}、{@code dropOldest}、{@code dropByLevel} 或 {@code sample}；
+     * 未配置或取值不受支持时使用 {@code unbounded}，即不限制积压、从不丢弃日志。
+     *
+     * @return 积压处理策略
+     * @since 5.0.4
+     */
+    public final OverflowPolicy getOverflowPolicy() {
+        try {
+            OverflowPolicy policy = OverflowPolicy.forConfigValue(readString(List.of(CONFIG_KEY_OVERFLOW_POLICY)));
+            if (policy != null) {
+                return policy;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return OverflowPolicy.UNBOUNDED;
+    }
+
+    /**
+     * {@code dropByLevel} 策略下优先保留的最低日志级别；未配置或取值无效时为 {@link LogLevel#WARNING}。
+     *
+     * @return 日志级别
+     * @since 5.0.4
+     */
+    public final LogLevel getOverflowKeepLevel() {
+        try {
+            return LogLevel.valueOf(readString(List.of(CONFIG_KEY_OVERFLOW_KEEP_LEVEL)).toUpperCase(Locale.ROOT));
+        } catch (NotConfiguredException | IllegalArgumentException e) {
+            // use default
+        }
+        return LogLevel.WARNING;
+    }
+
+    /**
+     * {@code block} 策略下 Worker 线程调用方单次阻塞等待的最长时间（毫秒）；
+     * 也是 {@code unbounded} 策略下入口环形缓冲已满时 Worker 线程调用方等待空位的最长时间。
+     *
+     * @return 阻塞时间（毫秒）
+     * @since 5.0.4
+     */
+    public final long getOverflowBlockTimeoutMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_OVERFLOW_BLOCK_TIMEOUT_MS));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_OVERFLOW_BLOCK_TIMEOUT_MS;
+    }
+
+    /**
+     * LogGroup 编码与压缩所用的 Worker 线程数，为 0 时（默认）在写入器的上下文中直接编码；
+     * 并行编码的线程数通常不宜超过 {@link #getMaxInFlightRequests()}。
+     *
+     * @return 编码线程数
+     * @since 5.0.4
+     */
+    public final int getEncodeWorkers() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_ENCODE_WORKERS));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return 0;
+    }
+
+    /**
+     * 异常 JSON 指纹缓存的容量，为 0 时不缓存，每条带异常的日志都重新序列化调用栈。
+     *
+     * @return 缓存的异常数上限
+     * @since 5.0.4
+     */
+    public final int getExceptionCacheSize() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_EXCEPTION_CACHE_SIZE));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_EXCEPTION_CACHE_SIZE;
+    }
+
+    /**
+     * 同一异常指纹的完整调用栈的发送窗口（毫秒）：窗口内只有第一次记录携带完整调用栈，之后只携带类型、消息与指纹。
+     * 为 0 时（默认）每次都携带完整调用栈；需启用异常 JSON 指纹缓存才生效。
+     *
+     * @return 发送窗口（毫秒）
+     * @since 5.0.4
+     */
+    public final long getExceptionFullTraceWindowMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_EXCEPTION_FULL_TRACE_WINDOW_MS));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return 0L;
+    }
+
+    /**
+     * 写入遥测的导出间隔（毫秒），仅在为写入适配器设置了遥测指标记录器时生效。
+     *
+     * @return 导出间隔（毫秒）
+     * @since 5.0.4
+     */
+    public final long getTelemetryIntervalMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_TELEMETRY_INTERVAL_MS));
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_TELEMETRY_INTERVAL_MS;
+    }
+
+    /**
+     * 写入适配器每批从队列中取出处理的日志条数。
+     *
+     * @return 单批日志条数
+     * @since 5.0.4
+     */
+    public final int getBufferSize() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_BUFFER_SIZE));
+            if (configured >= 1) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * 日志工厂部署的写入器实例数。多于 1 个时，各实例是相互独立的写入管线，主题按一致性哈希分配给其中之一。
+     * <p>
+     * 默认 1，与 5.0.4 之前的单个写入器相同；需要多个写入器时应显式配置实例数，小于 1 的配置值视为未配置。
+     *
+     * @return 写入器实例数，默认 1
+     * @since 5.0.4
+     */
+    public final int getWriterInstances() {
+        try {
+            int configured = readInteger(List.of(CONFIG_KEY_WRITER_INSTANCES));
+            if (configured >= 1) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return 1;
+    }
+
+    /**
+     * 写入器或指标记录器停止时，等待已接收的记录送达 SLS 的最长时间（毫秒）。
+     *
+     * @return 排空期限（毫秒）
+     * @since 5.0.4
+     */
+    public final long getDrainTimeoutMs() {
+        try {
+            long configured = readLong(List.of(CONFIG_KEY_DRAIN_TIMEOUT_MS));
+            if (configured >= 0) {
+                return configured;
+            }
+        } catch (NotConfiguredException e) {
+            // use default
+        }
+        return SlsQueuedLogWriterAdapter.DEFAULT_DRAIN_TIMEOUT_MS;
+    }
+
+    /**
+     * 主题路由规则，按 {@code routes.0}、{@code routes.1}…… 的顺序读取，遇到第一个缺少 {@code topic} 的序号为止。
+     * <p>
+     * 每条规则包含 {@code topic}（主题、主题前缀或正则表达式）、{@code match}（{@code exact}、{@code prefix} 或 {@code regex}，
+     * 默认 {@code exact}）、{@code logstore} 与可选的 {@code project}（默认为 {@link #getProject()}）。
+     * 缺少 {@code logstore}、Project 无法确定或 {@code match} 取值不受支持的规则被跳过；正则表达式在写入器创建时才编译。
+     *
+     * @return 按优先级排列的路由规则，未配置时为空列表
+     * @since 5.0.4
+     */
+    public final List<TopicRouteConfig> getTopicRoutes() {
+        List<TopicRouteConfig> routes = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            String index = String.valueOf(i);
+            String topic;
+            try {
+                topic = readString(List.of(CONFIG_KEY_ROUTES, index, CONFIG_KEY_ROUTE_TOPIC));
+            } catch (NotConfiguredException e) {
+                break;
+            }
+            String match;
+            try {
+                match = readString(List.of(CONFIG_KEY_ROUTES, index, CONFIG_KEY_ROUTE_MATCH)).trim().toLowerCase(Locale.ROOT);
+            } catch (NotConfiguredException e) {
+                match = TopicRouteConfig.MATCH_EXACT;
+            }
+            if (TopicRoute.MatchType.fromConfigValue(match) == null) {
+                continue;
+            }
+            String project;
+            String logstore;
+            try {
+                logstore = readString(List.of(CONFIG_KEY_ROUTES, index, CONFIG_KEY_LOGSTORE));
+                try {
+                    project = readString(List.of(CONFIG_KEY_ROUTES, index, CONFIG_KEY_PROJECT));
+                } catch (NotConfiguredException e) {
+                    project = getProject();
+                }
+            } catch (NotConfiguredException e) {
+                continue;
+            }
+            routes.add(new TopicRouteConfig(topic, match, project, logstore));
+        }
+        return routes;
+    }
+
+    /**
+     * 一条主题路由规则的配置。
+     *
+     * @param topic    主题、主题前缀或正则表达式
+     * @param match    匹配方式：{@link #MATCH_EXACT}、{@link #MATCH_PREFIX} 或 {@link #MATCH_REGEX}
+     * @param project  匹配时写入的 Project
+     * @param logstore 匹配时写入的 Logstore
+     * @since 5.0.4
+     */
+    public record TopicRouteConfig(String topic, String match, String project, String logstore) {
+        public static final String MATCH_EXACT = "exact";
+        public static final String MATCH_PREFIX = "prefix";
+        public static final String MATCH_REGEX = "regex";
+    }
 }
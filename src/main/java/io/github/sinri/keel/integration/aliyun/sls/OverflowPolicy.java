@@ -0,0 +1,70 @@
+package io.github.sinri.keel.integration.aliyun.sls;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * SLS 写入队列积压达到上限（{@code maxQueuedLogs}）时的处理策略。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public enum OverflowPolicy {
+    /**
+     * 不限制积压，从不丢弃日志，与 5.0.4 之前的行为一致；未配置 {@code overflowPolicy} 时的默认策略。
+     */
+    UNBOUNDED("unbounded"),
+    /**
+     * 在 Worker 线程上短暂阻塞调用方，等待队列出现空位，超时后丢弃新日志；
+     * 在 EventLoop 线程上从不阻塞，队列已满时直接丢弃新日志。
+     */
+    BLOCK("block"),
+    /**
+     * 总是接收新日志，积压已满时从写入队列的队首淘汰最早的一条尚未处理的日志；
+     * 队列中的日志都已在处理中、无可淘汰时丢弃新日志。
+     */
+    DROP_OLDEST("dropOldest"),
+    /**
+     * 积压达到上限的四分之三时开始丢弃低于保留级别（默认 WARNING）的日志，
+     * 达到上限后丢弃所有新日志，从而为 ERROR 等重要日志预留空间。
+     */
+    DROP_BY_LEVEL("dropByLevel"),
+    /**
+     * 积压超过上限的一半后按比例随机接收新日志，接收概率随积压增长线性降低，达到上限时为 0。
+     */
+    SAMPLE("sample");
+
+    private final String configValue;
+
+    OverflowPolicy(String configValue) {
+        this.configValue = configValue;
+    }
+
+    /**
+     * @return 配置中使用的取值，如 {@code dropByLevel}
+     */
+    public String getConfigValue() {
+        return configValue;
+    }
+
+    /**
+     * 按配置取值查找策略，忽略大小写以及 {@code -}、{@code _} 分隔符。
+     *
+     * @param configValue 配置取值
+     * @return 对应的策略，不受支持时返回 null
+     */
+    public static @Nullable OverflowPolicy forConfigValue(@Nullable String configValue) {
+        if (configValue == null) {
+            return null;
+        }
+        String normalized = configValue.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+        for (OverflowPolicy policy : values()) {
+            if (policy.configValue.toLowerCase(Locale.ROOT).equals(normalized)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
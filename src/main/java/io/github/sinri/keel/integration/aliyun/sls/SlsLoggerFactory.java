@@ -2,8 +2,11 @@ package io.github.sinri.keel.integration.aliyun.sls;
 
 import io.github.sinri.keel.base.logger.adapter.QueuedLogWriterAdapter;
 import io.github.sinri.keel.base.verticles.KeelVerticleBase;
+import io.github.sinri.keel.integration.aliyun.sls.internal.OffHeapArena;
 import io.github.sinri.keel.integration.aliyun.sls.internal.SlsLogger;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsMetricRecorder;
 import io.github.sinri.keel.integration.aliyun.sls.internal.SlsQueuedLogWriterAdapter;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsShardedLogWriterAdapter;
 import io.github.sinri.keel.integration.aliyun.sls.internal.SlsSpecificLogger;
 import io.github.sinri.keel.logger.api.LateObject;
 import io.github.sinri.keel.logger.api.LogLevel;
@@ -19,69 +22,180 @@ import io.vertx.core.ThreadingModel;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 /**
  * 基于阿里云日志服务的日志记录器工厂。
  * <p>
  * 在确保配置加载完成之后再新建实例。
+ * <p>
+ * 5.0.4 起，{@code writerInstances} 配置为大于 1 时部署多个相互独立的写入器，按主题的一致性哈希分配日志，
+ * {@link #createLogger(String)} 创建的 Logger 直接指向其主题所属的写入器。
  *
  * @since 5.0.0
  */
 @NullMarked
 public class SlsLoggerFactory extends KeelVerticleBase implements LoggerFactory {
     private final @Nullable AliyunSlsConfigElement aliyunSlsConfig;
+    private final @Nullable SlsMetricRecorder telemetryRecorder;
     private final LateObject<QueuedLogWriterAdapter> lateAdapter = new LateObject<>();
+    private volatile @Nullable SlsShardedLogWriterAdapter shardedAdapter;
 
     public SlsLoggerFactory(@Nullable AliyunSlsConfigElement aliyunSlsConfig) {
+        this(aliyunSlsConfig, null);
+    }
+
+    /**
+     * @param aliyunSlsConfig   日志服务配置
+     * @param telemetryRecorder 接收写入遥测指标的记录器，需由调用方部署；为 null 时不导出遥测
+     * @since 5.0.4
+     */
+    public SlsLoggerFactory(@Nullable AliyunSlsConfigElement aliyunSlsConfig, @Nullable SlsMetricRecorder telemetryRecorder) {
         this.aliyunSlsConfig = aliyunSlsConfig;
+        this.telemetryRecorder = telemetryRecorder;
     }
 
     @Override
     protected Future<Void> startVerticle() {
-        QueuedLogWriterAdapter tempWriter;
+        List<SlsQueuedLogWriterAdapter> slsWriters = new ArrayList<>();
         try {
-            tempWriter = new SlsQueuedLogWriterAdapter(aliyunSlsConfig);
+            int writerInstances = aliyunSlsConfig == null ? 1 : aliyunSlsConfig.getWriterInstances();
+            // All writer instances share one off-heap arena so that arenaMaxBytes caps the whole process
+            OffHeapArena sharedArena = SlsQueuedLogWriterAdapter.createOffHeapArena(aliyunSlsConfig);
+            if (writerInstances > 1) {
+                for (int i = 0; i < writerInstances; i++) {
+                    slsWriters.add(buildSlsWriter(i, sharedArena));
+                }
+            } else {
+                slsWriters.add(buildSlsWriter(SlsQueuedLogWriterAdapter.UNSHARDED, sharedArena));
+            }
         } catch (AliyunSLSDisabled e) {
             System.out.println("Aliyun SLS Disabled, use fallback");
-            tempWriter = buildFallbackQueuedLogWriter();
-            tempWriter.accept(getClass().getName(), new Log()
+            QueuedLogWriterAdapter fallbackWriter = buildFallbackQueuedLogWriter();
+            fallbackWriter.accept(getClass().getName(), new Log()
                     .level(LogLevel.WARNING)
-                    .message("SlsLoggerFactory adapter impl fallback to " + tempWriter.getClass().getName()));
+                    .message("SlsLoggerFactory adapter impl fallback to " + fallbackWriter.getClass().getName()));
+            return deployWriter(fallbackWriter)
+                    .compose(s -> {
+                        this.lateAdapter.set(fallbackWriter);
+                        return Future.succeededFuture();
+                    });
         }
 
-        QueuedLogWriterAdapter finalTempWriter = tempWriter;
-        return finalTempWriter.deployMe(getKeel(), new DeploymentOptions().setThreadingModel(ThreadingModel.WORKER))
-                              .andThen(ar -> {
-                                  if (ar.failed()) {
-                                      System.err.println("Failed to deploy SlsQueuedLogWriterAdapter: " + ar.cause());
-                                  } else {
-                                      System.out.println("SlsQueuedLogWriterAdapter deployed: " + ar.result());
-                                  }
-                              })
-                              .compose(s -> {
-                                  this.lateAdapter.set(finalTempWriter);
-                                  return Future.succeededFuture();
-                              });
+        if (slsWriters.size() == 1) {
+            SlsQueuedLogWriterAdapter slsWriter = slsWriters.get(0);
+            return deployWriter(slsWriter)
+                    .compose(s -> {
+                        this.lateAdapter.set(slsWriter);
+                        return Future.succeededFuture();
+                    });
+        }
+        List<Future<String>> deployments = new ArrayList<>();
+        for (SlsQueuedLogWriterAdapter slsWriter : slsWriters) {
+            deployments.add(deployWriter(slsWriter));
+        }
+        return Future.all(deployments)
+                     .compose(all -> {
+                         this.shardedAdapter = new SlsShardedLogWriterAdapter(slsWriters);
+                         return Future.succeededFuture();
+                     });
+    }
+
+    private SlsQueuedLogWriterAdapter buildSlsWriter(int writerIndex, @Nullable OffHeapArena offHeapArena) throws AliyunSLSDisabled {
+        int bufferSize = aliyunSlsConfig == null ? SlsQueuedLogWriterAdapter.DEFAULT_BUFFER_SIZE : aliyunSlsConfig.getBufferSize();
+        SlsQueuedLogWriterAdapter slsWriter = new SlsQueuedLogWriterAdapter(aliyunSlsConfig, bufferSize, writerIndex, offHeapArena);
+        slsWriter.setTelemetryRecorder(telemetryRecorder);
+        return slsWriter;
+    }
+
+    private Future<String> deployWriter(QueuedLogWriterAdapter writer) {
+        return writer.deployMe(getKeel(), new DeploymentOptions().setThreadingModel(ThreadingModel.WORKER))
+                     .andThen(ar -> {
+                         if (ar.failed()) {
+                             System.err.println("Failed to deploy " + writer.getClass().getSimpleName() + ": " + ar.cause());
+                         } else {
+                             System.out.println(writer.getClass().getSimpleName() + " deployed: " + ar.result());
+                         }
+                     });
     }
 
     protected QueuedLogWriterAdapter buildFallbackQueuedLogWriter() {
         return new FallbackQueuedLogWriter();
     }
 
+    /**
+     * 等待此前写入的所有日志都已送达 SLS（或经重试用尽后落盘、降级输出），不设期限。
+     * <p>
+     * 日志服务未启用而使用降级输出时立即完成。
+     *
+     * @return 排空完成时完成的 Future
+     * @since 5.0.4
+     */
+    public Future<Void> flush() {
+        SlsShardedLogWriterAdapter sharded = this.shardedAdapter;
+        if (sharded != null) {
+            return sharded.flush();
+        }
+        if (lateAdapter.get() instanceof SlsQueuedLogWriterAdapter slsWriter) {
+            return slsWriter.flush();
+        }
+        return Future.succeededFuture();
+    }
+
+    /**
+     * 在期限内等待此前写入的所有日志都已送达 SLS（或经重试用尽后落盘、降级输出），适合短时任务在退出前调用。
+     * <p>
+     * 日志服务未启用而使用降级输出时立即完成。
+     *
+     * @param timeout 期限
+     * @return 在期限内排空时为 true，期限到达时仍有未完成的日志为 false
+     * @since 5.0.4
+     */
+    public Future<Boolean> drain(Duration timeout) {
+        SlsShardedLogWriterAdapter sharded = this.shardedAdapter;
+        if (sharded != null) {
+            return sharded.drain(timeout);
+        }
+        if (lateAdapter.get() instanceof SlsQueuedLogWriterAdapter slsWriter) {
+            return slsWriter.drain(timeout);
+        }
+        return Future.succeededFuture(true);
+    }
+
+    /**
+     * 5.0.4 起，部署了多个写入器时返回其主题所属的写入器。
+     */
     @Override
     public Logger createLogger(String topic) {
-        return new SlsLogger(topic, lateAdapter.get());
+        return new SlsLogger(topic, writerFor(topic));
     }
 
+    /**
+     * 5.0.4 起，部署了多个写入器时返回按主题分派日志的 {@link SlsShardedLogWriterAdapter}。
+     */
     @Override
     public LogWriterAdapter sharedAdapter() {
+        SlsShardedLogWriterAdapter sharded = this.shardedAdapter;
+        if (sharded != null) {
+            return sharded;
+        }
         return lateAdapter.get();
     }
 
     @Override
     public <L extends SpecificLog<L>> SpecificLogger<L> createLogger(String topic, Supplier<L> specificLogSupplier) {
-        return new SlsSpecificLogger<>(topic, specificLogSupplier, lateAdapter.get());
+        return new SlsSpecificLogger<>(topic, specificLogSupplier, writerFor(topic));
+    }
+
+    private QueuedLogWriterAdapter writerFor(String topic) {
+        SlsShardedLogWriterAdapter sharded = this.shardedAdapter;
+        if (sharded != null) {
+            return sharded.writerFor(topic);
+        }
+        return lateAdapter.get();
     }
 
 }
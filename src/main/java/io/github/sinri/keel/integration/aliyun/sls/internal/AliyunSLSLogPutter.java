@@ -3,40 +3,154 @@ package io.github.sinri.keel.integration.aliyun.sls.internal;
 import io.github.sinri.keel.base.logger.factory.StdoutLoggerFactory;
 import io.github.sinri.keel.core.utils.NetUtils;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
-import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.Lz4Utils;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsRequestSigner;
 import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsSignatureKit;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackFileStore;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackRecord;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.SpillRecord;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.SpillStore;
 import io.github.sinri.keel.logger.api.logger.Logger;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.vertx.core.*;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.core.json.JsonArray;
 import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * 阿里云日志服务上传 API 封装类。
+ * <p>
+ * 5.0.4 起，同一实例同时未完成的 PutLogs 请求数受在途窗口限制：窗口未满时请求立即发出，窗口已满时按调用顺序排队，
+ * 待先前的请求完成后依次发出。调用方可以通过 {@link #awaitSendWindow()} 在窗口已满时暂停生成新的 LogGroup。
+ * <p>
+ * 5.0.4 起，请求体的压缩算法可通过 {@link CompressionCodec} 选择，默认仍为 LZ4。
+ * LogGroup 编码进池化的直接内存，压缩、Content-MD5 计算与发送都直接使用该内存，请求结束（含重试）后释放。
+ * <p>
+ * 5.0.4 起，可重试的失败（限流、服务端错误、超时等，见 {@link PutLogsRetryPolicy}）会在 Vert.x 定时器上按指数退避重试，
+ * 重试期间复用首次编码与压缩得到的请求体，仅重新签名；重试次数用尽或遇到不可重试的失败时才降级输出。
+ * 重试期间该请求继续占用在途窗口，从而在服务端限流时自然地向上游施加背压。
+ * <p>
+ * 5.0.4 起，可指定编码线程数，LogGroup 的编码、压缩与 Content-MD5 计算在专用的有界 Worker 线程池上并行执行，
+ * 完成后按 {@link #putLogs} 的调用顺序依次交给 HTTP 发送；编码中的 LogGroup 同样占用在途窗口，
+ * 因此并行编码的数量不超过在途窗口大小与编码线程数中的较小者。
+ * <p>
+ * 5.0.4 起，可通过 {@link #attachSpillStore(SpillStore)} 挂载落盘队列：重试次数用尽的请求体写入落盘队列而非降级输出，
+ * 并由后台定时任务按写入顺序重放，送达后才从队列中确认移除。
+ * <p>
+ * 5.0.4 起，可通过 {@link #attachFallbackFileStore(FallbackFileStore)} 挂载降级文件：最终未能送达的 LogGroup 以 NDJSON
+ * 批量写入本地文件而非逐行输出，已关闭的文件由后台定时任务在 SLS 可用时经在途窗口并行重新写入，全部送达后删除。
+ * <p>
+ * 5.0.4 起，挂载了写入遥测时，会记录每个 LogGroup 的编码耗时、压缩前后大小，每次 PutLogs 请求的耗时与状态码，
+ * 以及重试、落盘与降级输出的次数。
  *
  * @since 5.0.0
  */
 @NullMarked
 public class AliyunSLSLogPutter implements Closeable {
-    private final String accessKeyId;
-    private final String accessKeySecret;
+    /**
+     * 默认的在途 PutLogs 请求数上限。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 4;
+    /**
+     * 单次 PutLogs 请求的空闲超时（毫秒），超时后按可重试失败处理。
+     */
+    private static final long REQUEST_IDLE_TIMEOUT_MS = 30_000L;
+    /**
+     * 落盘队列的重放检查间隔（毫秒）。
+     */
+    private static final long SPILL_REPLAY_INTERVAL_MS = 1_000L;
+    /**
+     * 降级文件的写出与重新写入检查间隔（毫秒）。
+     */
+    private static final long FALLBACK_UPLOAD_INTERVAL_MS = 5_000L;
+    /**
+     * 重新写入降级文件时每次读取的行数，同一批内的 LogGroup 经在途窗口并行发送。
+     */
+    private static final int FALLBACK_UPLOAD_CHUNK_LINES = 64;
+    private static final String ENCODE_WORKER_POOL_NAME_PREFIX = "keel-aliyun-sls-encoder-";
+    /**
+     * 编码线程池的序号；每个发送器使用独立命名的线程池，避免共享同名线程池时被其他发送器关闭或沿用其线程数。
+     */
+    private static final AtomicInteger ENCODE_WORKER_POOL_SEQUENCE = new AtomicInteger();
+    private static final String API_VERSION = "0.6.0";
+    private static final String SIGNATURE_METHOD = "hmac-sha1";
+    private static final String PUT_LOGS_CONTENT_TYPE = "application/x-protobuf";
+
+    private final AliyunSlsRequestSigner signer;
     private final WebClient webClient;
-    private final String endpoint;
+    private final SlsEndpoint endpoint;
     private final Logger logger;
+    private final InFlightWindow inFlightWindow;
+    private final Vertx vertx;
+    private final PutLogsRetryPolicy retryPolicy;
+    private final CompressionCodec compressionCodec;
+    private final @Nullable WorkerExecutor encodeExecutor;
+    /**
+     * 上一个 LogGroup 交给 HTTP 发送的时刻，用于保持并行编码后的发送顺序。
+     */
+    private Future<Void> lastSendTurn = Future.succeededFuture();
+    private @Nullable SpillStore spillStore;
+    private long spillReplayTimerId = -1;
+    private boolean spillReplaying;
+    private @Nullable FallbackFileStore fallbackFileStore;
+    private long fallbackUploadTimerId = -1;
+    private boolean fallbackUploading;
+    private @Nullable SlsWriterTelemetry telemetry;
 
     public AliyunSLSLogPutter(Vertx vertx, String accessKeyId, String accessKeySecret, String endpoint) {
-        this.accessKeyId = accessKeyId;
-        this.accessKeySecret = accessKeySecret;
-        this.webClient = WebClient.create(vertx);
-        this.endpoint = endpoint;
+        this(vertx, accessKeyId, accessKeySecret, endpoint, new AliyunSLSLogPutterOptions());
+    }
+
+    /**
+     * @param options 在途窗口、重试策略、压缩算法与编码线程数等可选参数
+     * @since 5.0.4
+     */
+    public AliyunSLSLogPutter(
+            Vertx vertx,
+            String accessKeyId,
+            String accessKeySecret,
+            String endpoint,
+            AliyunSLSLogPutterOptions options
+    ) {
+        int maxInFlightRequests = options.getMaxInFlightRequests();
+        int encodeWorkers = options.getEncodeWorkers();
+        this.vertx = vertx;
+        String encodeWorkerPoolName = ENCODE_WORKER_POOL_NAME_PREFIX + ENCODE_WORKER_POOL_SEQUENCE.incrementAndGet();
+        this.encodeExecutor = encodeWorkers > 0
+                ? vertx.createSharedWorkerExecutor(encodeWorkerPoolName, encodeWorkers)
+                : null;
+        this.compressionCodec = options.getCompressionCodec();
+        this.retryPolicy = options.getRetryPolicy();
+        this.signer = new AliyunSlsRequestSigner(accessKeyId, accessKeySecret);
+        this.inFlightWindow = new InFlightWindow(maxInFlightRequests);
+        this.webClient = WebClient.create(
+                vertx,
+                new WebClientOptions(),
+                new PoolOptions().setHttp1MaxSize(Math.max(maxInFlightRequests, PoolOptions.DEFAULT_MAX_POOL_SIZE))
+        );
+        this.endpoint = SlsEndpoint.parse(endpoint);
         this.logger = StdoutLoggerFactory.getInstance()
                                          .createLogger(AliyunSLSLogPutter.class.getName());
     }
@@ -64,10 +178,61 @@ public class AliyunSLSLogPutter implements Closeable {
         return configuredSourceExpression.replaceAll("\\[IP]", localHostAddress);
     }
 
+    /**
+     * 挂载落盘队列，并开始定时重放其中的记录。
+     * <p>
+     * 落盘队列的生命周期由调用方管理，应在本实例关闭之后再关闭落盘队列。
+     *
+     * @param spillStore 落盘队列
+     * @since 5.0.4
+     */
+    public void attachSpillStore(SpillStore spillStore) {
+        if (this.spillStore != null) {
+            throw new IllegalStateException("A spill store is already attached");
+        }
+        this.spillStore = spillStore;
+        this.spillReplayTimerId = vertx.setPeriodic(SPILL_REPLAY_INTERVAL_MS, timerId -> replaySpilled());
+    }
+
+    /**
+     * 挂载降级文件，并开始定时写出其缓冲区、重新写入其中已关闭的文件。
+     * <p>
+     * 降级文件的生命周期由调用方管理，应在本实例关闭之后再关闭降级文件。
+     *
+     * @param fallbackFileStore 降级文件
+     * @since 5.0.4
+     */
+    public void attachFallbackFileStore(FallbackFileStore fallbackFileStore) {
+        if (this.fallbackFileStore != null) {
+            throw new IllegalStateException("A fallback file store is already attached");
+        }
+        this.fallbackFileStore = fallbackFileStore;
+        this.fallbackUploadTimerId = vertx.setPeriodic(FALLBACK_UPLOAD_INTERVAL_MS, timerId -> uploadFallbackFiles());
+    }
+
+    /**
+     * 挂载写入遥测，此后的编码与发送情况记录于其中。
+     *
+     * @param telemetry 写入遥测
+     * @since 5.0.4
+     */
+    void attachTelemetry(SlsWriterTelemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
     @Override
     public void close(Completable<Void> completion) {
+        if (spillReplayTimerId >= 0) {
+            vertx.cancelTimer(spillReplayTimerId);
+        }
+        if (fallbackUploadTimerId >= 0) {
+            vertx.cancelTimer(fallbackUploadTimerId);
+        }
         logger.debug("Closing AliyunSLSLogPutter web client");
         this.webClient.close();
+        if (encodeExecutor != null) {
+            encodeExecutor.close();
+        }
         completion.succeed();
     }
 
@@ -77,81 +242,539 @@ public class AliyunSLSLogPutter implements Closeable {
         return promise.future();
     }
 
+    /**
+     * 发送一个 LogGroup。
+     * <p>
+     * 在途窗口已满时，请求会排队等待空位，返回的 Future 在该 LogGroup 的 PutLogs 请求完成后完成。
+     *
+     * @param project  Project name
+     * @param logstore Logstore name
+     * @param logGroup LogGroup to be sent
+     * @return Future of the request completion
+     */
     public Future<Void> putLogs(String project, String logstore, LogGroup logGroup) {
-        return putLogsImpl(project, logstore, logGroup);
+        return putLogs(project, logstore, logGroup, null);
     }
 
     /**
-     * 调用PutLogs API。
+     * 发送一个 LogGroup，并可指定写入的 Shard。
+     * <p>
+     * 指定 hashKey 时使用 {@code /shards/route?key=} 接口，由 SLS 按 hashKey 所在的区间写入对应 Shard；
+     * 未指定时使用 {@code /shards/lb} 接口，由 SLS 负载均衡。
      *
      * @param project  Project name
      * @param logstore Logstore name
      * @param logGroup LogGroup to be sent
-     * @return Future of void if successful, or failed future with an error message
-     */
-
-    private Future<Void> putLogsImpl(String project, String logstore, LogGroup logGroup) {
-        String uri = String.format("/logstores/%s/shards/lb", logstore);
-        String url = String.format("https://%s.%s%s", project, endpoint, uri);
-
-        String date = AliyunSlsSignatureKit.getGMTDate();
-        String contentType = "application/x-protobuf";
-
-        Map<String, String> headers = new HashMap<>();
-        headers.put("Date", date);
-        headers.put("Content-Type", contentType);
-        headers.put("x-log-apiversion", "0.6.0");
-        headers.put("x-log-signaturemethod", "hmac-sha1");
-        headers.put("x-log-compresstype", "lz4");
-        headers.put("Host", project + "." + endpoint);
-
-        // Convert LogGroup to protobuf format
-        Buffer raw = serializeLogGroup(logGroup);
-        headers.put("x-log-bodyrawsize", String.valueOf(raw.length()));
-        Buffer payload = Lz4Utils.compress(raw);
-        headers.put("Content-Length", String.valueOf(payload.length()));
-
-        headers.put("Content-MD5", AliyunSlsSignatureKit.contentMd5(payload));
-
-        // Calculate signature and add authorization header
-        String signature = AliyunSlsSignatureKit.calculateSignature(
-                "POST",
-                payload,
-                contentType,
-                date,
-                headers,
-                uri,
-                null,
-                accessKeySecret);
-        headers.put("Authorization", "LOG " + accessKeyId + ":" + signature);
-
-        HttpRequest<Buffer> request = this.webClient.postAbs(url);
-        headers.forEach(request::putHeader);
-        return request.sendBuffer(payload)
-                      .compose(bufferHttpResponse -> {
-                          if (bufferHttpResponse.statusCode() != 200) {
-                              String reason = "HTTP " + bufferHttpResponse.statusCode() + ": "
-                                      + bufferHttpResponse.bodyAsString();
-                              fallbackLog(reason, logGroup);
+     * @param hashKey  32 位十六进制的 Shard 哈希键，为 null 时负载均衡写入
+     * @return Future of the request completion
+     * @since 5.0.4
+     */
+    public Future<Void> putLogs(String project, String logstore, LogGroup logGroup, @Nullable String hashKey) {
+        WorkerExecutor executor = this.encodeExecutor;
+        if (executor == null) {
+            return inFlightWindow.submit(() -> putLogsImpl(project, logstore, logGroup, hashKey));
+        }
+
+        // Encoding runs in parallel, but each request waits for the previous one to be handed to the sender
+        Promise<Void> sendTurn = Promise.promise();
+        Future<Void> previousSendTurn;
+        synchronized (this) {
+            previousSendTurn = lastSendTurn;
+            lastSendTurn = sendTurn.future();
+        }
+        return inFlightWindow.submit(() -> {
+            Future<PreparedPutLogs> encoded = executor.executeBlocking(
+                    () -> preparePutLogs(project, logstore, logGroup, hashKey),
+                    false
+            );
+            return previousSendTurn.transform(ignored -> encoded)
+                                   .transform(ar -> {
+                                       sendTurn.complete();
+                                       if (ar.failed()) {
+                                           return fallbackUnencodable(project, logstore, logGroup, ar.cause());
+                                       }
+                                       return sendPreparedPutLogs(ar.result(), logGroup);
+                                   });
+        });
+    }
+
+    /**
+     * 调用 ListShards API，获取 Logstore 下的所有 Shard。
+     *
+     * @param project  Project name
+     * @param logstore Logstore name
+     * @return Shard 信息数组，每个元素包含 shardID、status、inclusiveBeginKey、exclusiveEndKey 等字段
+     * @see <a href="https://help.aliyun.com/zh/sls/developer-reference/api-sls-2020-12-30-listshards">ListShards</a>
+     * @since 5.0.4
+     */
+    public Future<JsonArray> listShards(String project, String logstore) {
+        String uri = String.format("/logstores/%s/shards", logstore);
+        String url = endpoint.url(project, uri);
+
+        String date = AliyunSlsRequestSigner.currentGmtDate();
+        String authorization = signer.message("GET", null, null, date)
+                                     .header("x-log-apiversion", API_VERSION)
+                                     .header("x-log-bodyrawsize", "0")
+                                     .header("x-log-signaturemethod", SIGNATURE_METHOD)
+                                     .authorization(uri, null);
+
+        HttpRequest<Buffer> request = this.webClient.getAbs(url)
+                                                    .putHeader("Date", date)
+                                                    .putHeader("x-log-apiversion", API_VERSION)
+                                                    .putHeader("x-log-signaturemethod", SIGNATURE_METHOD)
+                                                    .putHeader("x-log-bodyrawsize", "0")
+                                                    .putHeader("Host", endpoint.host(project))
+                                                    .putHeader("Authorization", authorization);
+        return request.send()
+                      .compose(response -> {
+                          if (response.statusCode() != 200) {
+                              return Future.failedFuture("ListShards failed with status " + response.statusCode()
+                                      + ": " + response.bodyAsString());
                           }
-                          return Future.succeededFuture();
-                      })
-                      .recover(throwable -> {
-                          String reason = throwable.getClass().getName() + ": " + throwable.getMessage();
-                          logger.error(log -> log.exception(throwable)
-                                                 .message("put log to SLS failed; fallback output follows"));
-                          fallbackLog(reason, logGroup);
-                          return Future.succeededFuture();
-                      })
-                      .mapEmpty();
+                          return Future.succeededFuture(response.bodyAsJsonArray());
+                      });
+    }
+
+    /**
+     * 等待在途窗口出现空位。
+     * <p>
+     * 在途请求与排队请求的总数少于窗口大小时立即完成，否则在某个请求完成后完成，用于向生成 LogGroup 的一方施加背压。
+     *
+     * @return 窗口出现空位时完成的 Future
+     * @since 5.0.4
+     */
+    public Future<Void> awaitSendWindow() {
+        return inFlightWindow.awaitAvailable();
+    }
+
+    /**
+     * @return 在途请求数上限
+     * @since 5.0.4
+     */
+    public int getMaxInFlightRequests() {
+        return inFlightWindow.getCapacity();
+    }
+
+    /**
+     * 调用PutLogs API。
+     * <p>
+     * LogGroup 只编码与压缩一次，可重试的失败按重试策略退避后重新签名并重发同一请求体；
+     * 编码或压缩失败、或发送最终失败时降级输出，返回的 Future 总是成功完成。
+     *
+     * @param project  Project name
+     * @param logstore Logstore name
+     * @param logGroup LogGroup to be sent
+     * @param hashKey  Shard hash key, or null to use load balancing
+     * @return Future of void after the request succeeded or the LogGroup was written to fallback output
+     */
+    private Future<Void> putLogsImpl(String project, String logstore, LogGroup logGroup, @Nullable String hashKey) {
+        PreparedPutLogs prepared;
+        try {
+            prepared = preparePutLogs(project, logstore, logGroup, hashKey);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // Direct memory exhaustion of the pooled allocator surfaces as an OutOfMemoryError
+            return fallbackUnencodable(project, logstore, logGroup, e);
+        }
+        return sendPreparedPutLogs(prepared, logGroup);
+    }
+
+    /**
+     * 无法编码或压缩的 LogGroup 不发送，记录错误后降级输出；降级输出本身失败时也只记录错误，返回的 Future 总是成功完成。
+     */
+    private Future<Void> fallbackUnencodable(String project, String logstore, LogGroup logGroup, Throwable throwable) {
+        logger.error(log -> log.exception(throwable)
+                               .message("encode log group for SLS failed; fallback output follows"));
+        String reason = "encode failed: " + throwable.getClass().getName() + ": " + throwable.getMessage();
+        return Future.<Void>succeededFuture()
+                     .compose(v -> fallbackLog(project, logstore, reason, logGroup))
+                     .recover(fallbackFailure -> {
+                         logger.error(log -> log.exception(fallbackFailure)
+                                                .message("fallback output of SLS log group failed, "
+                                                         + logGroup.getLogItems().size() + " logs are lost"));
+                         return Future.succeededFuture();
+                     });
+    }
+
+    /**
+     * 编码、压缩 LogGroup 并计算 Content-MD5，不涉及事件循环，可在任意线程上执行。
+     */
+    private PreparedPutLogs preparePutLogs(String project, String logstore, LogGroup logGroup, @Nullable String hashKey) {
+        long startNanos = System.nanoTime();
+        // Encode into a pooled direct buffer and compress buffer-to-buffer; the compressed buffer is kept for retries
+        ByteBuf raw = LogGroupEncoder.encode(logGroup, PooledByteBufAllocator.DEFAULT);
+        int rawSize = raw.readableBytes();
+        ByteBuf compressed;
+        try {
+            compressed = compressionCodec.compress(raw, PooledByteBufAllocator.DEFAULT);
+        } finally {
+            raw.release();
+        }
+        SlsWriterTelemetry telemetry = this.telemetry;
+        if (telemetry != null) {
+            telemetry.recordEncode(project, logstore, logGroup.getTopic(), System.nanoTime() - startNanos,
+                    rawSize, compressed.readableBytes());
+        }
+        try {
+            return new PreparedPutLogs(
+                    project,
+                    logstore,
+                    hashKey,
+                    compressionCodec.getCompressType(),
+                    BufferInternal.buffer(compressed),
+                    rawSize,
+                    AliyunSlsSignatureKit.contentMd5(compressed),
+                    compressed
+            );
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 发出已准备好的 PutLogs 请求（含重试），结束后释放其池化的请求体。
+     */
+    private Future<Void> sendPreparedPutLogs(PreparedPutLogs prepared, LogGroup logGroup) {
+        Promise<Void> promise = Promise.promise();
+        try {
+            attemptPutLogs(prepared, logGroup, 0, promise);
+        } catch (RuntimeException e) {
+            promise.tryFail(e);
+        }
+        // The WebClient writes an unreleasable view of the buffer, so it is released here once no attempt remains
+        return promise.future()
+                      .onComplete(ar -> prepared.release());
+    }
+
+    private void attemptPutLogs(PreparedPutLogs prepared, LogGroup logGroup, int retried, Promise<Void> promise) {
+        long startNanos = System.nanoTime();
+        sendPutLogs(prepared).onComplete(ar -> {
+            SlsWriterTelemetry telemetry = this.telemetry;
+            if (telemetry != null) {
+                telemetry.recordPutLogs(prepared.project(), prepared.logstore(), logGroup.getTopic(),
+                        System.nanoTime() - startNanos,
+                        ar.succeeded() ? ar.result().statusCode() : SlsWriterTelemetry.STATUS_TRANSPORT_ERROR);
+            }
+            String reason;
+            boolean retryable;
+            if (ar.succeeded()) {
+                HttpResponse<Buffer> response = ar.result();
+                if (response.statusCode() == 200) {
+                    promise.complete();
+                    return;
+                }
+                String body = response.bodyAsString();
+                reason = "HTTP " + response.statusCode() + ": " + body;
+                retryable = retryPolicy.isRetryable(response.statusCode(), body);
+            } else {
+                Throwable throwable = ar.cause();
+                reason = throwable.getClass().getName() + ": " + throwable.getMessage();
+                retryable = retryPolicy.isRetryable(throwable);
+            }
+
+            if (retryable && retried < retryPolicy.getMaxRetries()) {
+                int retry = retried + 1;
+                long backoffMs = retryPolicy.computeBackoffMs(retry);
+                logger.warning("put log to SLS failed, retry " + retry + "/" + retryPolicy.getMaxRetries()
+                        + " in " + backoffMs + " ms; " + reason);
+                if (telemetry != null) {
+                    telemetry.recordRetry(prepared.project(), prepared.logstore(), logGroup.getTopic());
+                }
+                vertx.setTimer(backoffMs, timerId -> attemptPutLogs(prepared, logGroup, retry, promise));
+                return;
+            }
+
+            SpillStore store = this.spillStore;
+            if (retryable && store != null) {
+                spill(store, prepared, logGroup, reason).onComplete(spilled -> promise.complete());
+                return;
+            }
+
+            if (ar.failed()) {
+                logger.error(log -> log.exception(ar.cause())
+                                       .message("put log to SLS failed; fallback output follows"));
+            }
+            fallbackLog(prepared.project(), prepared.logstore(), reason, logGroup)
+                    .onComplete(fallback -> promise.complete());
+        });
+    }
+
+    /**
+     * 将重试次数用尽的请求体写入落盘队列；落盘失败或容量已满时降级输出。
+     */
+    private Future<Void> spill(SpillStore store, PreparedPutLogs prepared, LogGroup logGroup, String reason) {
+        SpillRecord record = new SpillRecord(
+                prepared.project(),
+                prepared.logstore(),
+                prepared.compressType(),
+                prepared.rawSize(),
+                prepared.payload().getBytes()
+        );
+        return vertx.executeBlocking(() -> store.append(record))
+                    .recover(throwable -> {
+                        logger.error(log -> log.exception(throwable).message("append to SLS spill store failed"));
+                        return Future.succeededFuture(false);
+                    })
+                    .compose(appended -> {
+                        if (appended) {
+                            logger.warning("put log to SLS failed, spilled to disk for replay; " + reason);
+                            SlsWriterTelemetry telemetry = this.telemetry;
+                            if (telemetry != null) {
+                                telemetry.recordSpill(prepared.project(), prepared.logstore(), logGroup.getTopic());
+                            }
+                            return Future.<Void>succeededFuture();
+                        }
+                        return fallbackLog(prepared.project(), prepared.logstore(), reason + " (spill store full)", logGroup);
+                    });
+    }
+
+    /**
+     * 按写入顺序重放落盘队列中的记录；同一时刻只有一个重放过程，遇到可重试的失败时停止，等待下一次定时检查。
+     */
+    private void replaySpilled() {
+        SpillStore store = this.spillStore;
+        if (store == null || spillReplaying) {
+            return;
+        }
+        spillReplaying = true;
+        replayNextSpilled(store)
+                .onComplete(ar -> {
+                    spillReplaying = false;
+                    if (ar.failed()) {
+                        logger.error(log -> log.exception(ar.cause()).message("replay SLS spill store failed"));
+                    }
+                });
+    }
+
+    private Future<Void> replayNextSpilled(SpillStore store) {
+        return vertx.executeBlocking(store::peek)
+                    .compose(record -> {
+                        if (record == null) {
+                            return Future.succeededFuture();
+                        }
+                        Buffer payload = Buffer.buffer(record.payload());
+                        PreparedPutLogs prepared = new PreparedPutLogs(
+                                record.project(),
+                                record.logstore(),
+                                null,
+                                record.compressType(),
+                                payload,
+                                record.rawSize(),
+                                AliyunSlsSignatureKit.contentMd5(payload),
+                                null
+                        );
+                        return inFlightWindow.submit(() -> sendPutLogs(prepared))
+                                             .compose(response -> {
+                                                 if (response.statusCode() == 200) {
+                                                     return commitSpilled(store);
+                                                 }
+                                                 String body = response.bodyAsString();
+                                                 if (retryPolicy.isRetryable(response.statusCode(), body)) {
+                                                     return Future.failedFuture(new SpillReplayPaused());
+                                                 }
+                                                 logger.error("drop spilled SLS log group for " + record.project()
+                                                         + "/" + record.logstore() + " (" + record.rawSize()
+                                                         + " bytes raw): HTTP " + response.statusCode() + ": " + body);
+                                                 return commitSpilled(store);
+                                             })
+                                             .compose(v -> replayNextSpilled(store));
+                    })
+                    .recover(throwable -> {
+                        if (throwable instanceof SpillReplayPaused || retryPolicy.isRetryable(throwable)) {
+                            return Future.succeededFuture();
+                        }
+                        return Future.failedFuture(throwable);
+                    });
+    }
+
+    private Future<Void> commitSpilled(SpillStore store) {
+        return vertx.executeBlocking(() -> {
+            store.commit();
+            return null;
+        });
+    }
+
+    /**
+     * 写出降级文件的缓冲区，并按创建顺序重新写入已关闭的降级文件；同一时刻只有一个重新写入过程，
+     * 遇到可重试的失败或鉴权失败时停止，保留当前文件，等待下一次定时检查。
+     * <p>
+     * 文件在其全部 LogGroup 送达后才删除，中途停止时下一次从文件开头重新写入，即至少一次送达。
+     */
+    private void uploadFallbackFiles() {
+        FallbackFileStore store = this.fallbackFileStore;
+        if (store == null || fallbackUploading) {
+            return;
+        }
+        fallbackUploading = true;
+        vertx.executeBlocking(() -> {
+                 store.flush();
+                 return store.listClosedFiles();
+             })
+             .compose(files -> uploadNextFallbackFile(store, files.iterator()))
+             .recover(throwable -> {
+                 if (throwable instanceof SpillReplayPaused || retryPolicy.isRetryable(throwable)) {
+                     return Future.succeededFuture();
+                 }
+                 return Future.failedFuture(throwable);
+             })
+             .onComplete(ar -> {
+                 fallbackUploading = false;
+                 if (ar.failed()) {
+                     logger.error(log -> log.exception(ar.cause()).message("upload SLS fallback files failed"));
+                 }
+             });
+    }
+
+    private Future<Void> uploadNextFallbackFile(FallbackFileStore store, Iterator<Path> files) {
+        if (!files.hasNext()) {
+            return Future.succeededFuture();
+        }
+        Path file = files.next();
+        return vertx.executeBlocking(() -> Files.newBufferedReader(file, StandardCharsets.UTF_8))
+                    .compose(reader -> uploadFallbackLines(reader)
+                            .eventually(() -> vertx.executeBlocking(() -> {
+                                reader.close();
+                                return null;
+                            })))
+                    .compose(uploaded -> vertx.executeBlocking(() -> {
+                        store.delete(file);
+                        return null;
+                    }))
+                    .compose(deleted -> {
+                        logger.info("uploaded SLS fallback file " + file);
+                        return uploadNextFallbackFile(store, files);
+                    });
+    }
+
+    private Future<Void> uploadFallbackLines(BufferedReader reader) {
+        return vertx.executeBlocking(() -> readFallbackRecords(reader))
+                    .compose(records -> {
+                        if (records.isEmpty()) {
+                            return Future.succeededFuture();
+                        }
+                        List<Future<Void>> uploads = new ArrayList<>(records.size());
+                        records.forEach(record -> uploads.add(uploadFallbackRecord(record)));
+                        return Future.all(uploads)
+                                     .compose(v -> uploadFallbackLines(reader));
+                    });
+    }
+
+    /**
+     * 读取至多 {@link #FALLBACK_UPLOAD_CHUNK_LINES} 行，跳过无法解析的行；读到文件末尾时返回空列表。
+     */
+    private List<FallbackRecord> readFallbackRecords(BufferedReader reader) throws IOException {
+        List<FallbackRecord> records = new ArrayList<>(FALLBACK_UPLOAD_CHUNK_LINES);
+        String line;
+        while (records.size() < FALLBACK_UPLOAD_CHUNK_LINES && (line = reader.readLine()) != null) {
+            FallbackRecord record = FallbackFileStore.decode(line);
+            if (record != null) {
+                records.add(record);
+            } else if (!line.isBlank()) {
+                logger.warning("skip malformed line in SLS fallback file (" + line.length() + " chars)");
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 经在途窗口发出一次 PutLogs 请求；被拒绝（可重试的失败与鉴权失败除外）的 LogGroup 记录错误后丢弃，不再降级。
+     */
+    private Future<Void> uploadFallbackRecord(FallbackRecord record) {
+        LogGroup logGroup = record.logGroup();
+        return inFlightWindow.submit(() -> {
+                                 PreparedPutLogs prepared = preparePutLogs(record.project(), record.logstore(), logGroup, null);
+                                 return sendPutLogs(prepared).onComplete(ar -> prepared.release());
+                             })
+                             .compose(response -> {
+                                 if (response.statusCode() == 200) {
+                                     return Future.succeededFuture();
+                                 }
+                                 String body = response.bodyAsString();
+                                 if (retryPolicy.isRetryable(response.statusCode(), body)
+                                         || response.statusCode() == 401 || response.statusCode() == 403) {
+                                     return Future.failedFuture(new SpillReplayPaused());
+                                 }
+                                 logger.error("drop SLS fallback log group for " + record.project() + "/" + record.logstore()
+                                         + " (" + logGroup.getLogItems().size() + " logs): HTTP " + response.statusCode()
+                                         + ": " + body);
+                                 return Future.succeededFuture();
+                             });
+    }
+
+    /**
+     * 以当前时间重新签名，发出一次 PutLogs 请求。
+     */
+    private Future<HttpResponse<Buffer>> sendPutLogs(PreparedPutLogs prepared) {
+        String uri;
+        String queries;
+        if (prepared.hashKey() == null) {
+            uri = String.format("/logstores/%s/shards/lb", prepared.logstore());
+            queries = null;
+        } else {
+            uri = String.format("/logstores/%s/shards/route", prepared.logstore());
+            queries = "key=" + prepared.hashKey();
+        }
+        String url = endpoint.url(prepared.project(), uri);
+        if (queries != null) {
+            url += "?" + queries;
+        }
+
+        String date = AliyunSlsRequestSigner.currentGmtDate();
+        String rawSize = String.valueOf(prepared.rawSize());
+        // Signed headers in ascending name order
+        String authorization = signer.message("POST", prepared.contentMd5(), PUT_LOGS_CONTENT_TYPE, date)
+                                     .header("x-log-apiversion", API_VERSION)
+                                     .header("x-log-bodyrawsize", rawSize)
+                                     .header("x-log-compresstype", prepared.compressType())
+                                     .header("x-log-signaturemethod", SIGNATURE_METHOD)
+                                     .authorization(uri, queries);
+
+        HttpRequest<Buffer> request = this.webClient.postAbs(url)
+                                                    .idleTimeout(REQUEST_IDLE_TIMEOUT_MS)
+                                                    .putHeader("Date", date)
+                                                    .putHeader("Content-Type", PUT_LOGS_CONTENT_TYPE)
+                                                    .putHeader("x-log-apiversion", API_VERSION)
+                                                    .putHeader("x-log-signaturemethod", SIGNATURE_METHOD)
+                                                    .putHeader("x-log-compresstype", prepared.compressType())
+                                                    .putHeader("Host", endpoint.host(prepared.project()))
+                                                    .putHeader("x-log-bodyrawsize", rawSize)
+                                                    .putHeader("Content-Length", String.valueOf(prepared.payload().length()))
+                                                    .putHeader("Content-MD5", prepared.contentMd5())
+                                                    .putHeader("Authorization", authorization);
+        return request.sendBuffer(prepared.payload());
     }
 
     static Buffer serializeLogGroup(LogGroup logGroup) {
-        return Buffer.buffer(logGroup.toProtobuf().toByteArray());
+        return LogGroupEncoder.encode(logGroup);
     }
 
-    private void fallbackLog(String reason, LogGroup logGroup) {
-        buildFallbackLines(reason, logGroup).forEach(logger::error);
+    /**
+     * 降级输出：挂载了降级文件时写入降级文件，写入失败或容量已满时逐行输出。
+     */
+    private Future<Void> fallbackLog(String project, String logstore, String reason, LogGroup logGroup) {
+        SlsWriterTelemetry telemetry = this.telemetry;
+        if (telemetry != null) {
+            telemetry.recordFallback(project, logstore, logGroup.getTopic(), logGroup.getLogItems().size());
+        }
+        FallbackFileStore store = this.fallbackFileStore;
+        if (store == null) {
+            buildFallbackLines(reason, logGroup).forEach(logger::error);
+            return Future.succeededFuture();
+        }
+        return vertx.executeBlocking(() -> store.append(new FallbackRecord(project, logstore, logGroup)))
+                    .recover(throwable -> {
+                        logger.error(log -> log.exception(throwable).message("append to SLS fallback file failed"));
+                        return Future.succeededFuture(false);
+                    })
+                    .compose(appended -> {
+                        if (appended) {
+                            logger.warning("put log to SLS failed, " + logGroup.getLogItems().size()
+                                    + " logs written to fallback file for upload; " + reason);
+                        } else {
+                            buildFallbackLines(reason + " (fallback file unavailable)", logGroup).forEach(logger::error);
+                        }
+                        return Future.succeededFuture();
+                    });
     }
 
     static List<String> buildFallbackLines(String reason, LogGroup logGroup) {
@@ -181,4 +804,34 @@ public class AliyunSLSLogPutter implements Closeable {
         return lines;
     }
 
+    /**
+     * 已编码并压缩的 PutLogs 请求，重试时复用。
+     *
+     * @param pooledPayload payload 所包装的池化内存，不再发送后须通过 {@link #release()} 释放；非池化时为 null
+     */
+    private record PreparedPutLogs(
+            String project,
+            String logstore,
+            @Nullable String hashKey,
+            String compressType,
+            Buffer payload,
+            int rawSize,
+            String contentMd5,
+            @Nullable ByteBuf pooledPayload
+    ) {
+        void release() {
+            if (pooledPayload != null) {
+                pooledPayload.release();
+            }
+        }
+    }
+
+    /**
+     * 重放落盘队列或重新写入降级文件遇到可重试的失败时用于结束本轮重放的信号。
+     */
+    private static final class SpillReplayPaused extends RuntimeException {
+        SpillReplayPaused() {
+            super(null, null, false, false);
+        }
+    }
 }
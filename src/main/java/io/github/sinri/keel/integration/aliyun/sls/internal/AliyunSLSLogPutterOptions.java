@@ -0,0 +1,107 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * {@link AliyunSLSLogPutter} 的可选参数，未设置的项使用默认值。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public class AliyunSLSLogPutterOptions {
+    private int maxInFlightRequests = AliyunSLSLogPutter.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+    private PutLogsRetryPolicy retryPolicy = PutLogsRetryPolicy.defaultPolicy();
+    private CompressionCodec compressionCodec = CompressionCodecs.lz4();
+    private int encodeWorkers = 0;
+
+    /**
+     * 按日志服务配置中的在途窗口、重试与压缩算法设置构造，编码线程数保持默认。
+     *
+     * @param config 日志服务配置
+     * @return 可选参数
+     */
+    static AliyunSLSLogPutterOptions fromConfig(AliyunSlsConfigElement config) {
+        CompressionCodec codec = CompressionCodecs.forCompressType(config.getCompressType());
+        return new AliyunSLSLogPutterOptions()
+                .setMaxInFlightRequests(config.getMaxInFlightRequests())
+                .setRetryPolicy(new PutLogsRetryPolicy(
+                        config.getMaxRetries(),
+                        config.getRetryInitialBackoffMs(),
+                        config.getRetryMaxBackoffMs()
+                ))
+                .setCompressionCodec(codec == null ? CompressionCodecs.lz4() : codec);
+    }
+
+    /**
+     * @return 同时未完成（含编码中）的 PutLogs 请求数上限
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * @param maxInFlightRequests 同时未完成（含编码中）的 PutLogs 请求数上限，至少为 1，默认 {@link AliyunSLSLogPutter#DEFAULT_MAX_IN_FLIGHT_REQUESTS}
+     * @return 本对象
+     */
+    public AliyunSLSLogPutterOptions setMaxInFlightRequests(int maxInFlightRequests) {
+        if (maxInFlightRequests < 1) {
+            throw new IllegalArgumentException("maxInFlightRequests should be at least 1");
+        }
+        this.maxInFlightRequests = maxInFlightRequests;
+        return this;
+    }
+
+    /**
+     * @return PutLogs 失败时的重试策略
+     */
+    public PutLogsRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy PutLogs 失败时的重试策略，默认 {@link PutLogsRetryPolicy#defaultPolicy()}
+     * @return 本对象
+     */
+    public AliyunSLSLogPutterOptions setRetryPolicy(PutLogsRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * @return 请求体的压缩编解码器
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * @param compressionCodec 请求体的压缩编解码器，默认 LZ4
+     * @return 本对象
+     */
+    public AliyunSLSLogPutterOptions setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
+
+    /**
+     * @return 编码与压缩所用的 Worker 线程数
+     */
+    public int getEncodeWorkers() {
+        return encodeWorkers;
+    }
+
+    /**
+     * @param encodeWorkers 编码与压缩所用的 Worker 线程数，为 0 时（默认）在调用方的上下文中直接编码
+     * @return 本对象
+     */
+    public AliyunSLSLogPutterOptions setEncodeWorkers(int encodeWorkers) {
+        if (encodeWorkers < 0) {
+            throw new IllegalArgumentException("encodeWorkers should not be negative");
+        }
+        this.encodeWorkers = encodeWorkers;
+        return this;
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一致性哈希环：每个成员按其序号在环上放置 {@link #VIRTUAL_NODES} 个虚拟节点，键的 MD5 沿环顺时针找到的第一个虚拟节点即其所属成员。
+ * <p>
+ * 成员数变化时只有约 1/N 的键改变归属。每个键的查找结果会被缓存；缓存的键数超过 {@link #MAX_CACHED_KEYS} 后，新键每次都重新计算。
+ *
+ * @param <T> 成员类型
+ * @since 5.0.4
+ */
+@NullMarked
+final class ConsistentHashRing<T> {
+    /**
+     * 每个成员在环上的虚拟节点数。
+     */
+    static final int VIRTUAL_NODES = 160;
+    /**
+     * 缓存查找结果的键数上限。
+     */
+    static final int MAX_CACHED_KEYS = 10_000;
+
+    private static final ThreadLocal<MessageDigest> md5Digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final List<T> members;
+    private final long[] points;
+    private final int[] owners;
+    private final Map<String, T> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param members 成员列表，不可为空；成员在环上的位置只取决于其在列表中的序号
+     */
+    ConsistentHashRing(List<T> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("members must not be empty");
+        }
+        this.members = List.copyOf(members);
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            // Each MD5 digest yields two 64-bit positions
+            for (int v = 0; v < VIRTUAL_NODES / 2; v++) {
+                ByteBuffer digest = ByteBuffer.wrap(md5(i + "#" + v));
+                ring.putIfAbsent(digest.getLong(), i);
+                ring.putIfAbsent(digest.getLong(), i);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new int[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : ring.entrySet()) {
+            points[index] = entry.getKey();
+            owners[index] = entry.getValue();
+            index++;
+        }
+    }
+
+    private static byte[] md5(String value) {
+        return md5Digest.get().digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    List<T> getMembers() {
+        return members;
+    }
+
+    /**
+     * @param key 键
+     * @return 键所属的成员
+     */
+    T locate(String key) {
+        if (members.size() == 1) {
+            return members.get(0);
+        }
+        T cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        T located = members.get(indexOf(key));
+        if (cache.size() < MAX_CACHED_KEYS) {
+            cache.putIfAbsent(key, located);
+        }
+        return located;
+    }
+
+    /**
+     * @param key 键
+     * @return 键所属成员的序号
+     */
+    int indexOf(String key) {
+        long hash = ByteBuffer.wrap(md5(key)).getLong();
+        int position = Arrays.binarySearch(points, hash);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return owners[position == points.length ? 0 : position];
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.jspecify.annotations.NullMarked;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 排空进度跟踪：分别累计已接收与已处理完的记录数，排空时以调用时刻的已接收数为水位，等待已处理数达到水位。
+ * <p>
+ * 不同主题的批次可能乱序完成，因此在持续写入时水位只保证处理完的条数不少于排空开始前接收的条数；
+ * 写入停止后（如关闭前）即精确对应排空开始前接收的全部记录。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class DrainTracker {
+    /**
+     * 不设期限时使用的截止时刻。
+     */
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final long POLL_INTERVAL_MS = 10L;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * @param timeout 期限
+     * @return 以 {@link System#nanoTime()} 表示的截止时刻，溢出时为 {@link #NO_DEADLINE}
+     */
+    static long deadlineOf(Duration timeout) {
+        long timeoutNanos;
+        try {
+            timeoutNanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            return NO_DEADLINE;
+        }
+        long now = System.nanoTime();
+        long deadline = now + Math.max(0, timeoutNanos);
+        return deadline < now ? NO_DEADLINE : deadline;
+    }
+
+    /**
+     * 在截止时刻之前等待 Future 完成。
+     *
+     * @param vertx         用于设置定时器的 Vert.x 实例
+     * @param future        等待的 Future，其成功或失败均视为完成
+     * @param deadlineNanos 截止时刻
+     * @return 在截止时刻前完成时为 true，否则为 false
+     */
+    static Future<Boolean> awaitWithin(Vertx vertx, Future<?> future, long deadlineNanos) {
+        if (future.isComplete()) {
+            return Future.succeededFuture(true);
+        }
+        Promise<Boolean> promise = Promise.promise();
+        long timerId = -1;
+        if (deadlineNanos != NO_DEADLINE) {
+            long remainingMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+            timerId = vertx.setTimer(remainingMs, id -> promise.tryComplete(false));
+        }
+        long finalTimerId = timerId;
+        future.onComplete(ar -> {
+            if (finalTimerId >= 0) {
+                vertx.cancelTimer(finalTimerId);
+            }
+            promise.tryComplete(true);
+        });
+        return promise.future();
+    }
+
+    void admit(long count) {
+        admitted.addAndGet(count);
+    }
+
+    void complete(long count) {
+        completed.addAndGet(count);
+    }
+
+    /**
+     * @return 当前水位，即至今已接收的记录数
+     */
+    long watermark() {
+        return admitted.get();
+    }
+
+    /**
+     * @return 已接收但尚未处理完的记录数
+     */
+    long getPending() {
+        return Math.max(0, admitted.get() - completed.get());
+    }
+
+    /**
+     * 等待已处理完的记录数达到水位。
+     *
+     * @param vertx         用于设置定时器的 Vert.x 实例
+     * @param watermark     水位
+     * @param deadlineNanos 截止时刻
+     * @return 在截止时刻前达到水位时为 true，否则为 false
+     */
+    Future<Boolean> awaitCompleted(Vertx vertx, long watermark, long deadlineNanos) {
+        Promise<Boolean> promise = Promise.promise();
+        poll(vertx, watermark, deadlineNanos, promise);
+        return promise.future();
+    }
+
+    private void poll(Vertx vertx, long watermark, long deadlineNanos, Promise<Boolean> promise) {
+        if (completed.get() >= watermark) {
+            promise.complete(true);
+        } else if (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0) {
+            promise.complete(false);
+        } else {
+            vertx.setTimer(POLL_INTERVAL_MS, id -> poll(vertx, watermark, deadlineNanos, promise));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.EncodedLogItem;
+import io.github.sinri.keel.logger.api.LogLevel;
+import io.github.sinri.keel.logger.api.log.Log;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 在调用方线程上编码后进入写入队列的日志：只携带级别、编码后的 LogItem 与 Shard 路由值，
+ * 原日志的上下文、异常与附加字段在入队后即可被回收。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class EncodedLog extends Log {
+    private final EncodedLogItem logItem;
+    private final @Nullable String routingValue;
+
+    /**
+     * @param level        原日志的级别，供积压淘汰时按级别计数
+     * @param logItem      编码后的 LogItem
+     * @param routingValue Shard 路由字段的值，日志中无此字段或未启用 Shard 路由时为 null
+     */
+    EncodedLog(LogLevel level, EncodedLogItem logItem, @Nullable String routingValue) {
+        super();
+        level(level);
+        this.logItem = logItem;
+        this.routingValue = routingValue;
+    }
+
+    EncodedLogItem getLogItem() {
+        return logItem;
+    }
+
+    @Nullable
+    String getRoutingValue() {
+        return routingValue;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * 在途请求窗口。
+ * <p>
+ * 限制同时未完成的异步任务数：窗口未满时任务立即开始，已满时按提交顺序排队，任一任务完成后空位直接移交给下一个排队的任务。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+class InFlightWindow {
+    private final int capacity;
+    private final Deque<Promise<Void>> slotWaiters = new ArrayDeque<>();
+    private final Deque<Promise<Void>> windowWaiters = new ArrayDeque<>();
+    private int inFlight = 0;
+
+    InFlightWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getQueued() {
+        return slotWaiters.size();
+    }
+
+    /**
+     * 在窗口内执行一个异步任务，任务结束（无论成功与否）后释放空位。
+     *
+     * @param task 异步任务
+     * @param <T>  任务结果类型
+     * @return 任务的结果
+     */
+    <T> Future<T> submit(Supplier<Future<T>> task) {
+        return acquire().compose(v -> {
+            Future<T> future;
+            try {
+                future = task.get();
+            } catch (Throwable throwable) {
+                release();
+                return Future.failedFuture(throwable);
+            }
+            return future.andThen(ar -> release());
+        });
+    }
+
+    /**
+     * 在途与排队的任务总数少于容量时立即完成，否则在某个任务结束后完成。
+     *
+     * @return 窗口出现空位时完成的 Future
+     */
+    Future<Void> awaitAvailable() {
+        synchronized (this) {
+            if (inFlight + slotWaiters.size() < capacity) {
+                return Future.succeededFuture();
+            }
+            Promise<Void> promise = Promise.promise();
+            windowWaiters.add(promise);
+            return promise.future();
+        }
+    }
+
+    private Future<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < capacity) {
+                inFlight++;
+                return Future.succeededFuture();
+            }
+            Promise<Void> promise = Promise.promise();
+            slotWaiters.add(promise);
+            return promise.future();
+        }
+    }
+
+    private void release() {
+        Promise<Void> nextSlotWaiter;
+        Promise<Void> windowWaiter;
+        synchronized (this) {
+            // 空位直接移交给下一个排队的任务，在途数不变
+            nextSlotWaiter = slotWaiters.poll();
+            if (nextSlotWaiter == null) {
+                inFlight--;
+            }
+            windowWaiter = windowWaiters.poll();
+        }
+        if (nextSlotWaiter != null) {
+            nextSlotWaiter.complete();
+        }
+        if (windowWaiter != null) {
+            windowWaiter.complete();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.OverflowPolicy;
+import io.github.sinri.keel.logger.api.LogLevel;
+import io.vertx.core.Context;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SLS 写入队列的入口闸门，限制已接收但尚未处理完的日志数，并按 {@link OverflowPolicy} 处理积压。
+ * <p>
+ * 日志进入队列前调用 {@link #tryAdmit(LogLevel)} 占用一个名额，处理完成后调用 {@link #release(int)} 归还。
+ * 被丢弃的日志按级别计数，供监控告警使用。
+ * <p>
+ * 除 {@link OverflowPolicy#UNBOUNDED} 外，已接收但尚未处理完的日志数在任何时刻都不超过上限。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class IngressGate {
+    private final int capacity;
+    private final int lowPriorityLimit;
+    private final OverflowPolicy policy;
+    private final LogLevel keepLevel;
+    private final long blockTimeoutMs;
+    private final OldestEvictor evictor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger blockedCallers = new AtomicInteger();
+    private final LongAdder[] droppedByLevel;
+
+    /**
+     * @param capacity       已接收但尚未处理完的日志数上限
+     * @param policy         积压达到上限时的处理策略
+     * @param keepLevel      {@link OverflowPolicy#DROP_BY_LEVEL} 下优先保留的最低级别
+     * @param blockTimeoutMs {@link OverflowPolicy#BLOCK} 下单次阻塞的最长时间（毫秒）
+     */
+    IngressGate(int capacity, OverflowPolicy policy, LogLevel keepLevel, long blockTimeoutMs) {
+        this(capacity, policy, keepLevel, blockTimeoutMs, () -> null);
+    }
+
+    /**
+     * @param capacity       已接收但尚未处理完的日志数上限
+     * @param policy         积压达到上限时的处理策略
+     * @param keepLevel      {@link OverflowPolicy#DROP_BY_LEVEL} 下优先保留的最低级别
+     * @param blockTimeoutMs {@link OverflowPolicy#BLOCK} 下单次阻塞的最长时间（毫秒）
+     * @param evictor        {@link OverflowPolicy#DROP_OLDEST} 下从队首淘汰最早日志的回调
+     */
+    IngressGate(int capacity, OverflowPolicy policy, LogLevel keepLevel, long blockTimeoutMs, OldestEvictor evictor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be at least 1");
+        }
+        this.capacity = capacity;
+        this.lowPriorityLimit = Math.max(1, capacity - capacity / 4);
+        this.policy = policy;
+        this.keepLevel = keepLevel;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.evictor = evictor;
+        this.droppedByLevel = new LongAdder[LogLevel.values().length];
+        for (int i = 0; i < droppedByLevel.length; i++) {
+            droppedByLevel[i] = new LongAdder();
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return 已接收但尚未处理完的日志数
+     */
+    int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return 累计丢弃的日志数
+     */
+    long getDroppedCount() {
+        long total = 0;
+        for (LongAdder adder : droppedByLevel) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @param level 日志级别
+     * @return 累计丢弃的该级别日志数
+     */
+    long getDroppedCount(LogLevel level) {
+        return droppedByLevel[level.ordinal()].sum();
+    }
+
+    /**
+     * 为一条新日志申请名额；未获得名额的日志计入丢弃数。
+     * <p>
+     * {@link OverflowPolicy#DROP_OLDEST} 下积压已满时，由淘汰回调从队首取走最早的一条日志并计入丢弃数，其名额转给新日志。
+     *
+     * @param level 日志级别
+     * @return 获得名额、日志应进入队列时返回 true
+     */
+    boolean tryAdmit(LogLevel level) {
+        boolean admitted = switch (policy) {
+            case UNBOUNDED -> {
+                queued.incrementAndGet();
+                yield true;
+            }
+            case BLOCK -> reserve(capacity) || awaitReserve();
+            case DROP_OLDEST -> reserve(capacity) || evictOldest();
+            case DROP_BY_LEVEL -> reserve(level.isEnoughSeriousAs(keepLevel) ? capacity : lowPriorityLimit);
+            case SAMPLE -> sampled() && reserve(capacity);
+        };
+        if (!admitted) {
+            recordDropped(level);
+        }
+        return admitted;
+    }
+
+    void recordDropped(LogLevel level) {
+        droppedByLevel[level.ordinal()].increment();
+    }
+
+    /**
+     * 归还已处理完的日志占用的名额，并唤醒阻塞等待的调用方。
+     *
+     * @param count 日志条数
+     */
+    void release(int count) {
+        if (count <= 0) {
+            return;
+        }
+        queued.addAndGet(-count);
+        if (blockedCallers.get() > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private boolean reserve(int limit) {
+        while (true) {
+            int current = queued.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean evictOldest() {
+        LogLevel evicted = evictor.evictOldest();
+        if (evicted == null) {
+            return false;
+        }
+        recordDropped(evicted);
+        return true;
+    }
+
+    private boolean sampled() {
+        int half = capacity / 2;
+        int current = queued.get();
+        if (current < half) {
+            return true;
+        }
+        double probability = (double) (capacity - current) / (capacity - half);
+        return ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * 在 Worker 等非 EventLoop 线程上阻塞等待名额，至多等待 {@code blockTimeoutMs}。
+     */
+    private boolean awaitReserve() {
+        if (blockTimeoutMs <= 0 || Context.isOnEventLoopThread()) {
+            return false;
+        }
+        long deadline = System.nanoTime() + blockTimeoutMs * 1_000_000L;
+        blockedCallers.incrementAndGet();
+        try {
+            synchronized (this) {
+                while (!reserve(capacity)) {
+                    long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                    if (remainingMs <= 0) {
+                        return false;
+                    }
+                    wait(remainingMs);
+                }
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            blockedCallers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 从写入队列的队首淘汰最早的一条尚未处理的日志。
+     */
+    @FunctionalInterface
+    interface OldestEvictor {
+        /**
+         * 取走并释放最早的一条日志，其占用的名额由新日志继承。
+         *
+         * @return 被淘汰日志的级别；没有可淘汰的日志时为 null
+         */
+        @Nullable
+        LogLevel evictOldest();
+    }
+}
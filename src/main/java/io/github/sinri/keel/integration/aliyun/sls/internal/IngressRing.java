@@ -0,0 +1,157 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 预分配槽位的多生产者环形缓冲，作为写入适配器的日志入口。
+ * <p>
+ * 每个槽位带有一个序号：序号等于 {@code seq} 表示槽位空闲、可由第 {@code seq} 个生产者写入；
+ * 等于 {@code seq + 1} 表示第 {@code seq} 条日志已发布、可被取出；取出后置为 {@code seq + capacity}，供下一圈复用。
+ * <p>
+ * 生产者先以一次原子加减占用空闲名额，再以一次原子自增领取序号，不含 CAS 重试循环，因此在有空闲槽位时是无等待的；
+ * 缓冲已满时 {@link #offer(String, SpecificLog)} 立即返回 false。
+ * <p>
+ * 写入器通过 {@link #drain(Sink, int)} 批量取出日志；{@code dropOldest} 策略下生产者也会通过 {@link #poll()} 淘汰最早的日志，
+ * 因此每条日志以 CAS 推进取出序号认领，同一条日志只会被取出一次。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class IngressRing {
+    private final int capacity;
+    private final int mask;
+    private final @Nullable String[] topics;
+    private final @Nullable SpecificLog<?>[] logs;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerCursor = new AtomicLong();
+    private final AtomicLong freeSlots;
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    /**
+     * @param requestedCapacity 期望的槽位数，向上取整为 2 的幂，至少为 2
+     */
+    IngressRing(int requestedCapacity) {
+        this.capacity = capacityFor(requestedCapacity);
+        this.mask = capacity - 1;
+        this.topics = new String[capacity];
+        this.logs = new SpecificLog<?>[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.freeSlots = new AtomicLong(capacity);
+    }
+
+    /**
+     * @param requestedCapacity 期望的槽位数
+     * @return 不小于期望值的 2 的幂，介于 2 与 2<sup>30</sup> 之间
+     */
+    static int capacityFor(int requestedCapacity) {
+        if (requestedCapacity <= 2) {
+            return 2;
+        }
+        if (requestedCapacity > 1 << 30) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit(requestedCapacity - 1) << 1;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 已发布或正在写入、尚未被消费的日志数
+     */
+    int size() {
+        return (int) (capacity - Math.max(0, freeSlots.get()));
+    }
+
+    /**
+     * 写入一条日志，可由任意线程调用。
+     *
+     * @param topic 主题
+     * @param log   日志
+     * @return 缓冲已满时为 false，日志未被写入
+     */
+    boolean offer(String topic, SpecificLog<?> log) {
+        if (freeSlots.getAndDecrement() <= 0) {
+            freeSlots.getAndIncrement();
+            return false;
+        }
+        long seq = producerCursor.getAndIncrement();
+        int index = (int) (seq & mask);
+        // The reserved slot has already been released by the consumer; the loop only guards memory ordering
+        while (sequences.getAcquire(index) != seq) {
+            Thread.onSpinWait();
+        }
+        topics[index] = topic;
+        logs[index] = log;
+        sequences.setRelease(index, seq + 1);
+        return true;
+    }
+
+    /**
+     * 按发布顺序取出至多 max 条已发布的日志，遇到尚未发布完成的槽位即停止。
+     *
+     * @param sink 接收日志的回调
+     * @param max  本次取出的条数上限
+     * @return 取出的条数
+     */
+    int drain(Sink sink, int max) {
+        int drained = 0;
+        while (drained < max && take(sink)) {
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 取出最早的一条已发布的日志，可由任意线程调用。
+     *
+     * @return 取出的日志；缓冲为空或最早的槽位尚未发布完成时为 null
+     */
+    @Nullable
+    SpecificLog<?> poll() {
+        @Nullable SpecificLog<?>[] polled = new SpecificLog<?>[1];
+        take((topic, log) -> polled[0] = log);
+        return polled[0];
+    }
+
+    private boolean take(Sink sink) {
+        while (true) {
+            long cursor = consumerCursor.get();
+            int index = (int) (cursor & mask);
+            long sequence = sequences.getAcquire(index);
+            if (sequence < cursor + 1) {
+                // Empty, or the producer of this slot has not published yet
+                return false;
+            }
+            if (sequence == cursor + 1 && consumerCursor.compareAndSet(cursor, cursor + 1)) {
+                String topic = Objects.requireNonNull(topics[index]);
+                SpecificLog<?> log = Objects.requireNonNull(logs[index]);
+                topics[index] = null;
+                logs[index] = null;
+                sequences.setRelease(index, cursor + capacity);
+                freeSlots.getAndIncrement();
+                sink.accept(topic, log);
+                return true;
+            }
+            // Another thread took this slot; retry with the advanced cursor
+        }
+    }
+
+    /**
+     * 接收从缓冲中取出的日志。
+     */
+    @FunctionalInterface
+    interface Sink {
+        void accept(String topic, SpecificLog<?> log);
+    }
+}
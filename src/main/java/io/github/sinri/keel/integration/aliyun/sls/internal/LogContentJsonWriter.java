@@ -0,0 +1,176 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将日志的 context、classification 等字段直接写为 UTF-8 编码的 JSON 字节。
+ * <p>
+ * 与 {@code new JsonObject(map).encode()} 相比，不创建中间的 {@link JsonObject}/{@link JsonArray} 与 JSON 字符串：
+ * 每个线程复用一个 Jackson {@link JsonGenerator} 及其输出缓冲，每次只分配最终的字节数组，
+ * 可直接作为 {@link io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent} 的值。
+ * <p>
+ * 值的写法与 Vert.x 的 JSON 编码一致：{@link Instant} 写为 ISO-8601 字符串，{@code byte[]} 与 {@link Buffer}
+ * 写为不带填充的 URL 安全 Base64，枚举写为名称；其他类型交由 {@link Json#encode(Object)} 编码，
+ * 因此类路径上没有 Jackson Databind 时同样抛出 {@link io.vertx.core.json.EncodeException}。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class LogContentJsonWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .build();
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final ThreadLocal<LogContentJsonWriter> WRITERS = ThreadLocal.withInitial(LogContentJsonWriter::new);
+
+    private final ByteArrayBuilder output = new ByteArrayBuilder(512);
+    private final JsonGenerator generator;
+
+    private LogContentJsonWriter() {
+        try {
+            this.generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 将键值对写为 JSON 对象。
+     *
+     * @param map 键值对
+     * @return UTF-8 编码的 JSON
+     */
+    static byte[] writeObject(Map<String, ? extends @Nullable Object> map) {
+        LogContentJsonWriter writer = WRITERS.get();
+        try {
+            writer.writeMap(map);
+            return writer.finish();
+        } catch (IOException e) {
+            WRITERS.remove();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            WRITERS.remove();
+            throw e;
+        }
+    }
+
+    /**
+     * 将字符串列表写为 JSON 数组。
+     *
+     * @param list 字符串列表
+     * @return UTF-8 编码的 JSON
+     */
+    static byte[] writeStringArray(List<String> list) {
+        LogContentJsonWriter writer = WRITERS.get();
+        try {
+            JsonGenerator g = writer.generator;
+            g.writeStartArray();
+            for (int i = 0; i < list.size(); i++) {
+                g.writeString(list.get(i));
+            }
+            g.writeEndArray();
+            return writer.finish();
+        } catch (IOException e) {
+            WRITERS.remove();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            WRITERS.remove();
+            throw e;
+        }
+    }
+
+    /**
+     * 输出已写完的根值，并清空缓冲以便下次复用。
+     */
+    private byte[] finish() throws IOException {
+        generator.flush();
+        byte[] bytes = output.toByteArray();
+        output.reset();
+        return bytes;
+    }
+
+    private void writeMap(Map<?, ? extends @Nullable Object> map) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<?, ? extends @Nullable Object> entry : map.entrySet()) {
+            // Vert.x only accepts string keys as well
+            generator.writeFieldName((String) entry.getKey());
+            writeValue(entry.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeList(List<?> list) throws IOException {
+        generator.writeStartArray();
+        for (Object item : list) {
+            writeValue(item);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeValue(@Nullable Object value) throws IOException {
+        JsonGenerator g = generator;
+        if (value == null) {
+            g.writeNull();
+        } else if (value instanceof String s) {
+            g.writeString(s);
+        } else if (value instanceof Integer i) {
+            g.writeNumber(i);
+        } else if (value instanceof Long l) {
+            g.writeNumber(l);
+        } else if (value instanceof Boolean b) {
+            g.writeBoolean(b);
+        } else if (value instanceof Double d) {
+            g.writeNumber(d);
+        } else if (value instanceof Float f) {
+            g.writeNumber(f);
+        } else if (value instanceof Short s) {
+            g.writeNumber(s);
+        } else if (value instanceof Byte b) {
+            g.writeNumber(b);
+        } else if (value instanceof BigInteger bi) {
+            g.writeNumber(bi);
+        } else if (value instanceof BigDecimal bd) {
+            g.writeNumber(bd);
+        } else if (value instanceof Number n) {
+            g.writeNumber(n.doubleValue());
+        } else if (value instanceof JsonObject jsonObject) {
+            writeMap(jsonObject.getMap());
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(map);
+        } else if (value instanceof JsonArray jsonArray) {
+            writeList(jsonArray.getList());
+        } else if (value instanceof List<?> list) {
+            writeList(list);
+        } else if (value instanceof Enum<?> e) {
+            g.writeString(e.name());
+        } else if (value instanceof Instant instant) {
+            g.writeString(DateTimeFormatter.ISO_INSTANT.format(instant));
+        } else if (value instanceof byte[] bytes) {
+            g.writeString(BASE64_ENCODER.encodeToString(bytes));
+        } else if (value instanceof Buffer buffer) {
+            g.writeString(BASE64_ENCODER.encodeToString(buffer.getBytes()));
+        } else {
+            g.writeRawValue(Json.encode(value));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroupItem;
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨批次的 LogGroup 累积器，按主题与路由键各维护一个未发送的 LogGroup。
+ * <p>
+ * 一个 LogGroup 在以下任一条件满足时成为待发送：
+ * <ul>
+ *     <li>编码后的字节数达到 {@code flushBytes}；</li>
+ *     <li>日志条数达到 {@code flushItems}；</li>
+ *     <li>下一条日志放不进该 LogGroup（见 {@link LogGroup#canAccept(LogGroupItem)}）；</li>
+ *     <li>自第一条日志加入起已超过 {@code lingerMs}（由 {@link #pollExpired(long)} 取出，类似 Kafka 的 {@code linger.ms}）。</li>
+ * </ul>
+ * 本类不是线程安全的，应只在写入器所在的 Vert.x 上下文中使用。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+class LogGroupAccumulator {
+    private final String source;
+    private final int flushBytes;
+    private final int flushItems;
+    private final long lingerMs;
+    private final Map<String, Map<String, OpenLogGroup>> openLogGroups = new LinkedHashMap<>();
+
+    /**
+     * @param source     LogGroup 的来源
+     * @param flushBytes 触发发送的编码字节数
+     * @param flushItems 触发发送的日志条数
+     * @param lingerMs   LogGroup 的最长停留时间（毫秒），为 0 时不按时间触发
+     */
+    LogGroupAccumulator(String source, int flushBytes, int flushItems, long lingerMs) {
+        this.source = source;
+        this.flushBytes = flushBytes;
+        this.flushItems = flushItems;
+        this.lingerMs = lingerMs;
+    }
+
+    long getLingerMs() {
+        return lingerMs;
+    }
+
+    /**
+     * 将一条日志加入对应主题与路由键的 LogGroup。
+     *
+     * @param topic    主题
+     * @param routeKey 路由键
+     * @param logItem  日志
+     * @param nowMs    当前时间（毫秒）
+     * @return 因此成为待发送的 LogGroup，通常为空
+     */
+    List<PendingLogGroup> add(String topic, String routeKey, LogGroupItem logItem, long nowMs) {
+        Map<String, OpenLogGroup> byRoute = openLogGroups.computeIfAbsent(topic, k -> new LinkedHashMap<>());
+        List<PendingLogGroup> ready = List.of();
+
+        OpenLogGroup open = byRoute.get(routeKey);
+        if (open != null && !open.logGroup().canAccept(logItem)) {
+            byRoute.remove(routeKey);
+            ready = new ArrayList<>(2);
+            ready.add(new PendingLogGroup(routeKey, open.logGroup()));
+            open = null;
+        }
+        if (open == null) {
+            open = new OpenLogGroup(new LogGroup(topic, source), nowMs);
+            byRoute.put(routeKey, open);
+        }
+
+        LogGroup logGroup = open.logGroup().addLogItem(logItem);
+        if (logGroup.getSerializedSize() >= flushBytes || logGroup.getLogItems().size() >= flushItems) {
+            byRoute.remove(routeKey);
+            if (ready.isEmpty()) {
+                ready = new ArrayList<>(1);
+            }
+            ready.add(new PendingLogGroup(routeKey, logGroup));
+        }
+        if (byRoute.isEmpty()) {
+            openLogGroups.remove(topic);
+        }
+        return ready;
+    }
+
+    /**
+     * 取出停留时间已达到 {@code lingerMs} 的 LogGroup。
+     *
+     * @param nowMs 当前时间（毫秒）
+     * @return 待发送的 LogGroup
+     */
+    List<PendingLogGroup> pollExpired(long nowMs) {
+        if (lingerMs <= 0 || openLogGroups.isEmpty()) {
+            return List.of();
+        }
+        List<PendingLogGroup> expired = new ArrayList<>();
+        Iterator<Map<String, OpenLogGroup>> topics = openLogGroups.values().iterator();
+        while (topics.hasNext()) {
+            Map<String, OpenLogGroup> byRoute = topics.next();
+            Iterator<Map.Entry<String, OpenLogGroup>> routes = byRoute.entrySet().iterator();
+            while (routes.hasNext()) {
+                Map.Entry<String, OpenLogGroup> entry = routes.next();
+                if (nowMs - entry.getValue().openedAtMs() >= lingerMs) {
+                    expired.add(new PendingLogGroup(entry.getKey(), entry.getValue().logGroup()));
+                    routes.remove();
+                }
+            }
+            if (byRoute.isEmpty()) {
+                topics.remove();
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 取出指定主题的全部 LogGroup。
+     *
+     * @param topic 主题
+     * @return 待发送的 LogGroup
+     */
+    List<PendingLogGroup> drainTopic(String topic) {
+        Map<String, OpenLogGroup> byRoute = openLogGroups.remove(topic);
+        if (byRoute == null) {
+            return List.of();
+        }
+        List<PendingLogGroup> drained = new ArrayList<>(byRoute.size());
+        byRoute.forEach((routeKey, open) -> drained.add(new PendingLogGroup(routeKey, open.logGroup())));
+        return drained;
+    }
+
+    /**
+     * 取出全部 LogGroup，用于关闭前的最终发送。
+     *
+     * @return 待发送的 LogGroup
+     */
+    List<PendingLogGroup> drainAll() {
+        List<PendingLogGroup> drained = new ArrayList<>();
+        for (String topic : new ArrayList<>(openLogGroups.keySet())) {
+            drained.addAll(drainTopic(topic));
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return openLogGroups.isEmpty();
+    }
+
+    /**
+     * 待发送的 LogGroup 及其路由键。
+     */
+    record PendingLogGroup(String routeKey, LogGroup logGroup) {
+    }
+
+    private record OpenLogGroup(LogGroup logGroup, long openedAtMs) {
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 存放待发送日志编码结果的堆外内存区。
+ * <p>
+ * 内存按固定大小的直接内存块申请，块内以原子递增的偏移量顺序分配（bump allocation），可由任意线程并发调用。
+ * 每个块按其中尚未释放的分配计数引用，当前块另持有一个引用；块被写满替换且其中的分配全部释放后，整块回收复用。
+ * 已申请的直接内存总量不超过上限，且申请后不再归还，因此堆外内存占用是确定的。
+ * <p>
+ * 分配失败（单条超过块大小或已达上限且没有可复用的块）时返回 null，由调用方改用堆内存。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class OffHeapArena {
+    /**
+     * 默认的内存块大小（字节）。
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final int chunkSize;
+    private final long maxBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LongAdder rejectedAllocations = new LongAdder();
+    private final Queue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<@Nullable Chunk> current = new AtomicReference<>();
+
+    /**
+     * @param maxBytes 直接内存总量上限（字节）
+     */
+    public OffHeapArena(long maxBytes) {
+        this(maxBytes, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param maxBytes  直接内存总量上限（字节）
+     * @param chunkSize 内存块大小（字节），大于上限时取上限
+     */
+    OffHeapArena(long maxBytes, int chunkSize) {
+        if (maxBytes < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("maxBytes and chunkSize should be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.chunkSize = (int) Math.min(chunkSize, maxBytes);
+    }
+
+    /**
+     * @return 已申请的直接内存（字节），包括可复用的空闲块
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * @return 尚未释放的分配的总大小（字节）
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * @return 因超过块大小或内存已达上限而未能分配的累计次数
+     */
+    public long getRejectedAllocationCount() {
+        return rejectedAllocations.sum();
+    }
+
+    /**
+     * 分配一段内存，可由任意线程调用。
+     *
+     * @param size 字节数
+     * @return 分配到的内存，单条超过块大小或内存已达上限时为 null
+     */
+    public @Nullable Allocation allocate(int size) {
+        if (size > chunkSize) {
+            rejectedAllocations.increment();
+            return null;
+        }
+        while (true) {
+            Chunk chunk = current.get();
+            if (chunk != null) {
+                Allocation allocation = chunk.tryAllocate(size);
+                if (allocation != null) {
+                    usedBytes.addAndGet(size);
+                    return allocation;
+                }
+            }
+            Chunk next = newChunk();
+            if (next == null) {
+                if (chunk != null && current.compareAndSet(chunk, null)) {
+                    // Retire the exhausted chunk so that it can be recycled once its allocations are released
+                    chunk.release();
+                    continue;
+                }
+                rejectedAllocations.increment();
+                return null;
+            }
+            if (current.compareAndSet(chunk, next)) {
+                if (chunk != null) {
+                    // Drop the reference held while the chunk was current
+                    chunk.release();
+                }
+            } else {
+                next.release();
+            }
+        }
+    }
+
+    private @Nullable Chunk newChunk() {
+        ByteBuffer buffer = freeChunks.poll();
+        if (buffer != null) {
+            return new Chunk(buffer);
+        }
+        while (true) {
+            long reserved = reservedBytes.get();
+            if (reserved + chunkSize > maxBytes) {
+                return null;
+            }
+            if (reservedBytes.compareAndSet(reserved, reserved + chunkSize)) {
+                return new Chunk(ByteBuffer.allocateDirect(chunkSize));
+            }
+        }
+    }
+
+    /**
+     * 内存块：按引用计数回收，回收后以新的 Chunk 对象复用其直接内存，已释放的分配不会再指向复用后的块。
+     */
+    private final class Chunk {
+        private final ByteBuffer buffer;
+        private final AtomicInteger offset = new AtomicInteger();
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Nullable Allocation tryAllocate(int size) {
+            if (!retain()) {
+                return null;
+            }
+            int start = offset.getAndAdd(size);
+            if (start < 0 || start > buffer.capacity() - size) {
+                release();
+                return null;
+            }
+            return new Allocation(this, buffer.slice(start, size));
+        }
+
+        private boolean retain() {
+            while (true) {
+                int count = references.get();
+                if (count <= 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                buffer.clear();
+                freeChunks.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * 一次分配得到的内存，释放后不应再访问。
+     */
+    public final class Allocation {
+        private final Chunk chunk;
+        private final ByteBuffer buffer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Allocation(Chunk chunk, ByteBuffer buffer) {
+            this.chunk = chunk;
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return 恰好为所分配大小的缓冲区（position 为 0，capacity 与 limit 为分配大小）
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /**
+         * 释放本次分配，重复调用无效果。
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                usedBytes.addAndGet(-buffer.capacity());
+                chunk.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PutLogs 请求的重试策略。
+ * <p>
+ * 负责判断一次失败是否可重试，并给出带随机抖动的指数退避间隔：第 n 次重试的退避上限为
+ * {@code min(maxBackoffMs, initialBackoffMs * 2^(n-1))}，实际间隔在该上限的一半到上限之间随机取值，
+ * 以避免多个写入器在服务端限流后同时重试。
+ * <p>
+ * 以下情况视为可重试：
+ * <ul>
+ *     <li>HTTP 429 与 5xx；</li>
+ *     <li>响应体中的 errorCode 为写入配额超限、服务繁忙等暂时性错误，如 {@code WriteQuotaExceed}；</li>
+ *     <li>连接失败、超时、连接被关闭或重置等传输层异常。</li>
+ * </ul>
+ * 其余失败（如签名错误、Logstore 不存在、客户端已关闭、TLS 握手失败）重试也无法成功，直接交由降级输出处理。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class PutLogsRetryPolicy {
+    /**
+     * 默认的最大重试次数（不含首次请求）。
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * 默认的首次重试退避上限（毫秒）。
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 200L;
+    /**
+     * 默认的单次重试退避上限（毫秒）。
+     */
+    public static final long DEFAULT_MAX_BACKOFF_MS = 5_000L;
+
+    private static final Set<String> RETRYABLE_ERROR_CODES = Set.of(
+            "WriteQuotaExceed",
+            "ShardWriteQuotaExceed",
+            "ProjectQuotaExceed",
+            "ServerBusy",
+            "InternalServerError",
+            "RequestTimeout"
+    );
+
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * @param maxRetries       最大重试次数，为 0 时不重试
+     * @param initialBackoffMs 首次重试的退避上限（毫秒），至少为 1
+     * @param maxBackoffMs     单次重试的退避上限（毫秒），不小于 initialBackoffMs
+     */
+    public PutLogsRetryPolicy(int maxRetries, long initialBackoffMs, long maxBackoffMs) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        if (initialBackoffMs < 1 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("backoff must satisfy 1 <= initialBackoffMs <= maxBackoffMs");
+        }
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * @return 使用默认参数的重试策略
+     */
+    public static PutLogsRetryPolicy defaultPolicy() {
+        return new PutLogsRetryPolicy(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getInitialBackoffMs() {
+        return initialBackoffMs;
+    }
+
+    public long getMaxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    /**
+     * 判断一个非 200 响应是否可重试。
+     *
+     * @param statusCode HTTP 状态码
+     * @param body       响应体，可能为 null
+     * @return 可重试时返回 true
+     */
+    public boolean isRetryable(int statusCode, @Nullable String body) {
+        if (statusCode == 429 || statusCode >= 500) {
+            return true;
+        }
+        String errorCode = parseErrorCode(body);
+        return errorCode != null && RETRYABLE_ERROR_CODES.contains(errorCode);
+    }
+
+    /**
+     * 判断一个请求异常是否可重试：连接失败、超时、连接被关闭或重置（{@link IOException}、{@link TimeoutException}、
+     * {@link HttpClosedException}）可重试，异常链中的原因也参与判断。
+     * <p>
+     * TLS 错误虽属 {@link IOException}，但通常源于证书或配置，不可重试；其余 Vert.x 异常（如客户端已关闭、编码失败）同样不可重试。
+     *
+     * @param throwable 请求异常
+     * @return 可重试时返回 true
+     */
+    public boolean isRetryable(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof SSLException) {
+                return false;
+            }
+            if (current instanceof TimeoutException
+                    || current instanceof IOException
+                    || current instanceof HttpClosedException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 计算第 retry 次重试前的退避间隔。
+     *
+     * @param retry 重试序号，从 1 开始
+     * @return 退避间隔（毫秒），位于 {@code [ceiling/2, ceiling]} 区间内
+     */
+    public long computeBackoffMs(int retry) {
+        int shift = Math.min(Math.max(retry - 1, 0), 30);
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << shift);
+        if (ceiling < initialBackoffMs) {
+            // overflow protection
+            ceiling = maxBackoffMs;
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    private static @Nullable String parseErrorCode(@Nullable String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            return new JsonObject(body).getString("errorCode");
+        } catch (DecodeException | ClassCastException e) {
+            return null;
+        }
+    }
+}
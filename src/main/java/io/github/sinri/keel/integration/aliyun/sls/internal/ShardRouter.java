@@ -0,0 +1,134 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 基于 Shard 哈希区间的写入路由。
+ * <p>
+ * 持有通过 ListShards 获取的可写 Shard 列表（按区间起点排序），将路由值的 MD5 作为哈希键定位到所属 Shard。
+ * 同一路由值的日志总会写入同一个 Shard，从而在 Shard 内保持顺序。
+ *
+ * @see <a href="https://help.aliyun.com/zh/sls/developer-reference/api-sls-2020-12-30-listshards">ListShards</a>
+ * @since 5.0.4
+ */
+@NullMarked
+class ShardRouter {
+    /**
+     * Shard 列表的刷新间隔，用于感知 Shard 的分裂与合并。
+     */
+    static final long REFRESH_INTERVAL_MS = 60_000L;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> md5Digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private volatile List<Shard> shards = List.of();
+
+    /**
+     * 解析 ListShards 的返回结果，仅保留 {@code readwrite} 状态的 Shard，并按区间起点排序。
+     *
+     * @param array ListShards 返回的 JSON 数组
+     * @return 排序后的可写 Shard 列表
+     */
+    static List<Shard> parseShards(JsonArray array) {
+        List<Shard> list = new ArrayList<>();
+        for (int i = 0; i < array.size(); i++) {
+            JsonObject item = array.getJsonObject(i);
+            String status = item.getString("status");
+            if (status != null && !"readwrite".equalsIgnoreCase(status)) {
+                continue;
+            }
+            String begin = item.getString("inclusiveBeginKey");
+            String end = item.getString("exclusiveEndKey");
+            Integer shardId = item.getInteger("shardID");
+            if (begin == null || end == null || shardId == null) {
+                continue;
+            }
+            list.add(new Shard(shardId, begin.toLowerCase(), end.toLowerCase()));
+        }
+        list.sort(Comparator.comparing(Shard::inclusiveBeginKey));
+        return List.copyOf(list);
+    }
+
+    /**
+     * 计算路由值对应的哈希键，即其 UTF-8 字节的 MD5 的 32 位小写十六进制表示。
+     *
+     * @param routingValue 路由值
+     * @return 哈希键
+     */
+    static String computeHashKey(String routingValue) {
+        MessageDigest digest = md5Digest.get();
+        byte[] hash = digest.digest(routingValue.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    void updateShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return 已获取到可写 Shard 列表时返回 true
+     */
+    boolean isReady() {
+        return !shards.isEmpty();
+    }
+
+    /**
+     * 定位哈希键所属的 Shard。
+     * <p>
+     * 由于哈希键与区间端点均为等长的小写十六进制字符串，字典序与数值序一致，可直接二分查找。
+     *
+     * @param hashKey 32 位小写十六进制哈希键
+     * @return 所属 Shard；Shard 列表为空或哈希键不在任何区间内时返回 null
+     */
+    @Nullable Shard route(String hashKey) {
+        List<Shard> snapshot = this.shards;
+        int low = 0;
+        int high = snapshot.size() - 1;
+        Shard candidate = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Shard shard = snapshot.get(mid);
+            if (shard.inclusiveBeginKey().compareTo(hashKey) <= 0) {
+                candidate = shard;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate != null && hashKey.compareTo(candidate.exclusiveEndKey()) < 0) {
+            return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * 一个可写 Shard 及其哈希区间 {@code [inclusiveBeginKey, exclusiveEndKey)}。
+     */
+    record Shard(int shardId, String inclusiveBeginKey, String exclusiveEndKey) {
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * SLS 服务接入点，负责拼出请求地址与 {@code Host} 请求头。
+ * <p>
+ * 接入点为域名（如 {@code cn-hangzhou.log.aliyuncs.com}）时，请求以 HTTPS 发往 {@code <project>.<endpoint>}。
+ * <p>
+ * 接入点以 {@code http://} 或 {@code https://} 开头（如 {@code http://127.0.0.1:8080}）时，请求直接发往该地址，
+ * Project 只体现在 {@code Host} 请求头 {@code <project>.<host:port>} 中，用于本地替身服务或转发代理。
+ *
+ * @param scheme    显式指定的协议，未指定时为 null
+ * @param authority 主机名（及端口）
+ * @since 5.0.4
+ */
+@NullMarked
+public record SlsEndpoint(@Nullable String scheme, String authority) {
+    /**
+     * @param endpoint 配置的接入点
+     * @return 接入点
+     */
+    public static SlsEndpoint parse(String endpoint) {
+        int schemeEnd = endpoint.indexOf("://");
+        if (schemeEnd < 0) {
+            return new SlsEndpoint(null, endpoint);
+        }
+        String authority = endpoint.substring(schemeEnd + 3);
+        if (authority.endsWith("/")) {
+            authority = authority.substring(0, authority.length() - 1);
+        }
+        return new SlsEndpoint(endpoint.substring(0, schemeEnd), authority);
+    }
+
+    /**
+     * @param project Project 名称
+     * @return {@code Host} 请求头的值
+     */
+    public String host(String project) {
+        return project + "." + authority;
+    }
+
+    /**
+     * @param project Project 名称
+     * @param uri     请求路径，如 {@code /logstores/app/shards/lb}
+     * @return 请求地址（不含查询参数）
+     */
+    public String url(String project, String uri) {
+        if (scheme == null) {
+            return "https://" + host(project) + uri;
+        }
+        return scheme + "://" + authority + uri;
+    }
+}
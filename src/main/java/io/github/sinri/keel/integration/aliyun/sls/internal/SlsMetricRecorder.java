@@ -12,6 +12,8 @@ import io.vertx.core.Future;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -28,6 +30,7 @@ public class SlsMetricRecorder extends AbstractMetricRecorder {
     private final LateObject<AliyunSLSLogPutter> lateLogPutter = new LateObject<>();
     private final String project;
     private final String logstore;
+    private final DrainTracker drainTracker = new DrainTracker();
 
     public SlsMetricRecorder(@Nullable AliyunSlsConfigElement aliyunSlsConfig) throws AliyunSLSDisabled {
         super();
@@ -58,10 +61,43 @@ public class SlsMetricRecorder extends AbstractMetricRecorder {
                 getKeel(),
                 aliyunSlsConfig.getAccessKeyId(),
                 aliyunSlsConfig.getAccessKeySecret(),
-                aliyunSlsConfig.getEndpoint()
+                aliyunSlsConfig.getEndpoint(),
+                AliyunSLSLogPutterOptions.fromConfig(aliyunSlsConfig)
         );
     }
 
+    /**
+     * 提交指标记录；已提交的记录可通过 {@link #flush()} 或 {@link #drain(Duration)} 等待送达。
+     */
+    @Override
+    public void accept(String topic, MetricRecord metricRecord) {
+        drainTracker.admit(1);
+        super.accept(topic, metricRecord);
+    }
+
+    /**
+     * 等待此前提交的所有指标记录都已送达 SLS（或降级输出），不设期限。
+     *
+     * @return 排空完成时完成的 Future
+     * @since 5.0.4
+     */
+    public Future<Void> flush() {
+        return drainTracker.awaitCompleted(getKeel(), drainTracker.watermark(), DrainTracker.NO_DEADLINE).mapEmpty();
+    }
+
+    /**
+     * 在期限内等待此前提交的所有指标记录都已送达 SLS（或降级输出）。
+     * <p>
+     * 同一批次内拆分出的多个 LogGroup 并行发送，批次在其全部请求完成后才计为处理完。
+     *
+     * @param timeout 期限
+     * @return 在期限内排空时为 true，否则为 false
+     * @since 5.0.4
+     */
+    public Future<Boolean> drain(Duration timeout) {
+        return drainTracker.awaitCompleted(getKeel(), drainTracker.watermark(), DrainTracker.deadlineOf(timeout));
+    }
+
     @Override
     protected Future<Void> prepareForLoop() {
         AliyunSLSLogPutter aliyunSLSLogPutter;
@@ -74,12 +110,14 @@ public class SlsMetricRecorder extends AbstractMetricRecorder {
         return Future.succeededFuture();
     }
 
+    /**
+     * 停止时先在 {@code drainTimeoutMs} 期限内等待已提交的指标记录送达，再等待发送器关闭。
+     */
     @Override
     protected Future<?> stopVerticle() {
-        return super.stopVerticle()
-                    .andThen(v -> {
-                        lateLogPutter.get().close();
-                    });
+        return drain(Duration.ofMillis(aliyunSlsConfig.getDrainTimeoutMs()))
+                .compose(drained -> super.stopVerticle())
+                .compose(stopped -> lateLogPutter.get().close());
     }
 
     @Override
@@ -88,13 +126,24 @@ public class SlsMetricRecorder extends AbstractMetricRecorder {
             return Future.succeededFuture();
         }
 
+        List<LogGroup> logGroups = new ArrayList<>();
         LogGroup logGroup = new LogGroup(topic, source);
-        buffer.forEach(metricRecord -> {
+        logGroups.add(logGroup);
+        for (MetricRecord metricRecord : buffer) {
             var logItem = buildLogItem(metricRecord);
+            if (!logGroup.canAccept(logItem)) {
+                logGroup = new LogGroup(topic, source);
+                logGroups.add(logGroup);
+            }
             logGroup.addLogItem(logItem);
-        });
+        }
 
-        return lateLogPutter.get().putLogs(project, logstore, logGroup);
+        AliyunSLSLogPutter logPutter = lateLogPutter.get();
+        List<Future<Void>> puts = new ArrayList<>(logGroups.size());
+        logGroups.forEach(group -> puts.add(logPutter.putLogs(project, logstore, group)));
+        return Future.join(puts)
+                     .andThen(ar -> drainTracker.complete(buffer.size()))
+                     .mapEmpty();
     }
 
     /**
@@ -3,44 +3,200 @@ package io.github.sinri.keel.integration.aliyun.sls.internal;
 import io.github.sinri.keel.base.configuration.NotConfiguredException;
 import io.github.sinri.keel.base.json.JsonifiedThrowable;
 import io.github.sinri.keel.base.logger.adapter.QueuedLogWriterAdapter;
+import io.github.sinri.keel.base.logger.factory.StdoutLoggerFactory;
 import io.github.sinri.keel.integration.aliyun.sls.AliyunSLSDisabled;
 import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import io.github.sinri.keel.integration.aliyun.sls.OverflowPolicy;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.EncodedLogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroupItem;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackFileStore;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.SpillStore;
 import io.github.sinri.keel.logger.api.LateObject;
+import io.github.sinri.keel.logger.api.LogLevel;
 import io.github.sinri.keel.logger.api.log.Log;
 import io.github.sinri.keel.logger.api.log.SpecificLog;
+import io.github.sinri.keel.logger.api.logger.Logger;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.EncodeException;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 /**
  * 基于队列处理的持久性日志写入适配器实现，将日志写入阿里云日志服务中。
+ * <p>
+ * 5.0.4 起，可通过 {@link #setTelemetryRecorder(SlsMetricRecorder)} 设置遥测指标记录器，
+ * 按 {@code telemetryIntervalMs} 定时导出本写入器的队列深度、丢弃数、批次大小、编码耗时、压缩比、
+ * PutLogs 耗时与状态码分布、重试、落盘与降级输出次数等指标。
  *
  * @since 5.0.0
  */
 @NullMarked
 public class SlsQueuedLogWriterAdapter extends QueuedLogWriterAdapter {
+    /**
+     * 默认的单批处理日志条数。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 128;
+    /**
+     * 默认的写入队列日志条数上限。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_MAX_QUEUED_LOGS = 65536;
+    /**
+     * 默认的 {@link OverflowPolicy#BLOCK} 单次阻塞时间（毫秒）。
+     *
+     * @since 5.0.4
+     */
+    public static final long DEFAULT_OVERFLOW_BLOCK_TIMEOUT_MS = 100L;
+    /**
+     * 默认的异常 JSON 指纹缓存容量。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_EXCEPTION_CACHE_SIZE = ThrowableJsonCache.DEFAULT_CAPACITY;
+    /**
+     * 记录异常指纹的字段名，启用异常 JSON 指纹缓存时写入带异常的日志。
+     *
+     * @since 5.0.4
+     */
+    public static final String MapKeyExceptionFingerprint = "exception_fingerprint";
+    /**
+     * 默认的写入遥测导出间隔（毫秒）。
+     *
+     * @since 5.0.4
+     */
+    public static final long DEFAULT_TELEMETRY_INTERVAL_MS = 60_000L;
+    /**
+     * 默认的停止时排空期限（毫秒）。
+     *
+     * @since 5.0.4
+     */
+    public static final long DEFAULT_DRAIN_TIMEOUT_MS = 30_000L;
+    /**
+     * 写入遥测指标所用的主题。
+     *
+     * @since 5.0.4
+     */
+    public static final String TELEMETRY_METRIC_TOPIC = "keel_sls_writer";
+    /**
+     * 不属于分片写入器组时的写入器序号。
+     *
+     * @since 5.0.4
+     */
+    public static final int UNSHARDED = -1;
+    /**
+     * 表示由 SLS 负载均衡写入的路由键。
+     */
+    private static final String LOAD_BALANCE_ROUTE = "";
+    /**
+     * 检查 LogGroup 停留时间的最短间隔（毫秒）。
+     */
+    private static final long MIN_LINGER_CHECK_INTERVAL_MS = 5L;
+    /**
+     * 入口环形缓冲已满时，写入线程每次等待空位的时间（纳秒）。
+     */
+    private static final long INGRESS_RING_FULL_PARK_NANOS = 100_000L;
+
     private final String source;
     private final AliyunSlsConfigElement aliyunSlsConfig;
     private final int bufferSize;
+    private final int writerIndex;
     private final LateObject<AliyunSLSLogPutter> lateLogPutter = new LateObject<>();
     private final String project;
     private final String logstore;
+    private final TopicRouter topicRouter;
+    private final @Nullable ShardRouter shardRouter;
+    private final @Nullable String shardRoutingKey;
+    private final Logger logger;
+    private final LogGroupAccumulator accumulator;
+    private final IngressGate ingressGate;
+    private final @Nullable IngressRing ingressRing;
+    private final long ingressRingWaitMs;
+    private final LongAdder ingressRingOverflows = new LongAdder();
+    private final boolean encodeAtEnqueue;
+    private final @Nullable OffHeapArena offHeapArena;
+    private final @Nullable ThrowableJsonCache throwableJsonCache;
+    private final Set<Future<Void>> outstandingPuts = ConcurrentHashMap.newKeySet();
+    private final SlsWriterTelemetry telemetry = new SlsWriterTelemetry();
+    private final DrainTracker drainTracker = new DrainTracker();
+    private volatile @Nullable Context writerContext;
+    private @Nullable SlsMetricRecorder telemetryRecorder;
+    private long shardRefreshTimerId = -1;
+    private long lingerTimerId = -1;
+    private long telemetryTimerId = -1;
+    private final AtomicBoolean ingressPumpScheduled = new AtomicBoolean();
+    private volatile boolean ingressRingStopped;
+    private @Nullable SpillStore spillStore;
+    private @Nullable FallbackFileStore fallbackFileStore;
 
     public SlsQueuedLogWriterAdapter(@Nullable AliyunSlsConfigElement aliyunSlsConfig) throws AliyunSLSDisabled {
-        this(aliyunSlsConfig, 128);
+        this(aliyunSlsConfig, aliyunSlsConfig == null ? DEFAULT_BUFFER_SIZE : aliyunSlsConfig.getBufferSize());
     }
 
     public SlsQueuedLogWriterAdapter(@Nullable AliyunSlsConfigElement aliyunSlsConfig, int bufferSize) throws AliyunSLSDisabled {
+        this(aliyunSlsConfig, bufferSize, UNSHARDED);
+    }
+
+    /**
+     * 构造分片写入器组中的一个写入器。
+     * <p>
+     * 各写入器的落盘与降级文件分别位于 {@code spillDirectory}、{@code fallbackDirectory} 下的 {@code writer-<序号>} 子目录，
+     * 写入器级别的遥测指标带有 {@code writer} 标签。
+     *
+     * @param aliyunSlsConfig 日志服务配置
+     * @param bufferSize      每批处理的日志条数
+     * @param writerIndex     写入器在组中的序号，为 {@link #UNSHARDED} 时与单个写入器相同
+     * @throws AliyunSLSDisabled 日志服务未配置或已禁用
+     * @since 5.0.4
+     */
+    public SlsQueuedLogWriterAdapter(@Nullable AliyunSlsConfigElement aliyunSlsConfig, int bufferSize, int writerIndex) throws AliyunSLSDisabled {
+        this(aliyunSlsConfig, bufferSize, writerIndex, createOffHeapArena(aliyunSlsConfig));
+    }
+
+    /**
+     * 构造分片写入器组中的一个写入器，并指定存放入队时编码结果的堆外内存区；多个写入器实例可共用同一内存区，以共享其总量上限。
+     *
+     * @param aliyunSlsConfig 日志服务配置
+     * @param bufferSize      每批处理的日志条数
+     * @param writerIndex     写入器在组中的序号，为 {@link #UNSHARDED} 时与单个写入器相同
+     * @param offHeapArena    堆外内存区，为 null 时编码结果存放于堆内存；不为 null 时隐含启用 {@code encodeAtEnqueue}
+     * @throws AliyunSLSDisabled 日志服务未配置或已禁用
+     * @see #createOffHeapArena(AliyunSlsConfigElement)
+     * @since 5.0.4
+     */
+    public SlsQueuedLogWriterAdapter(
+            @Nullable AliyunSlsConfigElement aliyunSlsConfig,
+            int bufferSize,
+            int writerIndex,
+            @Nullable OffHeapArena offHeapArena
+    ) throws AliyunSLSDisabled {
         super();
         this.bufferSize = bufferSize;
+        this.writerIndex = writerIndex;
 
         //        ConfigElement extract = keel.getConfiguration().extract("aliyun", "sls");
         //        if (extract == null) {
@@ -62,10 +218,318 @@ public class SlsQueuedLogWriterAdapter extends QueuedLogWriterAdapter {
         } catch (NotConfiguredException e) {
             throw new RuntimeException(e);
         }
+        List<TopicRoute> topicRoutes = aliyunSlsConfig.getTopicRoutes().stream().map(TopicRoute::fromConfig).toList();
+        this.topicRouter = new TopicRouter(new TopicRouter.Destination(project, logstore), topicRoutes);
+        this.shardRouter = aliyunSlsConfig.isShardRoutingEnabled() ? new ShardRouter() : null;
+        this.shardRoutingKey = aliyunSlsConfig.getShardRoutingKey();
+        this.accumulator = new LogGroupAccumulator(
+                source,
+                aliyunSlsConfig.getBatchFlushBytes(),
+                aliyunSlsConfig.getBatchFlushItems(),
+                aliyunSlsConfig.getLingerMs()
+        );
+        int exceptionCacheSize = aliyunSlsConfig.getExceptionCacheSize();
+        this.throwableJsonCache = exceptionCacheSize > 0
+                ? new ThrowableJsonCache(
+                exceptionCacheSize,
+                aliyunSlsConfig.getExceptionFullTraceWindowMs(),
+                SlsQueuedLogWriterAdapter::encodeThrowable
+        )
+                : null;
+        OverflowPolicy overflowPolicy = aliyunSlsConfig.getOverflowPolicy();
+        // dropOldest evicts from the head of the ring, which the shared queue of the base writer does not expose
+        this.ingressRing = aliyunSlsConfig.isIngressRingEnabled() || overflowPolicy == OverflowPolicy.DROP_OLDEST
+                ? new IngressRing(aliyunSlsConfig.getMaxQueuedLogs())
+                : null;
+        this.ingressRingWaitMs = aliyunSlsConfig.getOverflowBlockTimeoutMs();
+        this.ingressGate = new IngressGate(
+                aliyunSlsConfig.getMaxQueuedLogs(),
+                overflowPolicy,
+                aliyunSlsConfig.getOverflowKeepLevel(),
+                aliyunSlsConfig.getOverflowBlockTimeoutMs(),
+                this::evictOldestQueuedLog
+        );
+        this.offHeapArena = offHeapArena;
+        this.encodeAtEnqueue = aliyunSlsConfig.isEncodeAtEnqueueEnabled() || offHeapArena != null;
+        this.logger = StdoutLoggerFactory.getInstance()
+                                         .createLogger(SlsQueuedLogWriterAdapter.class.getName());
 
         // after initialized, do not forget to deploy it.
     }
 
+    /**
+     * 日志进入写入队列前先经过入口闸门：积压达到 {@code maxQueuedLogs} 时按 {@code overflowPolicy} 阻塞或丢弃，
+     * 丢弃数可通过 {@link #getDroppedLogCount()} 获取。
+     * <p>
+     * 5.0.4 起，启用 {@code ingressRing} 或使用 {@code dropOldest} 策略时日志只写入预分配的环形缓冲；
+     * 有界的策略下积压不会超过缓冲容量，{@code unbounded} 策略下缓冲已满时 Worker 线程上的调用方至多等待 {@code overflowBlockTimeoutMs}，
+     * 仍无空位或在 EventLoop 线程上调用时改入基类的队列，不丢弃日志；
+     * 启用 {@code encodeAtEnqueue} 时日志先在调用方线程上编码，队列中只保留编码后的字节；
+     * 配置了 {@code arenaMaxBytes} 时编码结果存放于堆外内存区。
+     */
+    @Override
+    public void accept(String topic, SpecificLog<?> log) {
+        if (ingressGate.tryAdmit(log.level())) {
+            drainTracker.admit(1);
+            SpecificLog<?> queued = encodeAtEnqueue ? encodeOnCaller(topic, log) : log;
+            IngressRing ring = this.ingressRing;
+            if (ring == null) {
+                super.accept(topic, queued);
+            } else {
+                offerToIngressRing(ring, topic, queued);
+            }
+        }
+    }
+
+    /**
+     * 将已获得名额的日志写入入口环形缓冲，并在写入器尚未安排取出时通知写入器。
+     * <p>
+     * 缓冲容量不小于 {@code maxQueuedLogs}，有界的策略下不会写满；{@code unbounded} 策略下缓冲可能写满，此时：
+     * <ul>
+     *     <li>写入器已停止时，日志计入丢弃数；</li>
+     *     <li>在 Worker 线程等普通线程上调用时，至多等待 {@code overflowBlockTimeoutMs}，期间写入器腾出空位即写入缓冲；</li>
+     *     <li>在 EventLoop 线程或写入器自身的上下文中调用时不等待，因为 PutLogs 的响应在 EventLoop 上完成，
+     *     在其上等待可能使写入器永远无法取出缓冲；</li>
+     *     <li>未能写入缓冲的日志改入基类 {@code QueuedLogWriterAdapter} 的队列，由其处理循环另行处理，
+     *     与缓冲中同一主题的日志之间不保证顺序；改入的次数可通过 {@link #getIngressRingOverflowCount()} 获取。</li>
+     * </ul>
+     */
+    private void offerToIngressRing(IngressRing ring, String topic, SpecificLog<?> log) {
+        long deadline = 0;
+        boolean waiting = false;
+        while (!ring.offer(topic, log)) {
+            if (ingressRingStopped) {
+                ingressGate.recordDropped(log.level());
+                ingressGate.release(1);
+                if (log instanceof EncodedLog encodedLog) {
+                    encodedLog.getLogItem().release();
+                }
+                drainTracker.complete(1);
+                return;
+            }
+            if (!waiting) {
+                if (!canWaitForIngressRing()) {
+                    overflowIngressRing(topic, log);
+                    return;
+                }
+                waiting = true;
+                deadline = System.nanoTime() + ingressRingWaitMs * 1_000_000L;
+            } else if (System.nanoTime() - deadline >= 0) {
+                overflowIngressRing(topic, log);
+                return;
+            }
+            scheduleIngressPump(ring);
+            LockSupport.parkNanos(INGRESS_RING_FULL_PARK_NANOS);
+        }
+        scheduleIngressPump(ring);
+    }
+
+    /**
+     * 与 {@link OverflowPolicy#BLOCK} 相同，只在 Worker 线程等普通线程上等待；写入器自身的上下文中等待则无人取出缓冲。
+     */
+    private boolean canWaitForIngressRing() {
+        if (ingressRingWaitMs <= 0 || Context.isOnEventLoopThread()) {
+            return false;
+        }
+        Context context = this.writerContext;
+        return context == null || Vertx.currentContext() != context;
+    }
+
+    private void overflowIngressRing(String topic, SpecificLog<?> log) {
+        ingressRingOverflows.increment();
+        super.accept(topic, log);
+    }
+
+    /**
+     * 写入器部署后，若尚未安排取出入口环形缓冲，则在写入器的上下文中安排一次；缓冲为空时写入器不再轮询，由下一条写入的日志再次安排。
+     */
+    private void scheduleIngressPump(IngressRing ring) {
+        Context context = this.writerContext;
+        if (context != null && !ingressPumpScheduled.get() && ingressPumpScheduled.compareAndSet(false, true)) {
+            context.runOnContext(v -> pumpIngressRing(ring));
+        }
+    }
+
+    /**
+     * {@code dropOldest} 策略下积压已满时，从入口环形缓冲的队首取走最早的一条日志，释放其堆外内存并计为已处理。
+     *
+     * @return 被淘汰日志的级别；缓冲为空时为 null
+     */
+    private @Nullable LogLevel evictOldestQueuedLog() {
+        IngressRing ring = this.ingressRing;
+        SpecificLog<?> evicted = ring == null ? null : ring.poll();
+        if (evicted == null) {
+            return null;
+        }
+        if (evicted instanceof EncodedLog encodedLog) {
+            encodedLog.getLogItem().release();
+        }
+        drainTracker.complete(1);
+        return evicted.level();
+    }
+
+    /**
+     * 在调用方线程上按与 {@link #processLogRecords(String, List)} 相同的映射将日志编码为 Protobuf 字节；
+     * 日志内容无法编码为 JSON 时计入写入遥测的 {@code enqueue_encode_failures_total}，并原样入队，由写入器再次转换并按原有方式处理异常；
+     * 其他异常直接抛给调用方。
+     * <p>
+     * 存在堆外内存区时编码结果优先存放于其中，内存区已满或单条过大时存放于堆内存。
+     */
+    private SpecificLog<?> encodeOnCaller(String topic, SpecificLog<?> log) {
+        try {
+            LogItem logItem = buildLogItem(log, throwableJsonCache);
+            return new EncodedLog(log.level(), encodeLogItem(logItem), findRoutingValue(logItem));
+        } catch (EncodeException | UncheckedIOException e) {
+            TopicRouter.Destination destination = topicRouter.route(topic);
+            telemetry.recordEnqueueEncodeFailure(destination.project(), destination.logstore(), topic);
+            return log;
+        }
+    }
+
+    private EncodedLogItem encodeLogItem(LogItem logItem) {
+        OffHeapArena arena = this.offHeapArena;
+        if (arena != null) {
+            OffHeapArena.Allocation allocation = arena.allocate(logItem.getSerializedSize());
+            if (allocation != null) {
+                try {
+                    return EncodedLogItem.encode(logItem, allocation.buffer(), allocation::release);
+                } catch (RuntimeException e) {
+                    allocation.release();
+                    throw e;
+                }
+            }
+        }
+        return EncodedLogItem.encode(logItem);
+    }
+
+    /**
+     * 等待此前接收的所有日志都已送达 SLS（或经重试用尽后落盘、降级输出），不设期限。
+     *
+     * @return 排空完成时完成的 Future
+     * @see #drain(Duration)
+     * @since 5.0.4
+     */
+    public Future<Void> flush() {
+        return drainUntil(DrainTracker.NO_DEADLINE).mapEmpty();
+    }
+
+    /**
+     * 在期限内等待此前接收的所有日志都已送达 SLS（或经重试用尽后落盘、降级输出）。
+     * <p>
+     * 先等待队列中排在调用时刻之前的日志处理完，再立即提交所有仍在累积的 LogGroup（不再等待 {@code lingerMs}），
+     * 这些 LogGroup 经在途窗口并行发送，最后等待所有在途请求完成。期限到达时不会中断仍在进行的请求。
+     *
+     * @param timeout 期限
+     * @return 在期限内排空时为 true，期限到达时仍有未完成的日志为 false
+     * @since 5.0.4
+     */
+    public Future<Boolean> drain(Duration timeout) {
+        return drainUntil(DrainTracker.deadlineOf(timeout));
+    }
+
+    private Future<Boolean> drainUntil(long deadlineNanos) {
+        long watermark = drainTracker.watermark();
+        return drainTracker.awaitCompleted(getKeel(), watermark, deadlineNanos)
+                           .compose(processed -> {
+                               if (!processed) {
+                                   return Future.succeededFuture(false);
+                               }
+                               return onWriterContext(() -> submitLogGroups(accumulator.drainAll(), new ArrayList<>()))
+                                       .compose(submitted -> DrainTracker.awaitWithin(
+                                               getKeel(),
+                                               Future.join(new ArrayList<>(outstandingPuts)),
+                                               deadlineNanos
+                                       ));
+                           });
+    }
+
+    /**
+     * 在写入器所在的上下文中执行操作；累积器只能在该上下文中访问。
+     */
+    private Future<Void> onWriterContext(Supplier<Future<Void>> action) {
+        Context context = this.writerContext;
+        if (context == null || Vertx.currentContext() == context) {
+            return action.get();
+        }
+        Promise<Void> promise = Promise.promise();
+        context.runOnContext(v -> action.get().onComplete(promise));
+        return promise.future();
+    }
+
+    /**
+     * @return 已接收但尚未处理完的日志数
+     * @since 5.0.4
+     */
+    public int getQueuedLogCount() {
+        return ingressGate.getQueued();
+    }
+
+    /**
+     * @return 因写入队列积压而累计丢弃的日志数
+     * @since 5.0.4
+     */
+    public long getDroppedLogCount() {
+        return ingressGate.getDroppedCount();
+    }
+
+    /**
+     * @return {@code unbounded} 策略下入口环形缓冲已满、日志改入基类队列的累计次数
+     * @since 5.0.4
+     */
+    public long getIngressRingOverflowCount() {
+        return ingressRingOverflows.sum();
+    }
+
+    /**
+     * @param level 日志级别
+     * @return 因写入队列积压而累计丢弃的该级别日志数
+     * @since 5.0.4
+     */
+    public long getDroppedLogCount(LogLevel level) {
+        return ingressGate.getDroppedCount(level);
+    }
+
+    /**
+     * @return 写入器在分片写入器组中的序号，不分片时为 {@link #UNSHARDED}
+     * @since 5.0.4
+     */
+    public int getWriterIndex() {
+        return writerIndex;
+    }
+
+    /**
+     * 设置接收本写入器遥测指标的记录器，应在部署本适配器之前调用；记录器的部署与关闭由调用方管理。
+     *
+     * @param telemetryRecorder 遥测指标记录器，为 null 时不导出遥测
+     * @since 5.0.4
+     */
+    public void setTelemetryRecorder(@Nullable SlsMetricRecorder telemetryRecorder) {
+        this.telemetryRecorder = telemetryRecorder;
+    }
+
+    /**
+     * 按配置的 {@code arenaMaxBytes} 创建存放入队时编码结果的堆外内存区。
+     *
+     * @param aliyunSlsConfig 日志服务配置
+     * @return 堆外内存区；未配置 {@code arenaMaxBytes}、日志服务未配置或已禁用时为 null
+     * @since 5.0.4
+     */
+    public static @Nullable OffHeapArena createOffHeapArena(@Nullable AliyunSlsConfigElement aliyunSlsConfig) {
+        if (aliyunSlsConfig == null || aliyunSlsConfig.isDisabled()) {
+            return null;
+        }
+        long arenaMaxBytes = aliyunSlsConfig.getArenaMaxBytes();
+        return arenaMaxBytes > 0 ? new OffHeapArena(arenaMaxBytes) : null;
+    }
+
+    /**
+     * @return 存放入队时编码结果的堆外内存区，未启用时为 null
+     * @since 5.0.4
+     */
+    public @Nullable OffHeapArena getOffHeapArena() {
+        return offHeapArena;
+    }
+
     @Override
     protected Future<Void> prepareForLoop() {
         AliyunSLSLogPutter aliyunSLSLogPutter;
@@ -75,75 +539,467 @@ public class SlsQueuedLogWriterAdapter extends QueuedLogWriterAdapter {
             return Future.failedFuture(e);
         }
         lateLogPutter.set(aliyunSLSLogPutter);
-        return Future.succeededFuture();
+        writerContext = getKeel().getOrCreateContext();
+
+        SlsMetricRecorder recorder = this.telemetryRecorder;
+        if (recorder != null) {
+            aliyunSLSLogPutter.attachTelemetry(telemetry);
+            telemetryTimerId = getKeel().setPeriodic(
+                    aliyunSlsConfig.getTelemetryIntervalMs(),
+                    timerId -> exportTelemetry(recorder)
+            );
+        }
+
+        long lingerMs = accumulator.getLingerMs();
+        if (lingerMs > 0) {
+            long checkInterval = Math.max(MIN_LINGER_CHECK_INTERVAL_MS, lingerMs / 2);
+            lingerTimerId = getKeel().setPeriodic(checkInterval, timerId -> flushExpiredLogGroups());
+        }
+
+        IngressRing ring = this.ingressRing;
+        if (ring != null) {
+            // Logs accepted before deployment found no writer context to signal
+            scheduleIngressPump(ring);
+        }
+
+        return openSpillStore(aliyunSLSLogPutter)
+                .compose(v -> openFallbackFileStore(aliyunSLSLogPutter))
+                .compose(v -> {
+                    ShardRouter router = this.shardRouter;
+                    if (router == null) {
+                        return Future.succeededFuture();
+                    }
+                    shardRefreshTimerId = getKeel().setPeriodic(ShardRouter.REFRESH_INTERVAL_MS, timerId -> refreshShards(router));
+                    return refreshShards(router);
+                });
+    }
+
+    /**
+     * 从入口环形缓冲取出日志处理；有日志时处理完一轮立即继续，缓冲为空时结束，等待写入线程再次安排。
+     */
+    private void pumpIngressRing(IngressRing ring) {
+        if (ingressRingStopped) {
+            ingressPumpScheduled.set(false);
+            return;
+        }
+        drainIngressRing(ring)
+                .onComplete(ar -> {
+                    if (ar.failed()) {
+                        logger.warning(log -> log.exception(ar.cause())
+                                                 .message("Failed to process logs from SLS ingress ring"));
+                    }
+                    if (ar.succeeded() && ar.result() > 0) {
+                        Objects.requireNonNull(writerContext).runOnContext(v -> pumpIngressRing(ring));
+                        return;
+                    }
+                    ingressPumpScheduled.set(false);
+                    // A log written after the last drain may have seen the flag still set and skipped scheduling
+                    if (ring.size() > 0) {
+                        scheduleIngressPump(ring);
+                    }
+                });
+    }
+
+    /**
+     * 从入口环形缓冲取出至多 {@code bufferSize} 条日志，按主题分组后并行处理；同一主题的日志在下一轮取出前处理完，保持主题内的顺序。
+     *
+     * @return 本轮取出的日志数
+     */
+    private Future<Integer> drainIngressRing(IngressRing ring) {
+        Map<String, List<SpecificLog<?>>> batches = new LinkedHashMap<>();
+        int drained = ring.drain((topic, log) -> batches.computeIfAbsent(topic, k -> new ArrayList<>()).add(log), bufferSize);
+        if (drained == 0) {
+            return Future.succeededFuture(0);
+        }
+        List<Future<Void>> processed = new ArrayList<>(batches.size());
+        batches.forEach((topic, batch) -> processed.add(processLogRecords(topic, batch)));
+        return Future.join(processed).map(drained);
+    }
+
+    private Future<Void> drainIngressRingFully(IngressRing ring) {
+        return drainIngressRing(ring)
+                .compose(drained -> drained > 0 ? drainIngressRingFully(ring) : Future.succeededFuture());
+    }
+
+    /**
+     * 分片写入器组中的写入器各自使用配置目录下的 {@code writer-<序号>} 子目录，避免多个实例写入同一组文件。
+     */
+    private Path resolveWriterDirectory(String directory) {
+        Path path = Path.of(directory);
+        return writerIndex == UNSHARDED ? path : path.resolve("writer-" + writerIndex);
+    }
+
+    /**
+     * 配置了落盘目录时打开落盘队列并挂载到发送器；打开失败时仅记录警告，不落盘继续写入。
+     */
+    private Future<Void> openSpillStore(AliyunSLSLogPutter logPutter) {
+        String spillDirectory = aliyunSlsConfig.getSpillDirectory();
+        if (spillDirectory == null || spillDirectory.isBlank()) {
+            return Future.succeededFuture();
+        }
+        long spillMaxBytes = aliyunSlsConfig.getSpillMaxBytes();
+        return getKeel().executeBlocking(() -> SpillStore.open(resolveWriterDirectory(spillDirectory), SpillStore.DEFAULT_SEGMENT_SIZE, spillMaxBytes))
+                        .compose(store -> {
+                            this.spillStore = store;
+                            logPutter.attachSpillStore(store);
+                            return Future.<Void>succeededFuture();
+                        })
+                        .recover(throwable -> {
+                            logger.warning(log -> log.exception(throwable)
+                                                     .message("Failed to open SLS spill store at " + spillDirectory
+                                                             + ", undeliverable logs will use fallback output"));
+                            return Future.succeededFuture();
+                        });
+    }
+
+    /**
+     * 配置了降级文件目录时打开降级文件并挂载到发送器；打开失败时仅记录警告，继续输出到标准输出。
+     */
+    private Future<Void> openFallbackFileStore(AliyunSLSLogPutter logPutter) {
+        String fallbackDirectory = aliyunSlsConfig.getFallbackDirectory();
+        if (fallbackDirectory == null || fallbackDirectory.isBlank()) {
+            return Future.succeededFuture();
+        }
+        long rotateBytes = aliyunSlsConfig.getFallbackRotateBytes();
+        long rotateMs = aliyunSlsConfig.getFallbackRotateMs();
+        long maxBytes = aliyunSlsConfig.getFallbackMaxBytes();
+        return getKeel().executeBlocking(() -> FallbackFileStore.open(resolveWriterDirectory(fallbackDirectory), rotateBytes, rotateMs, maxBytes))
+                        .compose(store -> {
+                            this.fallbackFileStore = store;
+                            logPutter.attachFallbackFileStore(store);
+                            return Future.<Void>succeededFuture();
+                        })
+                        .recover(throwable -> {
+                            logger.warning(log -> log.exception(throwable)
+                                                     .message("Failed to open SLS fallback files at " + fallbackDirectory
+                                                             + ", undeliverable logs will use stdout"));
+                            return Future.succeededFuture();
+                        });
+    }
+
+    /**
+     * 通过 ListShards 刷新 Shard 列表；失败时保留原列表（首次失败时退回负载均衡写入），不影响写入流程。
+     */
+    private Future<Void> refreshShards(ShardRouter router) {
+        return lateLogPutter.get()
+                            .listShards(project, logstore)
+                            .compose(array -> {
+                                router.updateShards(ShardRouter.parseShards(array));
+                                return Future.<Void>succeededFuture();
+                            })
+                            .recover(throwable -> {
+                                logger.warning(log -> log.exception(throwable)
+                                                         .message("Failed to refresh SLS shards, keep previous routing"));
+                                return Future.succeededFuture();
+                            });
+    }
+
+    /**
+     * 发送停留时间已达到 {@code lingerMs} 的 LogGroup。
+     */
+    private void flushExpiredLogGroups() {
+        List<LogGroupAccumulator.PendingLogGroup> expired = accumulator.pollExpired(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+        submitLogGroups(expired, new ArrayList<>())
+                .onFailure(throwable -> logger.warning(log -> log.exception(throwable)
+                                                              .message("Failed to flush lingering SLS log groups")));
+    }
+
+    /**
+     * 将写入遥测导出为指标记录：主题维度的统计之外，附加队列深度与各级别的累计丢弃数。
+     */
+    private void exportTelemetry(SlsMetricRecorder recorder) {
+        long now = System.currentTimeMillis();
+        Map<String, String> labels = new HashMap<>();
+        labels.put("project", project);
+        labels.put("logstore", logstore);
+        if (writerIndex != UNSHARDED) {
+            labels.put("writer", String.valueOf(writerIndex));
+        }
+        recorder.accept(TELEMETRY_METRIC_TOPIC,
+                SlsWriterTelemetry.gauge("queued_logs", ingressGate.getQueued(), labels, now));
+        recorder.accept(TELEMETRY_METRIC_TOPIC,
+                SlsWriterTelemetry.gauge("outstanding_puts", outstandingPuts.size(), labels, now));
+        if (this.ingressRing != null) {
+            recorder.accept(TELEMETRY_METRIC_TOPIC,
+                    SlsWriterTelemetry.gauge("ingress_ring_overflows_total", ingressRingOverflows.sum(), labels, now));
+        }
+        OffHeapArena arena = this.offHeapArena;
+        if (arena != null) {
+            recorder.accept(TELEMETRY_METRIC_TOPIC,
+                    SlsWriterTelemetry.gauge("arena_reserved_bytes", arena.getReservedBytes(), labels, now));
+            recorder.accept(TELEMETRY_METRIC_TOPIC,
+                    SlsWriterTelemetry.gauge("arena_used_bytes", arena.getUsedBytes(), labels, now));
+            recorder.accept(TELEMETRY_METRIC_TOPIC,
+                    SlsWriterTelemetry.gauge("arena_rejected_allocations_total", arena.getRejectedAllocationCount(), labels, now));
+        }
+        for (LogLevel level : LogLevel.values()) {
+            Map<String, String> levelLabels = new HashMap<>(labels);
+            levelLabels.put("level", level.name());
+            recorder.accept(TELEMETRY_METRIC_TOPIC,
+                    SlsWriterTelemetry.gauge("dropped_logs_total", ingressGate.getDroppedCount(level), levelLabels, now));
+        }
+        telemetry.export(now).forEach(record -> recorder.accept(TELEMETRY_METRIC_TOPIC, record));
     }
 
+    /**
+     * 停止时先处理完队列中的日志，再发送所有仍在累积的 LogGroup，并等待所有已提交的请求完成后才关闭发送器。
+     * <p>
+     * 5.0.4 起，以上排空过程受 {@code drainTimeoutMs} 限制，期限到达时记录警告并关闭发送器，未完成的日志将丢失。
+     */
     @Override
     protected Future<?> stopVerticle() {
-        return super.stopVerticle()
-                    .compose(stopped -> {
-                        return lateLogPutter.get().close();
+        if (shardRefreshTimerId >= 0) {
+            getKeel().cancelTimer(shardRefreshTimerId);
+        }
+        if (lingerTimerId >= 0) {
+            getKeel().cancelTimer(lingerTimerId);
+        }
+        if (telemetryTimerId >= 0) {
+            getKeel().cancelTimer(telemetryTimerId);
+        }
+        long deadlineNanos = DrainTracker.deadlineOf(Duration.ofMillis(aliyunSlsConfig.getDrainTimeoutMs()));
+        return drainUntil(deadlineNanos)
+                .compose(drained -> super.stopVerticle())
+                .compose(stopped -> {
+                    IngressRing ring = this.ingressRing;
+                    if (ring == null) {
+                        return Future.succeededFuture();
+                    }
+                    ingressRingStopped = true;
+                    return DrainTracker.awaitWithin(getKeel(), drainIngressRingFully(ring), deadlineNanos);
+                })
+                .compose(stopped -> submitLogGroups(accumulator.drainAll(), new ArrayList<>()))
+                .compose(submitted -> DrainTracker.awaitWithin(
+                        getKeel(),
+                        Future.join(new ArrayList<>(outstandingPuts)),
+                        deadlineNanos
+                ))
+                .compose(drained -> {
+                    if (!drained) {
+                        logger.warning("SLS writer drain timed out, " + drainTracker.getPending() + " queued logs and "
+                                + outstandingPuts.size() + " in-flight requests are abandoned");
+                    }
+                    return lateLogPutter.get().close();
+                })
+                .compose(closed -> {
+                    SpillStore store = this.spillStore;
+                    if (store == null) {
+                        return Future.succeededFuture();
+                    }
+                    return getKeel().executeBlocking(() -> {
+                        store.close();
+                        return null;
                     });
+                })
+                .compose(closed -> {
+                    FallbackFileStore store = this.fallbackFileStore;
+                    if (store == null) {
+                        return Future.succeededFuture();
+                    }
+                    return getKeel().executeBlocking(() -> {
+                        store.close();
+                        return null;
+                    });
+                });
     }
 
+    /**
+     * 将一批同主题的日志加入累积中的 LogGroup，并发送已满足发送条件的 LogGroup。
+     * <p>
+     * 每个主题在每个路由键下各累积一个 LogGroup（见 {@link LogGroupAccumulator}），
+     * 达到 {@code batchFlushBytes}、{@code batchFlushItems} 或放不进下一条日志时立即提交。
+     * 启用 Shard 路由时，每个目标 Shard 各自维护一个 LogGroup，不同 Shard 的 LogGroup 经在途窗口并行发送。
+     * 未配置 {@code lingerMs} 时，批次结束即提交该主题的全部 LogGroup；
+     * 配置后，未满的 LogGroup 跨批次保持打开，由定时检查在停留时间达到 {@code lingerMs} 后提交。
+     * <p>
+     * 提交 LogGroup 时不等待其 PutLogs 响应，只在发送器的在途窗口已满时等待空位；
+     * 返回的 Future 在本批次内提交的所有 LogGroup 的请求都完成后才完成，从而保持同一主题下批次之间的完成顺序。
+     * 本批次处理完成后归还入口闸门的名额。
+     */
     @Override
     protected Future<Void> processLogRecords(String topic, List<SpecificLog<?>> batch) {
-        AtomicReference<LogGroup> currentLogGroupRef = new AtomicReference<>(new LogGroup(topic, source));
+        List<Future<Void>> pendingPuts = new ArrayList<>();
+        if (telemetryRecorder != null) {
+            TopicRouter.Destination destination = topicRouter.route(topic);
+            telemetry.recordBatch(destination.project(), destination.logstore(), topic, batch.size());
+        }
 
         return getKeel().asyncCallIteratively(batch, specificLog -> {
-            int timeInSec = (int) (specificLog.timestamp() / 1000);
-            LogItem logItem = new LogItem(timeInSec);
-
-            String name = specificLog.level().name();
-            logItem.addContent(Log.MapKeyLevel, name);
-            String message = specificLog.message();
-            if (message != null) {
-                logItem.addContent(Log.MapKeyMessage, message);
-            }
-            List<String> classification = specificLog.classification();
-            if (classification != null && !classification.isEmpty()) {
-                logItem.addContent(Log.MapKeyClassification, new JsonArray(classification).encode());
-            }
-            Throwable exception = specificLog.exception();
-            if (exception != null) {
-                logItem.addContent(Log.MapKeyException, JsonifiedThrowable.wrap(exception)
-                                                                          .toJsonExpression());
-            }
-            Map<String, @Nullable Object> context = specificLog.context().toMap();
-            if (!context.isEmpty()) {
-                logItem.addContent(Log.MapKeyContext, new JsonObject(context).encode());
+                            LogGroupItem logItem;
+                            String routingValue;
+                            if (specificLog instanceof EncodedLog encodedLog) {
+                                logItem = encodedLog.getLogItem();
+                                routingValue = encodedLog.getRoutingValue();
+                            } else {
+                                LogItem builtLogItem = buildLogItem(specificLog, throwableJsonCache);
+                                logItem = builtLogItem;
+                                routingValue = findRoutingValue(builtLogItem);
+                            }
+                            String routeKey = resolveRouteKey(topic, routingValue);
+                            List<LogGroupAccumulator.PendingLogGroup> ready
+                                    = accumulator.add(topic, routeKey, logItem, System.currentTimeMillis());
+                            return submitLogGroups(ready, pendingPuts);
+                        })
+                        .compose(v -> {
+                            if (accumulator.getLingerMs() > 0) {
+                                return Future.succeededFuture();
+                            }
+                            return submitLogGroups(accumulator.drainTopic(topic), pendingPuts);
+                        })
+                        .compose(v -> Future.all(pendingPuts).<Void>mapEmpty())
+                        .andThen(ar -> {
+                            ingressGate.release(batch.size());
+                            drainTracker.complete(batch.size());
+                        });
+    }
+
+    /**
+     * 计算日志的路由键：未启用 Shard 路由或 Shard 列表不可用时为 {@link #LOAD_BALANCE_ROUTE}，否则为目标 Shard 的区间起点。
+     * <p>
+     * 路由值取日志中 {@code shardRoutingKey} 字段的值，缺少该字段时取日志主题。
+     * Shard 列表仅对应默认 Logstore，被路由到其他 Logstore 的主题始终使用负载均衡模式。
+     *
+     * @param routingValue {@link #findRoutingValue(LogItem)} 取得的路由值
+     */
+    private String resolveRouteKey(String topic, @Nullable String routingValue) {
+        ShardRouter router = this.shardRouter;
+        if (router == null || !router.isReady()) {
+            return LOAD_BALANCE_ROUTE;
+        }
+        if (topicRouter.hasRoutes() && !topicRouter.route(topic).equals(topicRouter.getDefaultDestination())) {
+            return LOAD_BALANCE_ROUTE;
+        }
+        ShardRouter.Shard shard = router.route(ShardRouter.computeHashKey(routingValue == null ? topic : routingValue));
+        if (shard == null) {
+            return LOAD_BALANCE_ROUTE;
+        }
+        return shard.inclusiveBeginKey();
+    }
+
+    /**
+     * @return 日志中 {@code shardRoutingKey} 字段的值，未启用 Shard 路由或日志中无此字段时为 null
+     */
+    private @Nullable String findRoutingValue(LogItem logItem) {
+        if (shardRouter == null || shardRoutingKey == null) {
+            return null;
+        }
+        for (LogContent content : logItem.getContents()) {
+            if (shardRoutingKey.equals(content.getKey())) {
+                return content.getValue();
             }
-            Map<String, @Nullable Object> extra = specificLog.extra();
-            if (!extra.isEmpty()) {
-                extra.forEach((k, v) -> {
-                    if (v != null) {
-                        logItem.addContent(k, v.toString());
-                    }
-                });
+        }
+        return null;
+    }
+
+    /**
+     * 依次提交多个 LogGroup。
+     */
+    private Future<Void> submitLogGroups(List<LogGroupAccumulator.PendingLogGroup> logGroups, List<Future<Void>> pendingPuts) {
+        if (logGroups.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        return getKeel().asyncCallIteratively(
+                logGroups,
+                pending -> submitLogGroup(pending.logGroup(), pending.routeKey(), pendingPuts)
+        );
+    }
+
+    /**
+     * 在发送器的在途窗口出现空位后发出 LogGroup，并将其完成 Future 记入 {@code pendingPuts}。
+     */
+    private Future<Void> submitLogGroup(LogGroup logGroup, String routeKey, List<Future<Void>> pendingPuts) {
+        AliyunSLSLogPutter logPutter = this.lateLogPutter.get();
+        String hashKey = LOAD_BALANCE_ROUTE.equals(routeKey) ? null : routeKey;
+        TopicRouter.Destination destination = topicRouter.route(logGroup.getTopic());
+        return logPutter.awaitSendWindow()
+                        .compose(v -> {
+                            Future<Void> put = logPutter.putLogs(destination.project(), destination.logstore(), logGroup, hashKey);
+                            outstandingPuts.add(put);
+                            put.onComplete(ar -> {
+                                outstandingPuts.remove(put);
+                                // Delivered, spilled or written to fallback by now
+                                releaseEncodedLogItems(logGroup);
+                            });
+                            pendingPuts.add(put);
+                            return Future.succeededFuture();
+                        });
+    }
+
+    /**
+     * 归还 LogGroup 中入队时编码的 LogItem 所占的堆外内存。
+     */
+    private static void releaseEncodedLogItems(LogGroup logGroup) {
+        for (LogGroupItem logItem : logGroup.getLogItems()) {
+            if (logItem instanceof EncodedLogItem encodedLogItem) {
+                encodedLogItem.release();
             }
+        }
+    }
 
-            LogGroup currentLogGroup = currentLogGroupRef.get();
-            currentLogGroup.addLogItem(logItem);
-            if (currentLogGroup.getProbableSize() > 5 * 1024 * 1024) {
-                return this.lateLogPutter.get()
-                                         .putLogs(project, logstore, currentLogGroup)
-                                         .compose(v -> {
-                                             currentLogGroupRef.set(new LogGroup(topic, source));
-                                             return Future.succeededFuture();
-                                         });
+    /**
+     * 将一条日志记录按 SLS 字段映射规则转换为 LogItem。
+     *
+     * @param specificLog 日志记录
+     * @return LogItem
+     */
+    static LogItem buildLogItem(SpecificLog<?> specificLog) {
+        return buildLogItem(specificLog, null);
+    }
+
+    /**
+     * 将一条日志记录按 SLS 字段映射规则转换为 LogItem，异常的 JSON 表达经指纹缓存复用。
+     *
+     * @param specificLog        日志记录
+     * @param throwableJsonCache 异常 JSON 指纹缓存，为 null 时每次重新序列化异常
+     * @return LogItem
+     * @since 5.0.4
+     */
+    static LogItem buildLogItem(SpecificLog<?> specificLog, @Nullable ThrowableJsonCache throwableJsonCache) {
+        int timeInSec = (int) (specificLog.timestamp() / 1000);
+        LogItem logItem = new LogItem(timeInSec);
+
+        String name = specificLog.level().name();
+        logItem.addContent(Log.MapKeyLevel, name);
+        String message = specificLog.message();
+        if (message != null) {
+            logItem.addContent(Log.MapKeyMessage, message);
+        }
+        List<String> classification = specificLog.classification();
+        if (classification != null && !classification.isEmpty()) {
+            logItem.addContent(Log.MapKeyClassification, LogContentJsonWriter.writeStringArray(classification));
+        }
+        Throwable exception = specificLog.exception();
+        if (exception != null) {
+            if (throwableJsonCache == null) {
+                logItem.addContent(Log.MapKeyException, encodeThrowable(exception));
             } else {
-                return Future.succeededFuture();
+                ThrowableJsonCache.EncodedThrowable encoded = throwableJsonCache.encode(exception, specificLog.timestamp());
+                logItem.addContent(Log.MapKeyException, encoded.json());
+                logItem.addContent(MapKeyExceptionFingerprint, encoded.fingerprint());
             }
-        })
-                .compose(v -> {
-                    LogGroup currentLogGroup = currentLogGroupRef.get();
-                    if (currentLogGroup.getProbableSize() > 0) {
-                        return this.lateLogPutter.get()
-                                                 .putLogs(project, logstore, currentLogGroup);
-                    } else {
-                        return Future.succeededFuture();
-                    }
-                });
+        }
+        Map<String, @Nullable Object> context = specificLog.context().toMap();
+        if (!context.isEmpty()) {
+            logItem.addContent(Log.MapKeyContext, LogContentJsonWriter.writeObject(context));
+        }
+        Map<String, @Nullable Object> extra = specificLog.extra();
+        if (!extra.isEmpty()) {
+            extra.forEach((k, v) -> {
+                if (v instanceof String s) {
+                    logItem.addContent(k, s);
+                } else if (v != null) {
+                    logItem.addContent(k, v.toString());
+                }
+            });
+        }
+        return logItem;
+    }
+
+    private static String encodeThrowable(Throwable throwable) {
+        return JsonifiedThrowable.wrap(throwable).toJsonExpression();
     }
 
     private AliyunSLSLogPutter buildProducer() throws NotConfiguredException {
@@ -151,7 +1007,9 @@ public class SlsQueuedLogWriterAdapter extends QueuedLogWriterAdapter {
                 getKeel(),
                 aliyunSlsConfig.getAccessKeyId(),
                 aliyunSlsConfig.getAccessKeySecret(),
-                aliyunSlsConfig.getEndpoint()
+                aliyunSlsConfig.getEndpoint(),
+                AliyunSLSLogPutterOptions.fromConfig(aliyunSlsConfig)
+                                         .setEncodeWorkers(aliyunSlsConfig.getEncodeWorkers())
         );
     }
 
@@ -0,0 +1,121 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.LogLevel;
+import io.github.sinri.keel.logger.api.adapter.LogWriterAdapter;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import io.vertx.core.Future;
+import org.jspecify.annotations.NullMarked;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片写入器组：持有多个相互独立的 {@link SlsQueuedLogWriterAdapter}，按主题的一致性哈希将日志分派给所属的写入器。
+ * <p>
+ * 同一主题的日志总是由同一个写入器处理，因此主题内的顺序与按主题累积 LogGroup 的行为与单个写入器相同。
+ * 各写入器分别部署，拥有各自的队列、累积器、发送器与连接池。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class SlsShardedLogWriterAdapter implements LogWriterAdapter {
+    private final ConsistentHashRing<SlsQueuedLogWriterAdapter> ring;
+
+    /**
+     * @param writers 写入器列表，不可为空；主题的归属只取决于写入器在列表中的序号
+     */
+    public SlsShardedLogWriterAdapter(List<SlsQueuedLogWriterAdapter> writers) {
+        this.ring = new ConsistentHashRing<>(writers);
+    }
+
+    /**
+     * @return 全部写入器，按序号排列
+     */
+    public List<SlsQueuedLogWriterAdapter> getWriters() {
+        return ring.getMembers();
+    }
+
+    /**
+     * @param topic 主题
+     * @return 处理该主题的写入器
+     */
+    public SlsQueuedLogWriterAdapter writerFor(String topic) {
+        return ring.locate(topic);
+    }
+
+    @Override
+    public void accept(String topic, SpecificLog<?> log) {
+        writerFor(topic).accept(topic, log);
+    }
+
+    /**
+     * 等待各写入器此前接收的所有日志都已送达，不设期限。
+     *
+     * @return 全部写入器排空完成时完成的 Future
+     * @see SlsQueuedLogWriterAdapter#flush()
+     */
+    public Future<Void> flush() {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (SlsQueuedLogWriterAdapter writer : getWriters()) {
+            futures.add(writer.flush());
+        }
+        return Future.all(futures).mapEmpty();
+    }
+
+    /**
+     * 在期限内等待各写入器此前接收的所有日志都已送达，各写入器并行排空。
+     *
+     * @param timeout 期限
+     * @return 全部写入器都在期限内排空时为 true
+     * @see SlsQueuedLogWriterAdapter#drain(Duration)
+     */
+    public Future<Boolean> drain(Duration timeout) {
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (SlsQueuedLogWriterAdapter writer : getWriters()) {
+            futures.add(writer.drain(timeout));
+        }
+        return Future.all(futures).map(composite -> {
+            for (int i = 0; i < futures.size(); i++) {
+                if (!composite.<Boolean>resultAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * @return 各写入器已接收但尚未处理完的日志数之和
+     */
+    public int getQueuedLogCount() {
+        int queued = 0;
+        for (SlsQueuedLogWriterAdapter writer : getWriters()) {
+            queued += writer.getQueuedLogCount();
+        }
+        return queued;
+    }
+
+    /**
+     * @return 各写入器因写入队列积压而累计丢弃的日志数之和
+     */
+    public long getDroppedLogCount() {
+        long dropped = 0;
+        for (SlsQueuedLogWriterAdapter writer : getWriters()) {
+            dropped += writer.getDroppedLogCount();
+        }
+        return dropped;
+    }
+
+    /**
+     * @param level 日志级别
+     * @return 各写入器因写入队列积压而累计丢弃的该级别日志数之和
+     */
+    public long getDroppedLogCount(LogLevel level) {
+        long dropped = 0;
+        for (SlsQueuedLogWriterAdapter writer : getWriters()) {
+            dropped += writer.getDroppedLogCount(level);
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,204 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.metric.MetricRecord;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SLS 写入链路的自身遥测数据，按 Project、Logstore 与主题分别统计。
+ * <p>
+ * 计数器为 {@link LongAdder}，以累计值（{@code _total}）导出；直方图为 {@link StripedHistogram}，
+ * 每次导出该周期内的观测次数、总和、最大值与 P50/P90/P99 后清零。记录操作不加锁，可在任意线程上调用。
+ * <p>
+ * 导出的指标均带有 {@code project}、{@code logstore} 与 {@code topic} 标签。
+ * 统计的序列数达到 {@link #MAX_TOPIC_SERIES} 后，新主题并入同一 Project、Logstore 下 {@code topic} 为 {@link #OTHER_TOPIC} 的序列。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class SlsWriterTelemetry {
+    static final String METRIC_PREFIX = "keel_sls_writer_";
+    /**
+     * 传输层失败（超时、连接断开等）在 HTTP 状态码分布中使用的状态值。
+     */
+    static final int STATUS_TRANSPORT_ERROR = -1;
+    /**
+     * 按主题统计的序列数上限，防止主题数无限增长时占用过多内存、每个导出周期产生过多指标记录。
+     */
+    static final int MAX_TOPIC_SERIES = 1_000;
+    /**
+     * 序列数达到上限后，新主题合并统计时使用的 {@code topic} 标签值。
+     */
+    static final String OTHER_TOPIC = "_other";
+
+    private final ConcurrentMap<SeriesKey, TopicStats> series = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一个被写入器取出处理的批次。
+     */
+    void recordBatch(String project, String logstore, @Nullable String topic, int logs) {
+        TopicStats stats = topicStats(project, logstore, topic);
+        stats.logs.add(logs);
+        stats.batchSize.record(logs);
+    }
+
+    /**
+     * 记录一次 LogGroup 的编码与压缩。
+     */
+    void recordEncode(String project, String logstore, @Nullable String topic, long elapsedNanos, int rawBytes, int compressedBytes) {
+        TopicStats stats = topicStats(project, logstore, topic);
+        stats.encodeMicros.record(elapsedNanos / 1_000);
+        stats.rawBytes.add(rawBytes);
+        stats.compressedBytes.add(compressedBytes);
+    }
+
+    /**
+     * 记录一次 PutLogs 请求的结果。
+     *
+     * @param statusCode HTTP 状态码，传输层失败时为 {@link #STATUS_TRANSPORT_ERROR}
+     */
+    void recordPutLogs(String project, String logstore, @Nullable String topic, long elapsedNanos, int statusCode) {
+        TopicStats stats = topicStats(project, logstore, topic);
+        stats.putLogsMicros.record(elapsedNanos / 1_000);
+        stats.statusCodes.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+    }
+
+    void recordRetry(String project, String logstore, @Nullable String topic) {
+        topicStats(project, logstore, topic).retries.increment();
+    }
+
+    void recordSpill(String project, String logstore, @Nullable String topic) {
+        topicStats(project, logstore, topic).spilledGroups.increment();
+    }
+
+    /**
+     * 记录一条日志在调用方线程上编码失败、改为原样入队。
+     */
+    void recordEnqueueEncodeFailure(String project, String logstore, @Nullable String topic) {
+        topicStats(project, logstore, topic).enqueueEncodeFailures.increment();
+    }
+
+    void recordFallback(String project, String logstore, @Nullable String topic, int logs) {
+        TopicStats stats = topicStats(project, logstore, topic);
+        stats.fallbackGroups.increment();
+        stats.fallbackLogs.add(logs);
+    }
+
+    /**
+     * 生成当前的指标记录，并清零各直方图。
+     *
+     * @param timestamp 指标时间戳（毫秒）
+     * @return 指标记录
+     */
+    List<MetricRecord> export(long timestamp) {
+        List<MetricRecord> records = new ArrayList<>();
+        series.forEach((key, stats) -> {
+            Map<String, String> labels = key.labels();
+            records.add(metric("logs_total", stats.logs.sum(), labels, timestamp));
+            exportHistogram(records, "batch_size", stats.batchSize.snapshotAndReset(), 1, labels, timestamp);
+            exportHistogram(records, "encode_ms", stats.encodeMicros.snapshotAndReset(), 1_000, labels, timestamp);
+            exportHistogram(records, "put_logs_ms", stats.putLogsMicros.snapshotAndReset(), 1_000, labels, timestamp);
+
+            long rawBytes = stats.rawBytes.sum();
+            long compressedBytes = stats.compressedBytes.sum();
+            records.add(metric("raw_bytes_total", rawBytes, labels, timestamp));
+            records.add(metric("compressed_bytes_total", compressedBytes, labels, timestamp));
+            if (compressedBytes > 0) {
+                records.add(metric("compression_ratio", (double) rawBytes / compressedBytes, labels, timestamp));
+            }
+
+            stats.statusCodes.forEach((statusCode, counter) -> {
+                Map<String, String> statusLabels = new HashMap<>(labels);
+                statusLabels.put("status", statusCode == STATUS_TRANSPORT_ERROR ? "error" : String.valueOf(statusCode));
+                records.add(metric("put_logs_total", counter.sum(), statusLabels, timestamp));
+            });
+            records.add(metric("retries_total", stats.retries.sum(), labels, timestamp));
+            records.add(metric("spilled_groups_total", stats.spilledGroups.sum(), labels, timestamp));
+            records.add(metric("fallback_groups_total", stats.fallbackGroups.sum(), labels, timestamp));
+            records.add(metric("fallback_logs_total", stats.fallbackLogs.sum(), labels, timestamp));
+            records.add(metric("enqueue_encode_failures_total", stats.enqueueEncodeFailures.sum(), labels, timestamp));
+        });
+        return records;
+    }
+
+    /**
+     * 生成由调用方给出标签的指标记录，用于队列深度等不属于某个主题的指标。
+     */
+    static MetricRecord gauge(String name, double value, Map<String, String> labels, long timestamp) {
+        return metric(name, value, new HashMap<>(labels), timestamp);
+    }
+
+    private TopicStats topicStats(String project, String logstore, @Nullable String topic) {
+        SeriesKey key = new SeriesKey(project, logstore, topic == null ? "" : topic);
+        TopicStats stats = series.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (series.size() >= MAX_TOPIC_SERIES) {
+            key = new SeriesKey(project, logstore, OTHER_TOPIC);
+        }
+        return series.computeIfAbsent(key, k -> new TopicStats());
+    }
+
+    private static void exportHistogram(
+            List<MetricRecord> records,
+            String name,
+            StripedHistogram.Snapshot snapshot,
+            double divisor,
+            Map<String, String> labels,
+            long timestamp
+    ) {
+        records.add(metric(name + "_count", snapshot.count(), labels, timestamp));
+        if (snapshot.count() == 0) {
+            return;
+        }
+        records.add(metric(name + "_sum", snapshot.sum() / divisor, labels, timestamp));
+        records.add(metric(name + "_max", snapshot.max() / divisor, labels, timestamp));
+        records.add(quantile(name, "0.5", snapshot.p50() / divisor, labels, timestamp));
+        records.add(quantile(name, "0.9", snapshot.p90() / divisor, labels, timestamp));
+        records.add(quantile(name, "0.99", snapshot.p99() / divisor, labels, timestamp));
+    }
+
+    private static MetricRecord quantile(String name, String quantile, double value, Map<String, String> labels, long timestamp) {
+        Map<String, String> quantileLabels = new HashMap<>(labels);
+        quantileLabels.put("quantile", quantile);
+        return metric(name, value, quantileLabels, timestamp);
+    }
+
+    private static MetricRecord metric(String name, double value, Map<String, String> labels, long timestamp) {
+        return new MetricRecord(METRIC_PREFIX + name, value, labels, timestamp);
+    }
+
+    private record SeriesKey(String project, String logstore, String topic) {
+        Map<String, String> labels() {
+            Map<String, String> labels = new HashMap<>();
+            labels.put("project", project);
+            labels.put("logstore", logstore);
+            labels.put("topic", topic);
+            return labels;
+        }
+    }
+
+    private static final class TopicStats {
+        private final LongAdder logs = new LongAdder();
+        private final StripedHistogram batchSize = new StripedHistogram();
+        private final StripedHistogram encodeMicros = new StripedHistogram();
+        private final StripedHistogram putLogsMicros = new StripedHistogram();
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder spilledGroups = new LongAdder();
+        private final LongAdder fallbackGroups = new LongAdder();
+        private final LongAdder fallbackLogs = new LongAdder();
+        private final LongAdder enqueueEncodeFailures = new LongAdder();
+    }
+}
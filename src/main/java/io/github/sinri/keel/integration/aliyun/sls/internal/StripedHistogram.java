@@ -0,0 +1,94 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 低开销的并发直方图，以 2 的幂划分桶，每个桶是一个 {@link LongAdder}。
+ * <p>
+ * 第 i 个桶统计 {@code [2^(i-1), 2^i)} 区间内的值（第 0 个桶统计 0），记录一个值只需计算前导零个数并累加一次计数，
+ * 多线程并发记录时不产生锁竞争。分位数以所在桶的上界估计，相对误差不超过一倍，足以反映量级变化。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class StripedHistogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    StripedHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param value 非负的观测值，负数按 0 计
+     */
+    void record(long value) {
+        long v = Math.max(0, value);
+        buckets[BUCKETS - Long.numberOfLeadingZeros(v)].increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * 取出自上次取出以来的统计，并清零。
+     * <p>
+     * 各桶依次清零，与并发的记录之间不是原子的；个别观测值可能计入下一次的统计，不会丢失。
+     *
+     * @return 统计快照
+     */
+    Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sumThenReset();
+            count += counts[i];
+        }
+        long total = sum.sumThenReset();
+        long maximum = max.getThenReset();
+        return new Snapshot(
+                count,
+                total,
+                maximum,
+                percentile(counts, count, 0.50, maximum),
+                percentile(counts, count, 0.90, maximum),
+                percentile(counts, count, 0.99, maximum)
+        );
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maximum) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upperBound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                return Math.min(upperBound, maximum);
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * 直方图在一个统计周期内的快照。
+     *
+     * @param count 观测次数
+     * @param sum   观测值之和
+     * @param max   最大观测值
+     * @param p50   中位数的估计
+     * @param p90   90 分位数的估计
+     * @param p99   99 分位数的估计
+     */
+    record Snapshot(long count, long sum, long max, long p50, long p90, long p99) {
+    }
+}
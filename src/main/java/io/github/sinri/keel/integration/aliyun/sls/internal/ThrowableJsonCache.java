@@ -0,0 +1,204 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 异常 JSON 的指纹缓存。
+ * <p>
+ * 以异常的指纹为键，缓存其 JSON 表达，同一异常（类型、消息与调用栈均相同）重复记录时直接复用，避免重复序列化调用栈。
+ * 指纹基于异常链上各异常的类型、消息模板（数字序列视为同一占位）与栈帧计算，只遍历栈帧的哈希值，不生成字符串。
+ * <p>
+ * 设置了完整调用栈的发送窗口时，同一指纹在窗口内只有第一次记录携带完整调用栈，之后的记录只携带类型、消息与指纹，
+ * 可凭指纹在 SLS 中找到完整调用栈。
+ * <p>
+ * 缓存按最近最少使用淘汰，容量有上限；本类是线程安全的。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class ThrowableJsonCache {
+    /**
+     * 默认的缓存容量。
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * 参与指纹计算的异常链最大深度。
+     */
+    private static final int MAX_CAUSE_DEPTH = 16;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long fullTraceWindowMs;
+    private final Function<Throwable, String> encoder;
+    private final Map<Long, CachedJson> encodedByExactFingerprint;
+    private final Map<Long, Long> fullTraceSentAtByFingerprint;
+
+    /**
+     * @param capacity          缓存的异常数上限，至少为 1
+     * @param fullTraceWindowMs 同一指纹的完整调用栈的发送窗口（毫秒），为 0 时每次都发送完整调用栈
+     * @param encoder           异常的 JSON 编码方法
+     */
+    ThrowableJsonCache(int capacity, long fullTraceWindowMs, Function<Throwable, String> encoder) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be at least 1");
+        }
+        this.fullTraceWindowMs = fullTraceWindowMs;
+        this.encoder = encoder;
+        this.encodedByExactFingerprint = new LruMap<>(capacity);
+        this.fullTraceSentAtByFingerprint = new LruMap<>(capacity);
+    }
+
+    /**
+     * 获取异常的 JSON 表达与指纹。
+     *
+     * @param throwable 异常
+     * @param nowMs     当前时间（毫秒）
+     * @return 编码结果
+     */
+    EncodedThrowable encode(Throwable throwable, long nowMs) {
+        Fingerprints fingerprints = fingerprint(throwable);
+        long fingerprint = fingerprints.template();
+        long exactFingerprint = fingerprints.exact();
+        String fingerprintHex = toHex(fingerprint);
+
+        synchronized (this) {
+            if (fullTraceWindowMs > 0) {
+                Long sentAt = fullTraceSentAtByFingerprint.get(fingerprint);
+                if (sentAt != null && nowMs - sentAt < fullTraceWindowMs) {
+                    return new EncodedThrowable(fingerprintHex, buildReference(throwable, fingerprintHex), false);
+                }
+                fullTraceSentAtByFingerprint.put(fingerprint, nowMs);
+            }
+
+            CachedJson cached = encodedByExactFingerprint.get(exactFingerprint);
+            if (cached != null && cached.matches(throwable)) {
+                return new EncodedThrowable(fingerprintHex, cached.json(), true);
+            }
+        }
+
+        // Encode outside the lock; a concurrent miss on the same throwable only costs a duplicate encoding
+        String json = encoder.apply(throwable);
+        synchronized (this) {
+            encodedByExactFingerprint.put(exactFingerprint, new CachedJson(throwable.getClass().getName(), throwable.getMessage(), json));
+        }
+        return new EncodedThrowable(fingerprintHex, json, true);
+    }
+
+    /**
+     * 一次遍历计算异常的两个指纹：依次混入异常链上各异常的类型、消息与栈帧，
+     * 模板指纹中消息的连续数字视为同一占位符，精确指纹使用原始消息。
+     *
+     * @param throwable 异常
+     * @return 模板指纹与精确指纹
+     */
+    static Fingerprints fingerprint(Throwable throwable) {
+        long template = FNV_OFFSET_BASIS;
+        long exact = FNV_OFFSET_BASIS;
+        Throwable current = throwable;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            int classHash = current.getClass().getName().hashCode();
+            template = mix(template, classHash);
+            exact = mix(exact, classHash);
+            String message = current.getMessage();
+            if (message != null) {
+                template = mixTemplate(template, message);
+                exact = mix(exact, message.hashCode());
+            }
+            for (StackTraceElement frame : current.getStackTrace()) {
+                int frameHash = 31 * (31 * frame.getClassName().hashCode() + frame.getMethodName().hashCode())
+                        + frame.getLineNumber();
+                template = mix(template, frameHash);
+                exact = mix(exact, frameHash);
+            }
+            Throwable cause = current.getCause();
+            if (cause == current) {
+                break;
+            }
+            current = cause;
+        }
+        return new Fingerprints(template, exact);
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static long mixTemplate(long hash, String message) {
+        boolean inDigits = false;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (!inDigits) {
+                    hash = mix(hash, '#');
+                    inDigits = true;
+                }
+            } else {
+                hash = mix(hash, c);
+                inDigits = false;
+            }
+        }
+        return hash;
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static String buildReference(Throwable throwable, String fingerprintHex) {
+        return new JsonObject()
+                .put("class", throwable.getClass().getName())
+                .put("message", throwable.getMessage())
+                .put("fingerprint", fingerprintHex)
+                .put("stackOmitted", true)
+                .encode();
+    }
+
+    /**
+     * @param template 基于消息模板的指纹，用于识别同类异常
+     * @param exact    基于原始消息的指纹，用于复用 JSON
+     */
+    record Fingerprints(long template, long exact) {
+    }
+
+    /**
+     * 异常的编码结果。
+     *
+     * @param fingerprint 16 位十六进制的指纹
+     * @param json        异常的 JSON 表达
+     * @param fullTrace   JSON 中包含完整调用栈时为 true，为同一指纹的简略引用时为 false
+     */
+    record EncodedThrowable(String fingerprint, String json, boolean fullTrace) {
+    }
+
+    /**
+     * 缓存的 JSON 及用于排除指纹碰撞的顶层异常信息。
+     */
+    private record CachedJson(String className, @Nullable String message, String json) {
+        boolean matches(Throwable throwable) {
+            return className.equals(throwable.getClass().getName())
+                    && Objects.equals(message, throwable.getMessage());
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
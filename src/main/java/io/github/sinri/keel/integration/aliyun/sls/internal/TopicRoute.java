@@ -0,0 +1,110 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 主题路由规则：主题与 {@code pattern} 匹配的日志写入指定的 Project 与 Logstore。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class TopicRoute {
+    private final MatchType matchType;
+    private final String pattern;
+    private final TopicRouter.Destination destination;
+    private final @Nullable Pattern regex;
+
+    /**
+     * @param matchType   匹配方式
+     * @param pattern     主题、主题前缀或正则表达式
+     * @param destination 匹配时的写入目标
+     * @throws java.util.regex.PatternSyntaxException 匹配方式为正则而表达式不合法
+     */
+    public TopicRoute(MatchType matchType, String pattern, TopicRouter.Destination destination) {
+        this.matchType = matchType;
+        this.pattern = pattern;
+        this.destination = destination;
+        this.regex = matchType == MatchType.REGEX ? Pattern.compile(pattern) : null;
+    }
+
+    /**
+     * @param config 路由规则的配置
+     * @return 路由规则
+     * @throws IllegalArgumentException               匹配方式不受支持
+     * @throws java.util.regex.PatternSyntaxException 匹配方式为正则而表达式不合法
+     */
+    public static TopicRoute fromConfig(AliyunSlsConfigElement.TopicRouteConfig config) {
+        MatchType matchType = MatchType.fromConfigValue(config.match());
+        if (matchType == null) {
+            throw new IllegalArgumentException("Unsupported topic route match type: " + config.match());
+        }
+        return new TopicRoute(matchType, config.topic(), new TopicRouter.Destination(config.project(), config.logstore()));
+    }
+
+    public MatchType getMatchType() {
+        return matchType;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public TopicRouter.Destination getDestination() {
+        return destination;
+    }
+
+    /**
+     * @param topic 主题
+     * @return 主题是否与本规则匹配
+     */
+    public boolean matches(String topic) {
+        return switch (matchType) {
+            case EXACT -> pattern.equals(topic);
+            case PREFIX -> topic.startsWith(pattern);
+            case REGEX -> regex != null && regex.matcher(topic).matches();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return matchType.name().toLowerCase(Locale.ROOT) + ":" + pattern + " -> " + destination;
+    }
+
+    /**
+     * 主题的匹配方式。
+     */
+    public enum MatchType {
+        /**
+         * 主题与 {@code pattern} 完全相同。
+         */
+        EXACT,
+        /**
+         * 主题以 {@code pattern} 开头。
+         */
+        PREFIX,
+        /**
+         * 主题整体匹配正则表达式 {@code pattern}。
+         */
+        REGEX;
+
+        /**
+         * 按配置取值查找匹配方式，忽略大小写。
+         *
+         * @param configValue 配置取值，如 {@code prefix}
+         * @return 匹配方式，取值不受支持时为 null
+         */
+        public static @Nullable MatchType fromConfigValue(String configValue) {
+            for (MatchType matchType : values()) {
+                if (matchType.name().equalsIgnoreCase(configValue.trim())) {
+                    return matchType;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主题选择写入目标：依次尝试各条 {@link TopicRoute}，取第一条匹配的规则的目标，都不匹配时写入默认目标。
+ * <p>
+ * 每个主题的选择结果会被缓存，同一主题只匹配一次；缓存的主题数超过 {@link #MAX_CACHED_TOPICS} 后，新主题每次都重新匹配。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class TopicRouter {
+    /**
+     * 缓存路由结果的主题数上限，防止主题数无限增长时占用过多内存。
+     */
+    static final int MAX_CACHED_TOPICS = 10_000;
+
+    private final Destination defaultDestination;
+    private final List<TopicRoute> routes;
+    private final Map<String, Destination> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultDestination 没有规则匹配时的写入目标
+     * @param routes             按优先级排列的路由规则
+     */
+    public TopicRouter(Destination defaultDestination, List<TopicRoute> routes) {
+        this.defaultDestination = defaultDestination;
+        this.routes = List.copyOf(routes);
+    }
+
+    public Destination getDefaultDestination() {
+        return defaultDestination;
+    }
+
+    /**
+     * @return 是否配置了路由规则
+     */
+    public boolean hasRoutes() {
+        return !routes.isEmpty();
+    }
+
+    /**
+     * @param topic 主题，为 null 时写入默认目标
+     * @return 写入目标
+     */
+    public Destination route(@Nullable String topic) {
+        if (topic == null || routes.isEmpty()) {
+            return defaultDestination;
+        }
+        Destination cached = cache.get(topic);
+        if (cached != null) {
+            return cached;
+        }
+        Destination resolved = resolve(topic);
+        if (cache.size() < MAX_CACHED_TOPICS) {
+            cache.putIfAbsent(topic, resolved);
+        }
+        return resolved;
+    }
+
+    private Destination resolve(String topic) {
+        for (TopicRoute route : routes) {
+            if (route.matches(topic)) {
+                return route.getDestination();
+            }
+        }
+        return defaultDestination;
+    }
+
+    /**
+     * 写入目标。
+     *
+     * @param project  Project name
+     * @param logstore Logstore name
+     */
+    public record Destination(String project, String logstore) {
+        @Override
+        public String toString() {
+            return project + "/" + logstore;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 已编码为 Protobuf {@code Log} 消息体的日志。
+ * <p>
+ * 只保留时间与编码后的字节，编码 LogGroup 时原样拼接，不再逐字段编码；与 {@link LogItem} 不同，内容在编码后不可再修改。
+ * 仅在降级输出等需要逐条读取内容时，才由 {@link #getContents()} 从字节中解出。
+ * <p>
+ * 编码结果可以存放在堆外内存中，此时所在的 LogGroup 发送完成（含降级输出）后应调用 {@link #release()} 归还内存，之后不应再访问本对象。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class EncodedLogItem implements LogGroupItem {
+    private final int time;
+    private final @Nullable Integer nanoPartOfTime;
+    private final ByteBuffer encoded;
+    private final @Nullable Runnable releaser;
+    private @Nullable List<LogContent> decodedContents;
+
+    private EncodedLogItem(int time, @Nullable Integer nanoPartOfTime, ByteBuffer encoded, @Nullable Runnable releaser) {
+        this.time = time;
+        this.nanoPartOfTime = nanoPartOfTime;
+        this.encoded = encoded;
+        this.releaser = releaser;
+    }
+
+    /**
+     * @param logItem 待编码的 LogItem
+     * @return 与之等价的已编码 LogItem
+     */
+    public static EncodedLogItem encode(LogItem logItem) {
+        return new EncodedLogItem(logItem.getTime(), logItem.getNanoPartOfTime(),
+                ByteBuffer.wrap(LogGroupEncoder.encodeLogItem(logItem)), null);
+    }
+
+    /**
+     * 将 LogItem 编码进给定的缓冲区，通常为堆外内存中的一段。
+     *
+     * @param logItem  待编码的 LogItem
+     * @param target   大小恰为 {@link LogItem#getSerializedSize()} 的缓冲区
+     * @param releaser {@link #release()} 时调用，用于归还缓冲区
+     * @return 与之等价的已编码 LogItem
+     * @since 5.0.4
+     */
+    public static EncodedLogItem encode(LogItem logItem, ByteBuffer target, Runnable releaser) {
+        LogGroupEncoder.encodeLogItem(logItem, target.duplicate());
+        return new EncodedLogItem(logItem.getTime(), logItem.getNanoPartOfTime(), target, releaser);
+    }
+
+    @Override
+    public int getTime() {
+        return time;
+    }
+
+    @Override
+    public @Nullable Integer getNanoPartOfTime() {
+        return nanoPartOfTime;
+    }
+
+    /**
+     * @return {@code Log} 消息体的只读视图，position 为 0，limit 为消息体长度
+     */
+    public ByteBuffer getEncoded() {
+        return encoded.asReadOnlyBuffer();
+    }
+
+    /**
+     * 归还编码结果所占的缓冲区；编码结果在堆内时无效果。
+     */
+    public void release() {
+        if (releaser != null) {
+            releaser.run();
+        }
+    }
+
+    /**
+     * @return 从编码结果中解出的内容，不可修改
+     */
+    @Override
+    public List<LogContent> getContents() {
+        List<LogContent> contents = decodedContents;
+        if (contents == null) {
+            contents = Collections.unmodifiableList(LogGroupEncoder.decodeLogItemContents(encoded));
+            decodedContents = contents;
+        }
+        return contents;
+    }
+
+    @Override
+    public int getSerializedSize() {
+        return encoded.capacity();
+    }
+
+    @Override
+    public void writeTo(CodedOutputStream output) throws IOException {
+        output.write(getEncoded());
+    }
+
+    @Override
+    public DynamicMessage toProtobuf() {
+        try {
+            return DynamicMessage.parseFrom(LogEntityDescriptors.getInstance().getLogDescriptor(), ByteString.copyFrom(getEncoded()));
+        } catch (InvalidProtocolBufferException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,7 +2,12 @@ package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
 
 import com.google.protobuf.DynamicMessage;
 import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 
 /**
  * @see <a href=
@@ -12,11 +17,30 @@ import org.jspecify.annotations.NullMarked;
 @NullMarked
 public class LogContent {
     private final String key;
-    private final String value;
+    private final byte @Nullable [] utf8Value;
+    private final int serializedSize;
+    private @Nullable String value;
 
     public LogContent(String key, String value) {
         this.key = key;
         this.value = value;
+        this.utf8Value = null;
+        this.serializedSize = LogGroupEncoder.computeLogContentSize(key, value);
+    }
+
+    /**
+     * 以已编码的 UTF-8 字节作为内容值，编码 LogGroup 时直接写出这些字节，
+     * 仅在调用 {@link #getValue()} 时才解码为字符串。
+     *
+     * @param key       内容键
+     * @param utf8Value UTF-8 编码的内容值，构造后不应再修改
+     * @since 5.0.4
+     */
+    public LogContent(String key, byte[] utf8Value) {
+        this.key = key;
+        this.value = null;
+        this.utf8Value = utf8Value;
+        this.serializedSize = LogGroupEncoder.computeLogContentSize(key, utf8Value);
     }
 
     public String getKey() {
@@ -24,7 +48,20 @@ public class LogContent {
     }
 
     public String getValue() {
-        return value;
+        String decoded = value;
+        if (decoded == null) {
+            decoded = new String(Objects.requireNonNull(utf8Value), StandardCharsets.UTF_8);
+            value = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * @return 以 UTF-8 字节构造时的内容值，以字符串构造时为 null
+     * @since 5.0.4
+     */
+    public byte @Nullable [] getUtf8Value() {
+        return utf8Value;
     }
 
 
@@ -32,7 +69,7 @@ public class LogContent {
         var contentDescriptor = LogEntityDescriptors.getInstance().getContentDescriptor();
         return DynamicMessage.newBuilder(contentDescriptor)
                              .setField(contentDescriptor.findFieldByName("Key"), key)
-                             .setField(contentDescriptor.findFieldByName("Value"), value)
+                             .setField(contentDescriptor.findFieldByName("Value"), getValue())
                              .build();
     }
 
@@ -42,8 +79,20 @@ public class LogContent {
      * 使用UTF-8编码的平均字符长度3倍作为估计值。
      *
      * @return The total size in bytes of the UTF-8 encoded key and value combined.
+     * @deprecated as of 5.0.4, use {@link #getSerializedSize()} for the exact encoded size
      */
+    @Deprecated(forRemoval = true)
     public int getProbableSize() {
-        return (key.length() + value.length()) * 3;
+        return (key.length() + getValue().length()) * 3;
+    }
+
+    /**
+     * 本条内容编码为 Protobuf {@code Log.Content} 消息后的精确字节数（不含外层 tag 与长度前缀），在构造时计算并缓存。
+     *
+     * @return 消息体字节数
+     * @since 5.0.4
+     */
+    public int getSerializedSize() {
+        return serializedSize;
     }
 }
@@ -2,6 +2,7 @@ package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
 
 import com.google.protobuf.DynamicMessage;
 import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
@@ -9,19 +10,39 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * LogGroup实体。
+ * <p>
+ * 实例在添加日志与标签时增量维护编码后的精确字节数，调用方可以据此通过 {@link #canAccept(LogGroupItem)} 判断是否需要切分，
+ * 以同时满足 PutLogs 对单个 LogGroup 的字节数与日志条数限制。
+ * <p>
+ * 注意：LogItem 一旦加入 LogGroup，不应再修改其内容，否则缓存的字节数将失效。
+ *
  * @see <a
  *         href="https://help.aliyun.com/zh/sls/developer-reference/api-sls-2020-12-30-struct-loggroup?spm=a2c4g.11186623.0.0.1dde4941qHi34T">LogGroup实体格式定义</a>
  * @since 5.0.0
  */
 @NullMarked
 public class LogGroup {
-    final static long maxSizeBytes = 5L * 1024 * 1024; // 5MB limit
+    /**
+     * 单个 LogGroup 编码后的默认字节数上限。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_MAX_SERIALIZED_SIZE = 5 * 1024 * 1024;
+    /**
+     * 单个 LogGroup 的默认日志条数上限，与 PutLogs 接口的限制一致。
+     *
+     * @since 5.0.4
+     */
+    public static final int DEFAULT_MAX_LOG_ITEMS = 4096;
 
     private final @Nullable String topic;
     private final @Nullable String source;
     private final List<LogTag> logTags;
-    private final List<LogItem> logItems;
-    private int probableSize = 0;
+    private final List<LogGroupItem> logItems;
+    private final int maxSerializedSize;
+    private final int maxLogItems;
+    private int serializedSize;
 
     /**
      * Create a LogGroup with topic and source
@@ -30,10 +51,26 @@ public class LogGroup {
      * @param source The log source, e.g., IP address of the machine that generated the log
      */
     public LogGroup(@Nullable String topic, @Nullable String source) {
+        this(topic, source, DEFAULT_MAX_SERIALIZED_SIZE, DEFAULT_MAX_LOG_ITEMS);
+    }
+
+    /**
+     * Create a LogGroup with topic, source and custom limits used by {@link #canAccept(LogGroupItem)}.
+     *
+     * @param topic             The log topic
+     * @param source            The log source
+     * @param maxSerializedSize The maximum encoded size in bytes of this group
+     * @param maxLogItems       The maximum count of log items in this group
+     * @since 5.0.4
+     */
+    public LogGroup(@Nullable String topic, @Nullable String source, int maxSerializedSize, int maxLogItems) {
         this.topic = topic;
         this.source = source;
         this.logTags = new ArrayList<>();
         this.logItems = new ArrayList<>();
+        this.maxSerializedSize = maxSerializedSize;
+        this.maxLogItems = maxLogItems;
+        this.serializedSize = LogGroupEncoder.computeLogGroupHeaderSize(topic, source);
     }
 
     /**
@@ -70,21 +107,25 @@ public class LogGroup {
      * @return this instance for chaining
      */
     public LogGroup addLogTags(List<LogTag> logTags) {
-        this.logTags.addAll(logTags);
+        for (var logTag : logTags) {
+            addLogTag(logTag);
+        }
+
         return this;
     }
 
     public LogGroup addLogTag(LogTag logTag) {
         this.logTags.add(logTag);
+        serializedSize += LogGroupEncoder.computeLogTagFieldSize(logTag);
         return this;
     }
 
     /**
      * Get the log items
      *
-     * @return The list of log items
+     * @return The list of log items, either {@link LogItem} or {@link EncodedLogItem}
      */
-    public List<LogItem> getLogItems() {
+    public List<LogGroupItem> getLogItems() {
         return logItems;
     }
 
@@ -94,7 +135,7 @@ public class LogGroup {
      * @param logItems The list of log items to set
      * @return this instance for chaining
      */
-    public LogGroup addLogItems(List<LogItem> logItems) {
+    public LogGroup addLogItems(List<? extends LogGroupItem> logItems) {
         for (var logItem : logItems) {
             addLogItem(logItem);
         }
@@ -102,12 +143,40 @@ public class LogGroup {
         return this;
     }
 
-    public LogGroup addLogItem(LogItem logItem) {
+    public LogGroup addLogItem(LogGroupItem logItem) {
         this.logItems.add(logItem);
-        probableSize += logItem.getProbableSize();
+        serializedSize += LogGroupEncoder.computeLogItemFieldSize(logItem.getSerializedSize());
         return this;
     }
 
+    /**
+     * 判断加入指定日志后，本 LogGroup 是否仍在字节数与日志条数的限制以内。
+     * <p>
+     * 空的 LogGroup 总是可以接受一条日志，以保证超大的单条日志也能被单独发送。
+     *
+     * @param logItem 待加入的日志
+     * @return 可以加入时返回 true
+     * @since 5.0.4
+     */
+    public boolean canAccept(LogGroupItem logItem) {
+        if (logItems.isEmpty()) {
+            return true;
+        }
+        if (logItems.size() >= maxLogItems) {
+            return false;
+        }
+        long sizeAfterAdding = (long) serializedSize + LogGroupEncoder.computeLogItemFieldSize(logItem.getSerializedSize());
+        return sizeAfterAdding <= maxSerializedSize;
+    }
+
+    /**
+     * @return 尚未加入任何日志时返回 true
+     * @since 5.0.4
+     */
+    public boolean isEmpty() {
+        return logItems.isEmpty();
+    }
+
     public DynamicMessage toProtobuf() {
         var logGroupDescriptor = LogEntityDescriptors.getInstance().getLogGroupDescriptor();
         var builder = DynamicMessage.newBuilder(logGroupDescriptor);
@@ -123,9 +192,25 @@ public class LogGroup {
     }
 
     /**
-     * @return 缓存好的大约尺寸
+     * @return 各日志估算尺寸之和
+     * @deprecated as of 5.0.4, use {@link #getSerializedSize()} for the exact encoded size
      */
+    @Deprecated(forRemoval = true)
     public int getProbableSize() {
-        return probableSize;
+        int sum = 0;
+        for (LogGroupItem logItem : logItems) {
+            sum += logItem instanceof LogItem plainLogItem ? plainLogItem.getProbableSize() : logItem.getSerializedSize();
+        }
+        return sum;
+    }
+
+    /**
+     * 本 LogGroup 编码为 Protobuf 后的精确字节数，即 PutLogs 请求中 {@code x-log-bodyrawsize} 的值。
+     *
+     * @return 编码后字节数
+     * @since 5.0.4
+     */
+    public int getSerializedSize() {
+        return serializedSize;
     }
 }
@@ -0,0 +1,53 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DynamicMessage;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 可作为 Protobuf {@code Log} 消息加入 {@link LogGroup} 的一条日志。
+ * <p>
+ * {@link LogItem} 逐字段编码，内容可以继续增加；{@link EncodedLogItem} 持有已编码的消息体，编码 LogGroup 时原样拼接。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public interface LogGroupItem {
+    /**
+     * @return 日志时间（秒）
+     */
+    int getTime();
+
+    /**
+     * @return 日志时间中不足一秒的部分，未设置时为 null
+     */
+    @Nullable
+    Integer getNanoPartOfTime();
+
+    /**
+     * @return 日志内容；{@link EncodedLogItem} 的内容不可修改
+     */
+    List<LogContent> getContents();
+
+    /**
+     * @return 编码为 Protobuf {@code Log} 消息后的精确字节数（不含外层 tag 与长度前缀）
+     */
+    int getSerializedSize();
+
+    /**
+     * 写入 Protobuf {@code Log} 消息体（不含外层 tag 与长度前缀），恰好 {@link #getSerializedSize()} 个字节。
+     *
+     * @param output 输出流
+     * @throws IOException 写入失败
+     */
+    void writeTo(CodedOutputStream output) throws IOException;
+
+    /**
+     * @return 对应的 Protobuf {@code Log} 消息
+     */
+    DynamicMessage toProtobuf();
+}
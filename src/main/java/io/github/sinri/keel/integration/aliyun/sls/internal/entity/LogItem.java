@@ -1,10 +1,13 @@
 package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.DynamicMessage;
 import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,55 +20,79 @@ import java.util.List;
  * @since 5.0.0
  */
 @NullMarked
-public class LogItem {
+public class LogItem implements LogGroupItem {
     private final int time;
     private final List<LogContent> contents;
     private @Nullable Integer nanoPartOfTime = null;
+    /**
+     * 当前编码后的精确字节数（不含外层 tag 与长度前缀），随内容的增加而增量维护。
+     */
+    private int serializedSize;
 
     public LogItem(int time) {
         this.time = time;
         this.contents = new ArrayList<>();
+        this.serializedSize = LogGroupEncoder.computeLogItemBaseSize(time);
     }
 
     public LogItem(long time) {
-        this.time = Math.toIntExact(time / 1000);
-        this.nanoPartOfTime = (int) (time % 1000);
-        this.contents = new ArrayList<>();
+        this(Math.toIntExact(time / 1000));
+        setNanoPartOfTime((int) (time % 1000));
     }
 
+    @Override
     public int getTime() {
         return time;
     }
 
+    @Override
     public List<LogContent> getContents() {
         return contents;
     }
 
     public LogItem addContent(LogContent content) {
         contents.add(content);
+        serializedSize += LogGroupEncoder.computeContentFieldSize(content.getSerializedSize());
         return this;
     }
 
     public LogItem addContent(String key, String value) {
-        contents.add(new LogContent(key, value));
-        return this;
+        return addContent(new LogContent(key, value));
+    }
+
+    /**
+     * @param key       内容键
+     * @param utf8Value UTF-8 编码的内容值
+     * @return 本 LogItem
+     * @since 5.0.4
+     */
+    public LogItem addContent(String key, byte[] utf8Value) {
+        return addContent(new LogContent(key, utf8Value));
     }
 
+    @Override
     @Nullable
     public Integer getNanoPartOfTime() {
         return nanoPartOfTime;
     }
 
     public LogItem setNanoPartOfTime(@Nullable Integer nanoPartOfTime) {
+        if (this.nanoPartOfTime != null) {
+            serializedSize -= LogGroupEncoder.TIME_NS_FIELD_SIZE;
+        }
         this.nanoPartOfTime = nanoPartOfTime;
+        if (nanoPartOfTime != null) {
+            serializedSize += LogGroupEncoder.TIME_NS_FIELD_SIZE;
+        }
         return this;
     }
 
+    @Override
     public DynamicMessage toProtobuf() {
         var logDescriptor = LogEntityDescriptors.getInstance().getLogDescriptor();
         DynamicMessage.Builder builder = DynamicMessage.newBuilder(logDescriptor)
                                                        .setField(logDescriptor.findFieldByName("Time"), time);
-        contents.forEach(
+        getContents().forEach(
                 content -> builder.addRepeatedField(logDescriptor.findFieldByName("Contents"), content.toProtobuf()));
         if (nanoPartOfTime != null) {
             builder.setField(logDescriptor.findFieldByName("Time_ns"), nanoPartOfTime);
@@ -80,7 +107,9 @@ public class LogItem {
      * in the content list. If the list is empty, the method returns 0.
      *
      * @return The total probable size of all log contents in bytes.
+     * @deprecated as of 5.0.4, use {@link #getSerializedSize()} for the exact encoded size
      */
+    @Deprecated(forRemoval = true)
     public int getProbableSize() {
         int sum = 0;
         for (int i = 0; i < getContents().size(); i++) {
@@ -89,4 +118,25 @@ public class LogItem {
         }
         return sum;
     }
+
+    /**
+     * 本条日志编码为 Protobuf {@code Log} 消息后的精确字节数（不含外层 tag 与长度前缀）。
+     * <p>
+     * 该值在添加内容时增量维护，读取开销为常数。
+     *
+     * @return 消息体字节数
+     * @since 5.0.4
+     */
+    @Override
+    public int getSerializedSize() {
+        return serializedSize;
+    }
+
+    /**
+     * @since 5.0.4
+     */
+    @Override
+    public void writeTo(CodedOutputStream output) throws IOException {
+        LogGroupEncoder.writeLogItem(output, this);
+    }
 }
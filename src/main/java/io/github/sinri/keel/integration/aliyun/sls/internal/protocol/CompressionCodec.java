@@ -0,0 +1,57 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * PutLogs 请求体的压缩编解码器。
+ * <p>
+ * 每种实现对应 SLS 支持的一种 {@code x-log-compresstype}，实现类需线程安全；
+ * 压缩上下文按线程复用（ThreadLocal），避免每次请求重新分配。
+ *
+ * @see CompressionCodecs
+ * @since 5.0.4
+ */
+@NullMarked
+public interface CompressionCodec {
+    /**
+     * @return 作为 {@code x-log-compresstype} 请求头的压缩类型名
+     */
+    String getCompressType();
+
+    /**
+     * 压缩 LogGroup 的 Protobuf 编码。
+     *
+     * @param raw 待压缩的数据
+     * @return 压缩后的数据
+     */
+    Buffer compress(Buffer raw);
+
+    /**
+     * 将 raw 的可读字节压缩进由 allocator 分配的 ByteBuf，不改变 raw 的读写索引；raw 与返回的 ByteBuf 均由调用方释放。
+     * <p>
+     * 默认实现经由堆内字节数组中转；内置实现均直接在直接内存之间压缩，不产生中间拷贝。
+     *
+     * @param raw       待压缩的数据
+     * @param allocator ByteBuf 分配器
+     * @return 压缩后的数据
+     * @since 5.0.4
+     */
+    default ByteBuf compress(ByteBuf raw, ByteBufAllocator allocator) {
+        Buffer compressed = compress(Buffer.buffer(ByteBufUtil.getBytes(raw)));
+        return Unpooled.wrappedBuffer(compressed.getBytes());
+    }
+
+    /**
+     * 解压缩数据。
+     *
+     * @param compressed 压缩后的数据
+     * @param rawSize    解压后的长度
+     * @return 解压后的数据
+     */
+    Buffer decompress(Buffer compressed, int rawSize);
+}
@@ -0,0 +1,68 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * SLS 支持的请求体压缩编解码器。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class CompressionCodecs {
+    public static final String LZ4 = "lz4";
+    public static final String ZSTD = "zstd";
+    public static final String DEFLATE = "deflate";
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * @return 默认的 LZ4 编解码器
+     */
+    public static CompressionCodec lz4() {
+        return Lz4CompressionCodec.INSTANCE;
+    }
+
+    /**
+     * @return 默认级别的 Zstandard 编解码器
+     */
+    public static CompressionCodec zstd() {
+        return ZstdCompressionCodec.INSTANCE;
+    }
+
+    /**
+     * @param level 压缩级别，通常为 1 至 19，越高压缩率越高、耗时越长
+     * @return 指定级别的 Zstandard 编解码器
+     */
+    public static CompressionCodec zstd(int level) {
+        if (level == ZstdCompressionCodec.DEFAULT_LEVEL) {
+            return ZstdCompressionCodec.INSTANCE;
+        }
+        return new ZstdCompressionCodec(level);
+    }
+
+    /**
+     * @return Deflate（zlib 格式）编解码器
+     */
+    public static CompressionCodec deflate() {
+        return DeflateCompressionCodec.INSTANCE;
+    }
+
+    /**
+     * 按 {@code x-log-compresstype} 的取值查找编解码器，不区分大小写。
+     *
+     * @param compressType 压缩类型名，如 {@code lz4}、{@code zstd}、{@code deflate}
+     * @return 对应的编解码器；不支持的压缩类型返回 null
+     */
+    public static @Nullable CompressionCodec forCompressType(String compressType) {
+        return switch (compressType.toLowerCase(Locale.ROOT)) {
+            case LZ4 -> lz4();
+            case ZSTD -> zstd();
+            case DEFLATE -> deflate();
+            default -> null;
+        };
+    }
+}
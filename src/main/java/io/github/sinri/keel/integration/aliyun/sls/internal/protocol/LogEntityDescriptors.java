@@ -186,4 +186,22 @@ public final class LogEntityDescriptors {
     public Descriptors.Descriptor getLogDescriptor() {
         return logDescriptor;
     }
+
+    /**
+     * 根据消息描述符中的字段定义计算该字段在 wire format 中的 tag 值，即 {@code (fieldNumber << 3) | wireType}。
+     * <p>
+     * 供流式编码器预先计算 tag 使用，避免在编码过程中按字段名查找。
+     *
+     * @param descriptor 消息描述符
+     * @param fieldName  字段名
+     * @return 字段 tag
+     * @since 5.0.4
+     */
+    public int getFieldTag(Descriptors.Descriptor descriptor, String fieldName) {
+        Descriptors.FieldDescriptor field = descriptor.findFieldByName(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Field " + fieldName + " not found in " + descriptor.getFullName());
+        }
+        return (field.getNumber() << 3) | field.getLiteType().getWireType();
+    }
 }
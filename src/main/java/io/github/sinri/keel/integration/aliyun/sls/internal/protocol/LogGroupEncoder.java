@@ -0,0 +1,413 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.EncodedLogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroupItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SLS {@code LogGroup} 的流式 Protobuf 编码器。
+ * <p>
+ * 与 {@link LogGroup#toProtobuf()} 构建 {@code DynamicMessage} 树再序列化的方式不同，本编码器先计算出精确的编码长度，
+ * 再通过 {@link CodedOutputStream} 将各字段按字段编号顺序直接写入一个恰好大小的字节数组，输出结果与
+ * {@code DynamicMessage} 的序列化结果逐字节一致。
+ * <p>
+ * 所有字段 tag 在类加载时通过 {@link LogEntityDescriptors#getFieldTag} 预先计算。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class LogGroupEncoder {
+    static final int TAG_LOG_GROUP_LOGS;
+    static final int TAG_LOG_GROUP_TOPIC;
+    static final int TAG_LOG_GROUP_SOURCE;
+    static final int TAG_LOG_GROUP_LOG_TAGS;
+    static final int TAG_LOG_TIME;
+    static final int TAG_LOG_CONTENTS;
+    static final int TAG_LOG_TIME_NS;
+    static final int TAG_CONTENT_KEY;
+    static final int TAG_CONTENT_VALUE;
+    static final int TAG_LOG_TAG_KEY;
+    static final int TAG_LOG_TAG_VALUE;
+
+    static {
+        LogEntityDescriptors descriptors = LogEntityDescriptors.getInstance();
+        var logGroupDescriptor = descriptors.getLogGroupDescriptor();
+        TAG_LOG_GROUP_LOGS = descriptors.getFieldTag(logGroupDescriptor, "Logs");
+        TAG_LOG_GROUP_TOPIC = descriptors.getFieldTag(logGroupDescriptor, "Topic");
+        TAG_LOG_GROUP_SOURCE = descriptors.getFieldTag(logGroupDescriptor, "Source");
+        TAG_LOG_GROUP_LOG_TAGS = descriptors.getFieldTag(logGroupDescriptor, "LogTags");
+        var logDescriptor = descriptors.getLogDescriptor();
+        TAG_LOG_TIME = descriptors.getFieldTag(logDescriptor, "Time");
+        TAG_LOG_CONTENTS = descriptors.getFieldTag(logDescriptor, "Contents");
+        TAG_LOG_TIME_NS = descriptors.getFieldTag(logDescriptor, "Time_ns");
+        var contentDescriptor = descriptors.getContentDescriptor();
+        TAG_CONTENT_KEY = descriptors.getFieldTag(contentDescriptor, "Key");
+        TAG_CONTENT_VALUE = descriptors.getFieldTag(contentDescriptor, "Value");
+        var logTagDescriptor = descriptors.getLogTagDescriptor();
+        TAG_LOG_TAG_KEY = descriptors.getFieldTag(logTagDescriptor, "Key");
+        TAG_LOG_TAG_VALUE = descriptors.getFieldTag(logTagDescriptor, "Value");
+    }
+
+    /**
+     * {@code Time_ns} 字段（tag + fixed32）编码后的固定字节数。
+     */
+    public static final int TIME_NS_FIELD_SIZE = CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_TIME_NS)
+            + CodedOutputStream.computeFixed32SizeNoTag(0);
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private LogGroupEncoder() {
+    }
+
+    /**
+     * 将 LogGroup 编码为 Protobuf 字节，并以零拷贝方式包装为 {@link Buffer}。
+     *
+     * @param logGroup 待编码的 LogGroup
+     * @return 编码后的 Buffer
+     */
+    public static Buffer encode(LogGroup logGroup) {
+        return BufferInternal.buffer(Unpooled.wrappedBuffer(encodeToByteArray(logGroup)));
+    }
+
+    /**
+     * 将 LogGroup 编码为恰好大小的 Protobuf 字节数组。
+     * <p>
+     * 各 LogItem 与 LogContent 的消息体长度直接取自其缓存值，不再重复扫描字符串。
+     *
+     * @param logGroup 待编码的 LogGroup
+     * @return 编码后的字节数组
+     */
+    public static byte[] encodeToByteArray(LogGroup logGroup) {
+        int totalSize = computeLogGroupSize(logGroup);
+        byte[] bytes = new byte[totalSize];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            writeLogGroup(output, logGroup);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * 将 LogGroup 直接编码进由 allocator 分配的直接内存 {@link ByteBuf}，不经过中间字节数组。
+     * <p>
+     * 返回的 ByteBuf 恰好包含编码结果（readerIndex 为 0，writerIndex 为编码长度），由调用方负责释放。
+     *
+     * @param logGroup  待编码的 LogGroup
+     * @param allocator ByteBuf 分配器，通常为池化分配器
+     * @return 编码后的 ByteBuf
+     * @since 5.0.4
+     */
+    public static ByteBuf encode(LogGroup logGroup, ByteBufAllocator allocator) {
+        int totalSize = computeLogGroupSize(logGroup);
+        ByteBuf byteBuf = allocator.directBuffer(totalSize, totalSize);
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(byteBuf.nioBuffer(0, totalSize));
+            writeLogGroup(output, logGroup);
+            output.flush();
+            output.checkNoSpaceLeft();
+            byteBuf.writerIndex(totalSize);
+            return byteBuf;
+        } catch (IOException e) {
+            byteBuf.release();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            byteBuf.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 将单条 LogItem 编码为 Protobuf {@code Log} 消息体（不含外层 tag 与长度前缀），
+     * 可经 {@link EncodedLogItem} 原样拼接进 LogGroup。
+     *
+     * @param logItem 待编码的 LogItem
+     * @return 恰好大小的字节数组
+     * @since 5.0.4
+     */
+    public static byte[] encodeLogItem(LogItem logItem) {
+        byte[] bytes = new byte[logItem.getSerializedSize()];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            writeLogItem(output, logItem);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * 将单条 LogItem 编码进给定的缓冲区，自其 position 起写入 {@link LogItem#getSerializedSize()} 个字节。
+     *
+     * @param logItem 待编码的 LogItem
+     * @param target  剩余空间恰为消息体长度的缓冲区，可以是直接内存
+     * @since 5.0.4
+     */
+    public static void encodeLogItem(LogItem logItem, ByteBuffer target) {
+        CodedOutputStream output = CodedOutputStream.newInstance(target);
+        try {
+            writeLogItem(output, logItem);
+            output.flush();
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 从 {@link #encodeLogItem(LogItem)} 的编码结果中解出各 LogContent，内容值保留为 UTF-8 字节。
+     *
+     * @param encoded {@code Log} 消息体，自 position 读至 limit
+     * @return 按编码顺序排列的内容
+     * @since 5.0.4
+     */
+    public static List<LogContent> decodeLogItemContents(ByteBuffer encoded) {
+        List<LogContent> contents = new ArrayList<>();
+        CodedInputStream input = CodedInputStream.newInstance(encoded);
+        try {
+            while (true) {
+                int tag = input.readTag();
+                if (tag == 0) {
+                    return contents;
+                }
+                if (tag != TAG_LOG_CONTENTS) {
+                    input.skipField(tag);
+                    continue;
+                }
+                int limit = input.pushLimit(input.readRawVarint32());
+                String key = "";
+                byte[] value = EMPTY_BYTES;
+                while (true) {
+                    int contentTag = input.readTag();
+                    if (contentTag == 0) {
+                        break;
+                    }
+                    if (contentTag == TAG_CONTENT_KEY) {
+                        key = input.readStringRequireUtf8();
+                    } else if (contentTag == TAG_CONTENT_VALUE) {
+                        value = input.readByteArray();
+                    } else {
+                        input.skipField(contentTag);
+                    }
+                }
+                input.popLimit(limit);
+                contents.add(new LogContent(key, value));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 计算 LogGroup 编码后的总字节数。
+     *
+     * @param logGroup LogGroup
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogGroupSize(LogGroup logGroup) {
+        int totalSize = computeLogGroupHeaderSize(logGroup.getTopic(), logGroup.getSource());
+        for (LogGroupItem logItem : logGroup.getLogItems()) {
+            totalSize += computeLogItemFieldSize(logItem.getSerializedSize());
+        }
+        for (LogTag logTag : logGroup.getLogTags()) {
+            totalSize += computeLogTagFieldSize(logTag);
+        }
+        return totalSize;
+    }
+
+    /**
+     * 计算 LogGroup 中 Topic 与 Source 字段编码后的字节数。
+     *
+     * @param topic  主题，为 null 时不编码
+     * @param source 来源，为 null 时不编码
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogGroupHeaderSize(@Nullable String topic, @Nullable String source) {
+        int size = 0;
+        if (topic != null) {
+            size += CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_GROUP_TOPIC)
+                    + CodedOutputStream.computeStringSizeNoTag(topic);
+        }
+        if (source != null) {
+            size += CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_GROUP_SOURCE)
+                    + CodedOutputStream.computeStringSizeNoTag(source);
+        }
+        return size;
+    }
+
+    /**
+     * 计算一条 LogItem 作为 LogGroup 的 {@code Logs} 字段编码后的字节数（tag + 长度前缀 + 消息体）。
+     *
+     * @param logItemSize LogItem 的消息体长度
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogItemFieldSize(int logItemSize) {
+        return computeEmbeddedSize(TAG_LOG_GROUP_LOGS, logItemSize);
+    }
+
+    /**
+     * 计算一个 LogTag 作为 LogGroup 的 {@code LogTags} 字段编码后的字节数（tag + 长度前缀 + 消息体）。
+     *
+     * @param logTag 日志标签
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogTagFieldSize(LogTag logTag) {
+        return computeEmbeddedSize(TAG_LOG_GROUP_LOG_TAGS, computeLogTagSize(logTag));
+    }
+
+    /**
+     * 计算仅含 {@code Time} 字段的 LogItem 的消息体长度。
+     *
+     * @param time 日志时间（秒）
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogItemBaseSize(int time) {
+        return CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_TIME)
+                + CodedOutputStream.computeUInt32SizeNoTag(time);
+    }
+
+    /**
+     * 计算一条 LogContent 作为 LogItem 的 {@code Contents} 字段编码后的字节数（tag + 长度前缀 + 消息体）。
+     *
+     * @param logContentSize LogContent 的消息体长度
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeContentFieldSize(int logContentSize) {
+        return computeEmbeddedSize(TAG_LOG_CONTENTS, logContentSize);
+    }
+
+    /**
+     * 计算单个 LogContent 的消息体长度（不含外层 tag 与长度前缀）。
+     *
+     * @param key   内容键
+     * @param value 内容值
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogContentSize(String key, String value) {
+        return CodedOutputStream.computeUInt32SizeNoTag(TAG_CONTENT_KEY)
+                + CodedOutputStream.computeStringSizeNoTag(key)
+                + CodedOutputStream.computeUInt32SizeNoTag(TAG_CONTENT_VALUE)
+                + CodedOutputStream.computeStringSizeNoTag(value);
+    }
+
+    /**
+     * 计算值为 UTF-8 字节的单个 LogContent 的消息体长度（不含外层 tag 与长度前缀）。
+     *
+     * @param key       内容键
+     * @param utf8Value UTF-8 编码的内容值
+     * @return 字节数
+     * @since 5.0.4
+     */
+    public static int computeLogContentSize(String key, byte[] utf8Value) {
+        return CodedOutputStream.computeUInt32SizeNoTag(TAG_CONTENT_KEY)
+                + CodedOutputStream.computeStringSizeNoTag(key)
+                + CodedOutputStream.computeUInt32SizeNoTag(TAG_CONTENT_VALUE)
+                + CodedOutputStream.computeByteArraySizeNoTag(utf8Value);
+    }
+
+    private static int computeLogTagSize(LogTag logTag) {
+        return CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_TAG_KEY)
+                + CodedOutputStream.computeStringSizeNoTag(logTag.getKey())
+                + CodedOutputStream.computeUInt32SizeNoTag(TAG_LOG_TAG_VALUE)
+                + CodedOutputStream.computeStringSizeNoTag(logTag.getValue());
+    }
+
+    /**
+     * 计算一个嵌套消息字段（tag + 长度前缀 + 消息体）的总长度。
+     */
+    private static int computeEmbeddedSize(int tag, int messageSize) {
+        return CodedOutputStream.computeUInt32SizeNoTag(tag)
+                + CodedOutputStream.computeUInt32SizeNoTag(messageSize)
+                + messageSize;
+    }
+
+    /**
+     * 按字段编号顺序（Logs=1, Topic=3, Source=4, LogTags=6）写入 LogGroup，与 {@code DynamicMessage} 的序列化顺序一致。
+     */
+    private static void writeLogGroup(CodedOutputStream output, LogGroup logGroup) throws IOException {
+        for (LogGroupItem logItem : logGroup.getLogItems()) {
+            output.writeUInt32NoTag(TAG_LOG_GROUP_LOGS);
+            output.writeUInt32NoTag(logItem.getSerializedSize());
+            logItem.writeTo(output);
+        }
+        String topic = logGroup.getTopic();
+        if (topic != null) {
+            output.writeUInt32NoTag(TAG_LOG_GROUP_TOPIC);
+            output.writeStringNoTag(topic);
+        }
+        String source = logGroup.getSource();
+        if (source != null) {
+            output.writeUInt32NoTag(TAG_LOG_GROUP_SOURCE);
+            output.writeStringNoTag(source);
+        }
+        for (LogTag logTag : logGroup.getLogTags()) {
+            output.writeUInt32NoTag(TAG_LOG_GROUP_LOG_TAGS);
+            output.writeUInt32NoTag(computeLogTagSize(logTag));
+            output.writeUInt32NoTag(TAG_LOG_TAG_KEY);
+            output.writeStringNoTag(logTag.getKey());
+            output.writeUInt32NoTag(TAG_LOG_TAG_VALUE);
+            output.writeStringNoTag(logTag.getValue());
+        }
+    }
+
+    /**
+     * 逐字段写入 LogItem 的 {@code Log} 消息体（不含外层 tag 与长度前缀），按字段编号顺序（Time=1, Contents=2, Time_ns=4）。
+     *
+     * @param output  输出流
+     * @param logItem 待编码的 LogItem
+     * @throws IOException 写入失败
+     * @see LogItem#writeTo(CodedOutputStream)
+     * @since 5.0.4
+     */
+    public static void writeLogItem(CodedOutputStream output, LogItem logItem) throws IOException {
+        output.writeUInt32NoTag(TAG_LOG_TIME);
+        output.writeUInt32NoTag(logItem.getTime());
+        for (LogContent content : logItem.getContents()) {
+            output.writeUInt32NoTag(TAG_LOG_CONTENTS);
+            output.writeUInt32NoTag(content.getSerializedSize());
+            output.writeUInt32NoTag(TAG_CONTENT_KEY);
+            output.writeStringNoTag(content.getKey());
+            output.writeUInt32NoTag(TAG_CONTENT_VALUE);
+            byte[] utf8Value = content.getUtf8Value();
+            if (utf8Value != null) {
+                // Same wire format as a string field: length prefix followed by the UTF-8 bytes
+                output.writeByteArrayNoTag(utf8Value);
+            } else {
+                output.writeStringNoTag(content.getValue());
+            }
+        }
+        Integer nanoPartOfTime = logItem.getNanoPartOfTime();
+        if (nanoPartOfTime != null) {
+            output.writeUInt32NoTag(TAG_LOG_TIME_NS);
+            output.writeFixed32NoTag(nanoPartOfTime);
+        }
+    }
+}
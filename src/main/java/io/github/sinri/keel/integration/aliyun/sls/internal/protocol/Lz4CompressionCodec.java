@@ -0,0 +1,55 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * LZ4 压缩编解码器，基于 {@link Lz4Utils}。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class Lz4CompressionCodec implements CompressionCodec {
+    static final Lz4CompressionCodec INSTANCE = new Lz4CompressionCodec();
+
+    private Lz4CompressionCodec() {
+    }
+
+    @Override
+    public String getCompressType() {
+        return CompressionCodecs.LZ4;
+    }
+
+    @Override
+    public Buffer compress(Buffer raw) {
+        return Lz4Utils.compress(raw);
+    }
+
+    @Override
+    public ByteBuf compress(ByteBuf raw, ByteBufAllocator allocator) {
+        int rawLength = raw.readableBytes();
+        if (rawLength == 0) {
+            return allocator.directBuffer(0);
+        }
+        int maxCompressedLength = Lz4Utils.compressor.maxCompressedLength(rawLength);
+        ByteBuf compressed = allocator.directBuffer(maxCompressedLength);
+        try {
+            int compressedLength = Lz4Utils.compressor.compress(
+                    raw.nioBuffer(raw.readerIndex(), rawLength), 0, rawLength,
+                    compressed.nioBuffer(0, maxCompressedLength), 0, maxCompressedLength
+            );
+            compressed.writerIndex(compressedLength);
+            return compressed;
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Buffer decompress(Buffer compressed, int rawSize) {
+        return Lz4Utils.decompress(compressed, rawSize);
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Zstandard 压缩编解码器，基于 zstd-jni。
+ * <p>
+ * 每个线程复用一个已设置好压缩级别的 {@link ZstdCompressCtx}，避免每次压缩创建并释放原生上下文。
+ * 对 JSON 较多的日志内容，压缩率通常明显优于 LZ4，但压缩耗时更高。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+final class ZstdCompressionCodec implements CompressionCodec {
+    /**
+     * 默认压缩级别，与 zstd 命令行的默认级别一致。
+     */
+    static final int DEFAULT_LEVEL = 3;
+    static final ZstdCompressionCodec INSTANCE = new ZstdCompressionCodec(DEFAULT_LEVEL);
+
+    private final ThreadLocal<ZstdCompressCtx> compressContext;
+
+    ZstdCompressionCodec(int level) {
+        this.compressContext = ThreadLocal.withInitial(() -> {
+            ZstdCompressCtx context = new ZstdCompressCtx();
+            context.setLevel(level);
+            return context;
+        });
+    }
+
+    @Override
+    public String getCompressType() {
+        return CompressionCodecs.ZSTD;
+    }
+
+    @Override
+    public Buffer compress(Buffer raw) {
+        if (raw.length() == 0) {
+            return Buffer.buffer();
+        }
+        return Buffer.buffer(compressContext.get().compress(raw.getBytes()));
+    }
+
+    @Override
+    public ByteBuf compress(ByteBuf raw, ByteBufAllocator allocator) {
+        int rawLength = raw.readableBytes();
+        if (rawLength == 0) {
+            return allocator.directBuffer(0);
+        }
+        if (!raw.isDirect() || raw.nioBufferCount() != 1) {
+            return CompressionCodec.super.compress(raw, allocator);
+        }
+        int maxCompressedLength = Math.toIntExact(Zstd.compressBound(rawLength));
+        ByteBuf compressed = allocator.directBuffer(maxCompressedLength);
+        try {
+            int compressedLength = compressContext.get().compressDirectByteBuffer(
+                    compressed.nioBuffer(0, maxCompressedLength), 0, maxCompressedLength,
+                    raw.nioBuffer(raw.readerIndex(), rawLength), 0, rawLength
+            );
+            compressed.writerIndex(compressedLength);
+            return compressed;
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Buffer decompress(Buffer compressed, int rawSize) {
+        if (compressed.length() == 0) {
+            return Buffer.buffer();
+        }
+        return Buffer.buffer(Zstd.decompress(compressed.getBytes(), rawSize));
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.sign;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * 绑定一组 AccessKey 的 SLS LOG 签名器（HMAC-SHA1），面向高频请求复用。
+ * <p>
+ * 与 {@link AliyunSlsSignatureKit#calculateSignature} 逐次创建 {@link Mac}、排序请求头的方式不同：
+ * <ul>
+ *     <li>每个线程持有一个已用密钥初始化的 {@link Mac}，{@link Mac#doFinal()} 后自动复位，可直接复用；</li>
+ *     <li>每个线程复用一个待签名串构建器，由调用方按名称升序依次追加 {@code x-log-}/{@code x-acs-} 请求头，无需排序；</li>
+ *     <li>{@code Date} 请求头按秒缓存，同一秒内的请求共享同一个字符串。</li>
+ * </ul>
+ * 生成的签名与 {@link AliyunSlsSignatureKit#calculateSignature} 完全一致。
+ *
+ * @see <a href="https://help.aliyun.com/zh/sls/developer-reference/request-signatures">请求签名</a>
+ * @since 5.0.4
+ */
+@NullMarked
+public final class AliyunSlsRequestSigner {
+    private static final String HMAC_SHA1 = "HmacSHA1";
+    private static final DateTimeFormatter GMT_DATE_FORMATTER = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+            .withZone(ZoneOffset.UTC);
+    private static volatile CachedDate cachedDate = new CachedDate(Long.MIN_VALUE, "");
+
+    private final String authorizationPrefix;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<MessageBuilder> messageBuilder;
+
+    /**
+     * @param accessKeyId     AccessKey ID
+     * @param accessKeySecret AccessKey Secret
+     */
+    public AliyunSlsRequestSigner(String accessKeyId, String accessKeySecret) {
+        this.authorizationPrefix = "LOG " + accessKeyId + ":";
+        SecretKeySpec signingKey = new SecretKeySpec(accessKeySecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA1);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_SHA1);
+                instance.init(signingKey);
+                return instance;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.messageBuilder = ThreadLocal.withInitial(MessageBuilder::new);
+    }
+
+    /**
+     * 获取当前时间的 RFC 1123 格式 GMT 时间，用作 {@code Date} 请求头，按秒缓存。
+     *
+     * @return 如 {@code Wed, 14 Jan 2026 12:34:56 GMT}
+     */
+    public static String currentGmtDate() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        CachedDate cached = cachedDate;
+        if (cached.epochSecond() == epochSecond) {
+            return cached.value();
+        }
+        String value = formatGmtDate(epochSecond);
+        cachedDate = new CachedDate(epochSecond, value);
+        return value;
+    }
+
+    static String formatGmtDate(long epochSecond) {
+        return GMT_DATE_FORMATTER.format(Instant.ofEpochSecond(epochSecond));
+    }
+
+    /**
+     * 开始构建一个待签名串。
+     * <p>
+     * 返回的构建器属于当前线程并被复用，须在同一线程内完成 {@link MessageBuilder#sign} 或
+     * {@link MessageBuilder#authorization}，且不可跨请求保存。
+     *
+     * @param method      HTTP method
+     * @param contentMd5  Content-MD5 请求头的值，无请求体时为 null
+     * @param contentType Content-Type 请求头的值，无请求体时为 null
+     * @param date        Date 请求头的值
+     * @return 待签名串构建器
+     */
+    public MessageBuilder message(String method, @Nullable String contentMd5, @Nullable String contentType, String date) {
+        return messageBuilder.get().reset(method, contentMd5, contentType, date);
+    }
+
+    /**
+     * 待签名串构建器，按 SLS 规范的固定顺序拼接各行。
+     */
+    public final class MessageBuilder {
+        private final StringBuilder message = new StringBuilder(256);
+        private byte[] encoded = new byte[256];
+        private @Nullable String lastHeaderName;
+
+        private MessageBuilder() {
+        }
+
+        private MessageBuilder reset(String method, @Nullable String contentMd5, @Nullable String contentType, String date) {
+            message.setLength(0);
+            lastHeaderName = null;
+            message.append(method).append('\n');
+            if (contentMd5 != null) {
+                message.append(contentMd5);
+            }
+            message.append('\n');
+            if (contentType != null) {
+                message.append(contentType);
+            }
+            message.append('\n');
+            message.append(date).append('\n');
+            return this;
+        }
+
+        /**
+         * 追加一个参与签名的 {@code x-log-} 或 {@code x-acs-} 请求头；必须按名称升序调用。
+         *
+         * @param name  小写的请求头名称
+         * @param value 请求头的值
+         * @return 本构建器
+         * @throws IllegalArgumentException 请求头未按名称升序追加
+         */
+        public MessageBuilder header(String name, String value) {
+            if (lastHeaderName != null && lastHeaderName.compareTo(name) >= 0) {
+                throw new IllegalArgumentException("Signed headers must be added in ascending order, got "
+                        + name + " after " + lastHeaderName);
+            }
+            lastHeaderName = name;
+            message.append(name).append(':').append(value).append('\n');
+            return this;
+        }
+
+        /**
+         * 以资源路径结束待签名串并计算签名。
+         *
+         * @param uri     资源路径
+         * @param queries 查询字符串（不含 {@code ?}），可为 null
+         * @return Base64 编码的签名
+         */
+        public String sign(String uri, @Nullable String queries) {
+            message.append(uri);
+            if (queries != null && !queries.isBlank()) {
+                message.append('?').append(queries);
+            }
+            Mac instance = mac.get();
+            int length = encodeAscii();
+            if (length >= 0) {
+                instance.update(encoded, 0, length);
+            } else {
+                instance.update(message.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return Base64.getEncoder().encodeToString(instance.doFinal());
+        }
+
+        /**
+         * 以资源路径结束待签名串，计算签名并生成 {@code Authorization} 请求头的值。
+         *
+         * @param uri     资源路径
+         * @param queries 查询字符串（不含 {@code ?}），可为 null
+         * @return 形如 {@code LOG <AccessKeyId>:<Signature>} 的值
+         */
+        public String authorization(String uri, @Nullable String queries) {
+            return authorizationPrefix + sign(uri, queries);
+        }
+
+        /**
+         * 将纯 ASCII 的待签名串写入复用的字节数组。
+         *
+         * @return 字节数；含非 ASCII 字符时返回 -1
+         */
+        private int encodeAscii() {
+            int length = message.length();
+            if (encoded.length < length) {
+                encoded = Arrays.copyOf(encoded, Math.max(length, encoded.length * 2));
+            }
+            for (int i = 0; i < length; i++) {
+                char c = message.charAt(i);
+                if (c >= 0x80) {
+                    return -1;
+                }
+                encoded[i] = (byte) c;
+            }
+            return length;
+        }
+    }
+
+    private record CachedDate(long epochSecond, String value) {
+    }
+}
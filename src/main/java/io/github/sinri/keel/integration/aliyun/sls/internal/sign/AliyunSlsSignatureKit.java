@@ -1,19 +1,32 @@
 package io.github.sinri.keel.integration.aliyun.sls.internal.sign;
 
 import io.github.sinri.keel.core.utils.DigestUtils;
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.buffer.Buffer;
 import org.jspecify.annotations.Nullable;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
 
 
 public class AliyunSlsSignatureKit {
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final ThreadLocal<MessageDigest> md5Digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     /**
      * Calculate SLS LOG signature (HMAC-SHA1).
      * <p>
@@ -30,6 +43,7 @@ public class AliyunSlsSignatureKit {
      * @return Base64-encoded signature
      * @see <a href="https://help.aliyun.com/zh/sls/developer-reference/common-request-headers">日志服务API的公共请求头信息</a>
      * @see <a href="https://help.aliyun.com/zh/sls/developer-reference/request-signatures">请求签名</a>
+     * @see AliyunSlsRequestSigner 高频签名场景下可复用的签名器
      */
     public static String calculateSignature(
             String method,
@@ -64,6 +78,28 @@ public class AliyunSlsSignatureKit {
         return DigestUtils.MD5(body.getBytes());
     }
 
+    /**
+     * 计算 ByteBuf 可读字节的 MD5（大写十六进制），直接读取其底层内存，不拷贝到堆内字节数组，也不改变读写索引。
+     *
+     * @param body HTTP request body
+     * @return Content-MD5 header value
+     * @since 5.0.4
+     */
+    public static String contentMd5(ByteBuf body) {
+        MessageDigest digest = md5Digest.get();
+        digest.reset();
+        for (ByteBuffer component : body.nioBuffers(body.readerIndex(), body.readableBytes())) {
+            digest.update(component);
+        }
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = UPPER_HEX_DIGITS[(hash[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = UPPER_HEX_DIGITS[hash[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+
     static String buildSignatureMessage(
             String method,
             @Nullable String contentType,
@@ -72,9 +108,13 @@ public class AliyunSlsSignatureKit {
             String uri,
             @Nullable String queries
     ) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(256);
         sb.append(method).append("\n");
-        sb.append(findHeaderValue(headers, "Content-MD5").orElse("")).append("\n");
+        String contentMd5 = findHeaderValue(headers, "Content-MD5");
+        if (contentMd5 != null) {
+            sb.append(contentMd5);
+        }
+        sb.append("\n");
         if (contentType != null) {
             sb.append(contentType).append("\n");
         } else {
@@ -82,11 +122,18 @@ public class AliyunSlsSignatureKit {
         }
         sb.append(date).append("\n");
 
-        List<String> headerLines = headers.keySet().stream()
-                                          .filter(headerName -> headerName.startsWith("x-log-") || headerName.startsWith("x-acs-"))
-                                          .sorted().map(x -> x + ":" + headers.get(x))
-                                          .toList();
-        headerLines.forEach(x -> sb.append(x).append("\n"));
+        String[] signedHeaderNames = new String[headers.size()];
+        int signedHeaderCount = 0;
+        for (String headerName : headers.keySet()) {
+            if (headerName.startsWith("x-log-") || headerName.startsWith("x-acs-")) {
+                signedHeaderNames[signedHeaderCount++] = headerName;
+            }
+        }
+        Arrays.sort(signedHeaderNames, 0, signedHeaderCount);
+        for (int i = 0; i < signedHeaderCount; i++) {
+            String headerName = signedHeaderNames[i];
+            sb.append(headerName).append(":").append(headers.get(headerName)).append("\n");
+        }
 
         sb.append(uri);
         if (queries != null && !queries.isBlank()) {
@@ -95,12 +142,17 @@ public class AliyunSlsSignatureKit {
         return sb.toString();
     }
 
-    private static Optional<String> findHeaderValue(Map<String, String> headers, String headerName) {
-        return headers.entrySet()
-                      .stream()
-                      .filter(entry -> entry.getKey().equalsIgnoreCase(headerName))
-                      .map(Map.Entry::getValue)
-                      .findFirst();
+    private static @Nullable String findHeaderValue(Map<String, String> headers, String headerName) {
+        String value = headers.get(headerName);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(headerName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
     }
 
     /**
@@ -108,13 +160,12 @@ public class AliyunSlsSignatureKit {
      * <p>
      * This method generates a date string in RFC1123 format, which is used in the Date header
      * and signature calculation for Aliyun SLS API requests.
+     * <p>
+     * Since 5.0.4, the value is cached per second by {@link AliyunSlsRequestSigner#currentGmtDate()}.
      *
      * @return Date string in RFC1123 format (e.g., "Wed, 14 Jan 2026 12:34:56 GMT")
      */
     public static String getGMTDate() {
-        var RFC1123_PATTERN = "EEE, dd MMM yyyy HH:mm:ss z";
-        SimpleDateFormat sdf = new SimpleDateFormat(RFC1123_PATTERN, Locale.US);
-        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-        return sdf.format(new Date());
+        return AliyunSlsRequestSigner.currentGmtDate();
     }
 }
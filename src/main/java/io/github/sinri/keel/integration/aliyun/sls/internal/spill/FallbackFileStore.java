@@ -0,0 +1,394 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroupItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 降级文件：将最终未能送达的 LogGroup 以紧凑的 NDJSON 追加到按大小与时间滚动的本地文件，供 SLS 恢复后重新写入。
+ * <p>
+ * 每行对应一个 LogGroup，格式为：
+ * <pre>
+ * {"project":…,"logstore":…,"topic":…,"source":…,"tags":[k,v,…],"logs":[{"time":…,"nano":…,"contents":[k,v,…]}]}
+ * </pre>
+ * 标签与字段写为键值交替的扁平数组，保留重复的键与原有顺序；字段值直接从 UTF-8 字节写出，不经字符串解码。
+ * <p>
+ * 写入经由一块较大的直接内存缓冲区，满后或调用 {@link #flush()} 时通过同一个 {@link FileChannel} 一次写入当前文件。
+ * 当前文件以 {@code .ndjson.active} 结尾，达到 {@code rotateBytes} 或自创建起超过 {@code rotateMs} 后关闭并更名为 {@code .ndjson}，
+ * 只有已关闭的文件会由 {@link #listClosedFiles()} 列出以供重新写入，写入完成后通过 {@link #delete(Path)} 删除。
+ * 重新打开目录时，上次遗留的 {@code .ndjson.active} 文件直接视为已关闭；进程崩溃时缓冲区中尚未写出的内容会丢失，
+ * 文件末尾可能留下不完整的一行，{@link #decode(String)} 对其返回 null。
+ * <p>
+ * 所有方法均为同步方法，且涉及文件 IO，不应在事件循环线程上调用。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class FallbackFileStore implements Closeable {
+    /**
+     * 默认的单个文件滚动大小。
+     */
+    public static final long DEFAULT_ROTATE_BYTES = 64L * 1024 * 1024;
+    /**
+     * 默认的文件滚动间隔（毫秒）。
+     */
+    public static final long DEFAULT_ROTATE_MS = 60_000L;
+    /**
+     * 默认的降级文件总容量上限。
+     */
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 1024L * 1024 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final String FILE_PREFIX = "fallback-";
+    private static final String CLOSED_SUFFIX = ".ndjson";
+    private static final String ACTIVE_SUFFIX = ".ndjson.active";
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .build();
+
+    private final Path directory;
+    private final long rotateBytes;
+    private final long rotateMs;
+    private final long maxTotalBytes;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final JsonGenerator generator;
+    private final TreeMap<Path, Long> closedFiles;
+    private long closedBytes;
+    private long sequence;
+
+    private @Nullable FileChannel activeChannel;
+    private @Nullable Path activeFile;
+    private long activeCreatedAt;
+    private boolean closed;
+
+    private FallbackFileStore(Path directory, long rotateBytes, long rotateMs, long maxTotalBytes, TreeMap<Path, Long> closedFiles) throws IOException {
+        this.directory = directory;
+        this.rotateBytes = rotateBytes;
+        this.rotateMs = rotateMs;
+        this.maxTotalBytes = maxTotalBytes;
+        this.closedFiles = closedFiles;
+        this.closedBytes = closedFiles.values().stream().mapToLong(Long::longValue).sum();
+        this.generator = JSON_FACTORY.createGenerator(new BufferOutputStream(), JsonEncoding.UTF8);
+    }
+
+    /**
+     * 打开（或创建）指定目录下的降级文件。
+     *
+     * @param directory     存放降级文件的目录，不存在时自动创建
+     * @param rotateBytes   单个文件的滚动大小
+     * @param rotateMs      文件的滚动间隔（毫秒）
+     * @param maxTotalBytes 降级文件总容量上限
+     * @return 降级文件
+     * @throws IOException 目录不可用
+     */
+    public static FallbackFileStore open(Path directory, long rotateBytes, long rotateMs, long maxTotalBytes) throws IOException {
+        if (rotateBytes < 1 || rotateMs < 1 || maxTotalBytes < 1) {
+            throw new IllegalArgumentException("rotateBytes, rotateMs and maxTotalBytes must be positive");
+        }
+        Files.createDirectories(directory);
+        TreeMap<Path, Long> closedFiles = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (!name.startsWith(FILE_PREFIX)) {
+                    continue;
+                }
+                if (name.endsWith(ACTIVE_SUFFIX)) {
+                    Path closedPath = path.resolveSibling(name.substring(0, name.length() - ACTIVE_SUFFIX.length()) + CLOSED_SUFFIX);
+                    Files.move(path, closedPath, StandardCopyOption.ATOMIC_MOVE);
+                    closedFiles.put(closedPath, Files.size(closedPath));
+                } else if (name.endsWith(CLOSED_SUFFIX)) {
+                    closedFiles.put(path, Files.size(path));
+                }
+            }
+        }
+        return new FallbackFileStore(directory, rotateBytes, rotateMs, maxTotalBytes, closedFiles);
+    }
+
+    /**
+     * 解析降级文件中的一行。
+     *
+     * @param line 一行 NDJSON
+     * @return 解析结果；该行不完整或格式错误时为 null
+     */
+    public static @Nullable FallbackRecord decode(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonObject json = new JsonObject(line);
+            LogGroup logGroup = new LogGroup(json.getString("topic"), json.getString("source"));
+            JsonArray tags = json.getJsonArray("tags", new JsonArray());
+            for (int i = 0; i + 1 < tags.size(); i += 2) {
+                logGroup.addLogTag(new LogTag(tags.getString(i), tags.getString(i + 1)));
+            }
+            JsonArray logs = json.getJsonArray("logs", new JsonArray());
+            for (int i = 0; i < logs.size(); i++) {
+                JsonObject log = logs.getJsonObject(i);
+                LogItem logItem = new LogItem(log.getInteger("time"));
+                logItem.setNanoPartOfTime(log.getInteger("nano"));
+                JsonArray contents = log.getJsonArray("contents", new JsonArray());
+                for (int j = 0; j + 1 < contents.size(); j += 2) {
+                    logItem.addContent(contents.getString(j), contents.getString(j + 1));
+                }
+                logGroup.addLogItem(logItem);
+            }
+            String project = json.getString("project");
+            String logstore = json.getString("logstore");
+            if (project == null || logstore == null) {
+                return null;
+            }
+            return new FallbackRecord(project, logstore, logGroup);
+        } catch (DecodeException | ClassCastException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 追加一个 LogGroup，写入缓冲区；需要时先滚动到新文件。
+     *
+     * @param record 未能送达的 LogGroup
+     * @return 写入成功返回 true；降级文件总容量已满时返回 false
+     * @throws IOException 写入文件失败
+     */
+    public synchronized boolean append(FallbackRecord record) throws IOException {
+        ensureOpen();
+        long now = System.currentTimeMillis();
+        if (activeChannel != null && (activeSize() >= rotateBytes || now - activeCreatedAt >= rotateMs)) {
+            rotate();
+        }
+        if (closedBytes + activeSize() >= maxTotalBytes) {
+            return false;
+        }
+        if (activeChannel == null) {
+            openActiveFile(now);
+        }
+        writeLine(record);
+        return true;
+    }
+
+    /**
+     * 将缓冲区写入当前文件；当前文件已超过滚动间隔时将其关闭，使其可被重新写入。
+     *
+     * @throws IOException 写入文件失败
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        if (activeChannel == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - activeCreatedAt >= rotateMs) {
+            rotate();
+        } else {
+            drainWriteBuffer();
+        }
+    }
+
+    /**
+     * @return 已关闭、可重新写入的文件，按创建顺序排列
+     */
+    public synchronized List<Path> listClosedFiles() {
+        return new ArrayList<>(closedFiles.keySet());
+    }
+
+    /**
+     * 删除已重新写入的文件。
+     *
+     * @param file {@link #listClosedFiles()} 列出的文件
+     * @throws IOException 删除失败
+     */
+    public synchronized void delete(Path file) throws IOException {
+        Long size = closedFiles.remove(file);
+        if (size != null) {
+            closedBytes -= size;
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @return 降级文件（含缓冲区中尚未写出的内容）的总字节数
+     */
+    public synchronized long getTotalBytes() {
+        return closedBytes + activeSize();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 写出缓冲区并关闭当前文件。
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (activeChannel != null) {
+                rotate();
+            }
+        } finally {
+            closed = true;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Fallback file store is closed");
+        }
+    }
+
+    private long activeSize() {
+        FileChannel channel = this.activeChannel;
+        if (channel == null) {
+            return 0;
+        }
+        try {
+            return channel.position() + writeBuffer.position();
+        } catch (IOException e) {
+            return writeBuffer.position();
+        }
+    }
+
+    private void openActiveFile(long now) throws IOException {
+        // Zero-padded so that names sort in creation order
+        String name = String.format("%s%013d-%06d%s", FILE_PREFIX, now, sequence++ % 1_000_000, ACTIVE_SUFFIX);
+        Path file = directory.resolve(name);
+        this.activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.activeFile = file;
+        this.activeCreatedAt = now;
+    }
+
+    private void rotate() throws IOException {
+        FileChannel channel = this.activeChannel;
+        Path file = this.activeFile;
+        if (channel == null || file == null) {
+            return;
+        }
+        try {
+            drainWriteBuffer();
+        } finally {
+            channel.close();
+            this.activeChannel = null;
+            this.activeFile = null;
+        }
+        String name = file.getFileName().toString();
+        Path closedPath = file.resolveSibling(name.substring(0, name.length() - ACTIVE_SUFFIX.length()) + CLOSED_SUFFIX);
+        Files.move(file, closedPath, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(closedPath);
+        closedFiles.put(closedPath, size);
+        closedBytes += size;
+    }
+
+    private void writeLine(FallbackRecord record) throws IOException {
+        LogGroup logGroup = record.logGroup();
+        generator.writeStartObject();
+        generator.writeStringField("project", record.project());
+        generator.writeStringField("logstore", record.logstore());
+        if (logGroup.getTopic() != null) {
+            generator.writeStringField("topic", logGroup.getTopic());
+        }
+        if (logGroup.getSource() != null) {
+            generator.writeStringField("source", logGroup.getSource());
+        }
+        generator.writeArrayFieldStart("tags");
+        for (LogTag logTag : logGroup.getLogTags()) {
+            generator.writeString(logTag.getKey());
+            generator.writeString(logTag.getValue());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("logs");
+        for (LogGroupItem logItem : logGroup.getLogItems()) {
+            generator.writeStartObject();
+            generator.writeNumberField("time", logItem.getTime());
+            if (logItem.getNanoPartOfTime() != null) {
+                generator.writeNumberField("nano", logItem.getNanoPartOfTime());
+            }
+            generator.writeArrayFieldStart("contents");
+            for (LogContent content : logItem.getContents()) {
+                generator.writeString(content.getKey());
+                byte[] utf8Value = content.getUtf8Value();
+                if (utf8Value != null) {
+                    generator.writeUTF8String(utf8Value, 0, utf8Value.length);
+                } else {
+                    generator.writeString(content.getValue());
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        // Moves the generator's own buffer into the write buffer, the file is written only when that one is full
+        generator.flush();
+    }
+
+    private void drainWriteBuffer() throws IOException {
+        FileChannel channel = this.activeChannel;
+        if (channel == null) {
+            writeBuffer.clear();
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    /**
+     * 生成器的输出：写入直接内存缓冲区，满后写入当前文件。
+     */
+    private final class BufferOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            if (!writeBuffer.hasRemaining()) {
+                drainWriteBuffer();
+            }
+            writeBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!writeBuffer.hasRemaining()) {
+                    drainWriteBuffer();
+                }
+                int chunk = Math.min(length, writeBuffer.remaining());
+                writeBuffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * 降级文件中的一行：目标 Project 与 Logstore，以及未能送达的 LogGroup。
+ *
+ * @param project  Project name
+ * @param logstore Logstore name
+ * @param logGroup 未能送达的 LogGroup
+ * @since 5.0.4
+ */
+@NullMarked
+public record FallbackRecord(String project, String logstore, LogGroup logGroup) {
+}
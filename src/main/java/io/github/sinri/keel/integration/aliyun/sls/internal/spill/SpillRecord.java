@@ -0,0 +1,17 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * 落盘的一次 PutLogs 请求：目标 Project 与 Logstore，以及已压缩的 LogGroup 请求体。
+ *
+ * @param project      Project name
+ * @param logstore     Logstore name
+ * @param compressType 请求体的压缩类型，即 {@code x-log-compresstype}
+ * @param rawSize      压缩前的 LogGroup 字节数，即 {@code x-log-bodyrawsize}
+ * @param payload      压缩后的 LogGroup 字节
+ * @since 5.0.4
+ */
+@NullMarked
+public record SpillRecord(String project, String logstore, String compressType, int rawSize, byte[] payload) {
+}
@@ -0,0 +1,445 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 基于内存映射段文件的落盘队列（WAL），用于在 SLS 不可用时暂存无法送达的 PutLogs 请求体。
+ * <p>
+ * 记录顺序追加到固定大小、预分配并以 {@link FileChannel.MapMode#READ_WRITE} 映射的段文件中，每条记录的格式为：
+ * <pre>
+ * [int bodyLength][int crc32c(body)][body]
+ * body = [int rawSize][short projectLength][project][short logstoreLength][logstore]
+ *        [short compressTypeLength][compressType][payload]
+ * </pre>
+ * 写入时先写 body 与校验和，最后写长度，因此长度为 0 即表示段内没有更多记录。
+ * 当前段放不下新记录时滚动到下一段；段数达到上限时拒绝写入，由调用方自行降级。
+ * <p>
+ * 读取按写入顺序进行：{@link #peek()} 返回下一条记录，确认送达后调用 {@link #commit()} 推进读位置并写入检查点，
+ * 读完的段文件随即删除。进程重启后从检查点继续读取，检查点之后、确认之前崩溃会导致该记录重放，即至少一次送达。
+ * 校验失败的记录视为损坏，跳过所在段的剩余部分并计入 {@link #getCorruptedRecords()}。
+ * <p>
+ * 写入依赖操作系统页缓存持久化，能在进程崩溃后保留数据，但不保证在操作系统崩溃后保留。
+ * 同一目录同时只能由一个实例打开（通过文件锁保证）。所有方法均为同步方法，且涉及文件 IO，不应在事件循环线程上调用。
+ *
+ * @since 5.0.4
+ */
+@NullMarked
+public final class SpillStore implements Closeable {
+    /**
+     * 默认的段文件大小。
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 32L * 1024 * 1024;
+    /**
+     * 默认的落盘总容量上限。
+     */
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 1024L * 1024 * 1024;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int CHECKPOINT_SIZE = 20;
+    private static final String SEGMENT_SUFFIX = ".spill";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final MappedByteBuffer checkpoint;
+    private final TreeSet<Long> segments;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+
+    private long readSegment;
+    private int readOffset;
+    private @Nullable ByteBuffer readBuffer;
+    private int peekedBodyLength = -1;
+
+    private long corruptedRecords;
+    private boolean closed;
+
+    private SpillStore(
+            Path directory,
+            int segmentSize,
+            int maxSegments,
+            FileChannel lockChannel,
+            FileLock lock,
+            MappedByteBuffer checkpoint,
+            TreeSet<Long> segments
+    ) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.checkpoint = checkpoint;
+        this.segments = segments;
+
+        if (segments.isEmpty()) {
+            segments.add(1L);
+        }
+        this.writeSegment = segments.last();
+        this.writeBuffer = mapSegment(writeSegment, FileChannel.MapMode.READ_WRITE);
+        recoverWritePosition();
+
+        long checkpointSegment = checkpoint.getLong(0);
+        long checkpointOffset = checkpoint.getLong(8);
+        if (isCheckpointValid() && segments.contains(checkpointSegment)
+                && checkpointOffset >= 0 && checkpointOffset <= segmentSize) {
+            this.readSegment = checkpointSegment;
+            this.readOffset = (int) checkpointOffset;
+        } else {
+            this.readSegment = segments.first();
+            this.readOffset = 0;
+        }
+        if (readSegment == writeSegment && readOffset > writeBuffer.position()) {
+            this.readOffset = writeBuffer.position();
+        }
+        for (Long segment : new ArrayList<>(segments.headSet(readSegment))) {
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * 打开（或创建）指定目录下的落盘队列。
+     *
+     * @param directory     存放段文件的目录，不存在时自动创建
+     * @param segmentSize   单个段文件的大小，单条记录不能超过该大小
+     * @param maxTotalBytes 落盘总容量上限，决定最多同时存在的段文件数（至少 2 个）
+     * @return 落盘队列
+     * @throws IOException 目录不可用，或已被其他实例打开
+     */
+    public static SpillStore open(Path directory, long segmentSize, long maxTotalBytes) throws IOException {
+        if (segmentSize < 1024 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between 1 KiB and 2 GiB");
+        }
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(
+                directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE
+        );
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Spill directory is in use by another writer: " + directory);
+        }
+
+        try {
+            MappedByteBuffer checkpoint;
+            try (FileChannel channel = FileChannel.open(
+                    directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+            )) {
+                checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_SIZE);
+            }
+            TreeSet<Long> segments = new TreeSet<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.map(path -> path.getFileName().toString())
+                     .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                     .forEach(name -> {
+                         try {
+                             segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                         } catch (NumberFormatException ignored) {
+                             // not a segment file
+                         }
+                     });
+            }
+            int maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxTotalBytes / segmentSize));
+            return new SpillStore(directory, (int) segmentSize, maxSegments, lockChannel, lock, checkpoint, segments);
+        } catch (IOException | RuntimeException e) {
+            lock.release();
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加一条记录。
+     *
+     * @param record 待落盘的记录
+     * @return 写入成功返回 true；记录超过段大小或落盘容量已满时返回 false
+     * @throws IOException 创建新段文件失败
+     */
+    public synchronized boolean append(SpillRecord record) throws IOException {
+        ensureOpen();
+        byte[] project = record.project().getBytes(StandardCharsets.UTF_8);
+        byte[] logstore = record.logstore().getBytes(StandardCharsets.UTF_8);
+        byte[] compressType = record.compressType().getBytes(StandardCharsets.UTF_8);
+        if (project.length > Short.MAX_VALUE || logstore.length > Short.MAX_VALUE || compressType.length > Short.MAX_VALUE) {
+            return false;
+        }
+        int bodyLength = 4 + 2 + project.length + 2 + logstore.length + 2 + compressType.length
+                + record.payload().length;
+        int recordLength = RECORD_HEADER_SIZE + bodyLength;
+        if (recordLength > segmentSize) {
+            return false;
+        }
+        if (writeBuffer.remaining() < recordLength) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            writeSegment = writeSegment + 1;
+            writeBuffer = mapSegment(writeSegment, FileChannel.MapMode.READ_WRITE);
+            segments.add(writeSegment);
+        }
+
+        int position = writeBuffer.position();
+        ByteBuffer body = writeBuffer.duplicate();
+        body.position(position + RECORD_HEADER_SIZE).limit(position + recordLength);
+        body.putInt(record.rawSize())
+            .putShort((short) project.length)
+            .put(project)
+            .putShort((short) logstore.length)
+            .put(logstore)
+            .putShort((short) compressType.length)
+            .put(compressType)
+            .put(record.payload());
+        body.position(position + RECORD_HEADER_SIZE);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+
+        writeBuffer.putInt(position + 4, (int) crc.getValue());
+        writeBuffer.putInt(position, bodyLength);
+        writeBuffer.position(position + recordLength);
+        return true;
+    }
+
+    /**
+     * 读取下一条待送达的记录，不推进读位置；重复调用返回同一条记录，直到 {@link #commit()}。
+     *
+     * @return 下一条记录；没有待送达的记录时返回 null
+     * @throws IOException 映射段文件失败
+     */
+    public synchronized @Nullable SpillRecord peek() throws IOException {
+        ensureOpen();
+        while (true) {
+            ByteBuffer buffer = currentReadBuffer();
+            int bodyLength = readOffset + RECORD_HEADER_SIZE <= segmentSize ? buffer.getInt(readOffset) : 0;
+            if (bodyLength > 0 && bodyLength <= segmentSize - readOffset - RECORD_HEADER_SIZE) {
+                ByteBuffer body = buffer.duplicate();
+                body.position(readOffset + RECORD_HEADER_SIZE).limit(readOffset + RECORD_HEADER_SIZE + bodyLength);
+                CRC32C crc = new CRC32C();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() == buffer.getInt(readOffset + 4)) {
+                    SpillRecord record = decode(body);
+                    if (record != null) {
+                        peekedBodyLength = bodyLength;
+                        return record;
+                    }
+                }
+                corruptedRecords++;
+            } else if (bodyLength == 0 && readSegment == writeSegment) {
+                return null;
+            } else if (bodyLength != 0) {
+                corruptedRecords++;
+            }
+
+            // end of (or damaged) segment: move on to the next one
+            if (readSegment == writeSegment) {
+                // damaged active segment: nothing further can be trusted in it, start a fresh one
+                writeSegment = writeSegment + 1;
+                writeBuffer = mapSegment(writeSegment, FileChannel.MapMode.READ_WRITE);
+                segments.add(writeSegment);
+            }
+            long finished = readSegment;
+            readSegment = segments.higher(finished);
+            readOffset = 0;
+            readBuffer = null;
+            peekedBodyLength = -1;
+            writeCheckpoint();
+            deleteSegment(finished);
+        }
+    }
+
+    /**
+     * 确认最近一次 {@link #peek()} 返回的记录已送达，推进读位置并写入检查点。
+     */
+    public synchronized void commit() {
+        ensureOpen();
+        if (peekedBodyLength < 0) {
+            throw new IllegalStateException("commit without a peeked record");
+        }
+        readOffset += RECORD_HEADER_SIZE + peekedBodyLength;
+        peekedBodyLength = -1;
+        writeCheckpoint();
+    }
+
+    /**
+     * @return 存在尚未确认送达的记录时返回 true
+     */
+    public synchronized boolean hasPending() {
+        return readSegment != writeSegment || readOffset < writeBuffer.position();
+    }
+
+    /**
+     * @return 当前的段文件数
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return 读取时因校验失败而丢弃的记录数
+     */
+    public synchronized long getCorruptedRecords() {
+        return corruptedRecords;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeBuffer.force();
+        checkpoint.force();
+        try {
+            lock.release();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("SpillStore is closed");
+        }
+    }
+
+    private ByteBuffer currentReadBuffer() throws IOException {
+        ByteBuffer buffer = this.readBuffer;
+        if (buffer == null) {
+            buffer = readSegment == writeSegment
+                    ? writeBuffer.duplicate()
+                    : mapSegment(readSegment, FileChannel.MapMode.READ_ONLY);
+            this.readBuffer = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * 扫描当前写入段，将写位置定位到第一条无效记录处，并清零其后的区域，丢弃崩溃时写了一半的记录。
+     */
+    private void recoverWritePosition() {
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= segmentSize) {
+            int bodyLength = writeBuffer.getInt(position);
+            if (bodyLength <= 0 || bodyLength > segmentSize - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer body = writeBuffer.duplicate();
+            body.position(position + RECORD_HEADER_SIZE).limit(position + RECORD_HEADER_SIZE + bodyLength);
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            if ((int) crc.getValue() != writeBuffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + bodyLength;
+        }
+        for (int i = position; i < segmentSize; i++) {
+            if (writeBuffer.get(i) != 0) {
+                writeBuffer.put(i, (byte) 0);
+            }
+        }
+        writeBuffer.position(position);
+    }
+
+    private MappedByteBuffer mapSegment(long segment, FileChannel.MapMode mode) throws IOException {
+        Path path = segmentPath(segment);
+        List<StandardOpenOption> options = new ArrayList<>();
+        options.add(StandardOpenOption.READ);
+        if (mode == FileChannel.MapMode.READ_WRITE) {
+            options.add(StandardOpenOption.CREATE);
+            options.add(StandardOpenOption.WRITE);
+        }
+        try (FileChannel channel = FileChannel.open(path, options.toArray(new StandardOpenOption[0]))) {
+            long size = mode == FileChannel.MapMode.READ_WRITE ? segmentSize : Math.min(channel.size(), segmentSize);
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private void deleteSegment(long segment) {
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException ignored) {
+            // a leftover segment is skipped by the checkpoint on the next open
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, readSegment);
+        checkpoint.putLong(8, readOffset);
+        checkpoint.putInt(16, checkpointCrc());
+    }
+
+    private boolean isCheckpointValid() {
+        return checkpoint.getInt(16) == checkpointCrc() && checkpoint.getLong(0) > 0;
+    }
+
+    private int checkpointCrc() {
+        CRC32C crc = new CRC32C();
+        ByteBuffer content = checkpoint.duplicate();
+        content.position(0).limit(16);
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+    private static @Nullable SpillRecord decode(ByteBuffer body) {
+        try {
+            int rawSize = body.getInt();
+            byte[] project = new byte[body.getShort()];
+            body.get(project);
+            byte[] logstore = new byte[body.getShort()];
+            body.get(logstore);
+            byte[] compressType = new byte[body.getShort()];
+            body.get(compressType);
+            byte[] payload = new byte[body.remaining()];
+            body.get(payload);
+            return new SpillRecord(
+                    new String(project, StandardCharsets.UTF_8),
+                    new String(logstore, StandardCharsets.UTF_8),
+                    new String(compressType, StandardCharsets.UTF_8),
+                    rawSize,
+                    payload
+            );
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Aliyun SLS Writer Spill Store
+ *
+ * @since 5.0.4
+ */
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
@@ -5,7 +5,9 @@ import io.github.sinri.keel.base.async.Keel;
 import io.github.sinri.keel.base.configuration.NotConfiguredException;
 import io.github.sinri.keel.base.logger.factory.StdoutLoggerFactory;
 import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsEndpoint;
 import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.Lz4Utils;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsRequestSigner;
 import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsSignatureKit;
 import io.github.sinri.keel.logger.api.LogLevel;
 import io.github.sinri.keel.logger.api.logger.Logger;
@@ -19,6 +21,7 @@ import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -36,11 +39,14 @@ import java.util.Map;
 public class SlsReader implements Closeable {
     private static final String CONTENT_TYPE = "application/json";
     private static final String ACCEPT_ENCODING = "lz4";
+    private static final String API_VERSION = "0.6.0";
+    private static final String SIGNATURE_METHOD = "hmac-sha1";
 
     private final Keel keel;
     private final AliyunSlsConfigElement aliyunSlsConfigElement;
     private final WebClient webClient;
     private final Logger logger;
+    private volatile @Nullable CachedSigner cachedSigner;
 
     public SlsReader(Keel keel, AliyunSlsConfigElement aliyunSlsConfigElement) {
         this.keel = keel;
@@ -113,44 +119,39 @@ public class SlsReader implements Closeable {
     ) {
         // Build URI and URL
         String uri = String.format("/logstores/%s/logs", logstore);
-        String url = String.format("https://%s.%s%s", project, endpoint, uri);
+        SlsEndpoint slsEndpoint = SlsEndpoint.parse(endpoint);
+        String url = slsEndpoint.url(project, uri);
 
         // Get current GMT date
-        String date = AliyunSlsSignatureKit.getGMTDate();
+        String date = AliyunSlsRequestSigner.currentGmtDate();
 
         // Prepare request body
         String requestBody = request.toJsonExpression();
         Buffer bodyBuffer = Buffer.buffer(requestBody);
 
         // Build host header
-        String host = project + "." + endpoint;
+        String host = slsEndpoint.host(project);
 
         // Build headers for SLS LOG signature
         Map<String, String> headers = new HashMap<>();
         headers.put("Date", date);
         headers.put("Content-Type", CONTENT_TYPE);
-        headers.put("x-log-apiversion", "0.6.0");
-        headers.put("x-log-signaturemethod", "hmac-sha1");
+        headers.put("x-log-apiversion", API_VERSION);
+        headers.put("x-log-signaturemethod", SIGNATURE_METHOD);
         headers.put("Host", host);
         headers.put("Content-Length", String.valueOf(bodyBuffer.length()));
         headers.put("Accept-Encoding", ACCEPT_ENCODING);
 
-        headers.put("Content-MD5", AliyunSlsSignatureKit.contentMd5(bodyBuffer));
+        String contentMd5 = AliyunSlsSignatureKit.contentMd5(bodyBuffer);
+        headers.put("Content-MD5", contentMd5);
 
-        // Calculate SLS LOG signature
-        String signature = AliyunSlsSignatureKit.calculateSignature(
-                "POST",
-                bodyBuffer,
-                CONTENT_TYPE,
-                date,
-                headers,
-                uri,
-                null,
-                accessKeySecret
-        );
-
-        // Build Authorization header with LOG prefix
-        headers.put("Authorization", "LOG " + accessKeyId + ":" + signature);
+        // Calculate SLS LOG signature and build Authorization header with LOG prefix; signed headers in ascending name order
+        String authorization = getSigner(accessKeyId, accessKeySecret)
+                .message("POST", contentMd5, CONTENT_TYPE, date)
+                .header("x-log-apiversion", API_VERSION)
+                .header("x-log-signaturemethod", SIGNATURE_METHOD)
+                .authorization(uri, null);
+        headers.put("Authorization", authorization);
 
         // Build and send request
         HttpRequest<Buffer> httpRequest = webClient.postAbs(url);
@@ -170,6 +171,20 @@ public class SlsReader implements Closeable {
                           });
     }
 
+    /**
+     * 复用同一组 AccessKey 的签名器；AccessKey 变化时重新创建。
+     * <p>
+     * 签名器与其 AccessKey 作为一个不可变对象整体发布，并发调用时不会用一组 AccessKey 的签名器签署另一组的请求。
+     */
+    private AliyunSlsRequestSigner getSigner(String accessKeyId, String accessKeySecret) {
+        CachedSigner current = this.cachedSigner;
+        if (current == null || !current.matches(accessKeyId, accessKeySecret)) {
+            current = new CachedSigner(accessKeyId, accessKeySecret, new AliyunSlsRequestSigner(accessKeyId, accessKeySecret));
+            this.cachedSigner = current;
+        }
+        return current.signer();
+    }
+
     /**
      * Handle the HTTP response from GetLogsV2 API.
      *
@@ -234,4 +249,10 @@ public class SlsReader implements Closeable {
             return Future.failedFuture(e);
         }
     }
+
+    private record CachedSigner(String accessKeyId, String accessKeySecret, AliyunSlsRequestSigner signer) {
+        boolean matches(String accessKeyId, String accessKeySecret) {
+            return this.accessKeyId.equals(accessKeyId) && this.accessKeySecret.equals(accessKeySecret);
+        }
+    }
 }
@@ -1,10 +1,13 @@
 module io.github.sinri.keel.integration.aliyun {
     requires com.google.protobuf;
+    requires com.fasterxml.jackson.core;
     requires transitive io.github.sinri.keel.base;
     requires transitive io.github.sinri.keel.logger.api;
     requires transitive io.vertx.core;
     requires transitive io.vertx.web.client;
     requires org.lz4.java;
+    requires com.github.luben.zstd_jni;
+    requires io.netty.buffer;
     requires transitive io.github.sinri.keel.core;
     requires static org.jspecify;
     requires java.datatransfer;
@@ -5,13 +5,23 @@ import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
 import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
 import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackFileStore;
+import io.github.sinri.keel.logger.api.metric.MetricRecord;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AliyunSLSLogPutterTest {
     @Test
@@ -57,4 +67,63 @@ class AliyunSLSLogPutterTest {
                 "put log to SLS failed; fallback output ends"
         ), fallback);
     }
+
+    @Test
+    void unencodableLogGroupShouldFallBack(@TempDir Path fallbackDirectory) throws Exception {
+        CompressionCodec failing = new CompressionCodec() {
+            @Override
+            public String getCompressType() {
+                return "lz4";
+            }
+
+            @Override
+            public Buffer compress(Buffer raw) {
+                throw new IllegalStateException("codec failure");
+            }
+
+            @Override
+            public ByteBuf compress(ByteBuf raw, ByteBufAllocator allocator) {
+                throw new IllegalStateException("codec failure");
+            }
+
+            @Override
+            public Buffer decompress(Buffer compressed, int rawSize) {
+                throw new IllegalStateException("codec failure");
+            }
+        };
+        Vertx vertx = Vertx.vertx();
+        try (FallbackFileStore store = FallbackFileStore.open(fallbackDirectory, 1024 * 1024, 60_000, 1024 * 1024)) {
+            // Inline encoding and encoding on worker threads take different paths
+            for (int encodeWorkers : new int[]{0, 2}) {
+                SlsWriterTelemetry telemetry = new SlsWriterTelemetry();
+                AliyunSLSLogPutter putter = new AliyunSLSLogPutter(
+                        vertx,
+                        "id",
+                        "secret",
+                        "http://127.0.0.1:1",
+                        new AliyunSLSLogPutterOptions().setCompressionCodec(failing).setEncodeWorkers(encodeWorkers)
+                );
+                putter.attachTelemetry(telemetry);
+                putter.attachFallbackFileStore(store);
+                try {
+                    LogGroup logGroup = new LogGroup("encode-topic", "test-source")
+                            .addLogItem(new LogItem(1_720_000_000).addContent(new LogContent("message", "kept")));
+                    putter.putLogs("project", "logstore", logGroup)
+                          .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+                } finally {
+                    putter.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+                }
+
+                MetricRecord fallbackGroups = telemetry.export(1_000L).stream()
+                                                       .filter(r -> r.metricName().equals(SlsWriterTelemetry.METRIC_PREFIX + "fallback_groups_total"))
+                                                       .findFirst()
+                                                       .orElseThrow();
+                assertEquals(1, fallbackGroups.value(), "encodeWorkers=" + encodeWorkers);
+            }
+            store.flush();
+            assertTrue(store.getTotalBytes() > 0);
+        } finally {
+            vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+    private static final int KEYS = 20_000;
+
+    @Test
+    void keysShouldSpreadAcrossMembers() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(List.of("a", "b", "c", "d"));
+        int[] counts = new int[4];
+        for (int i = 0; i < KEYS; i++) {
+            counts[ring.indexOf("topic-" + i)]++;
+        }
+        for (int count : counts) {
+            // Each member should own roughly a quarter of the keys
+            assertTrue(count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3, "unbalanced: " + count);
+        }
+        assertEquals(ring.locate("topic-1"), ring.locate("topic-1"));
+        assertEquals("a", new ConsistentHashRing<>(List.of("a")).locate("anything"));
+    }
+
+    @Test
+    void addingMemberShouldMoveOnlyItsShareOfKeys() {
+        ConsistentHashRing<Integer> four = new ConsistentHashRing<>(List.of(0, 1, 2, 3));
+        ConsistentHashRing<Integer> five = new ConsistentHashRing<>(List.of(0, 1, 2, 3, 4));
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "topic-" + i;
+            int before = four.indexOf(key);
+            int after = five.indexOf(key);
+            if (before != after) {
+                // Keys only move to the new member
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS / 5 * 0.7 && moved < KEYS / 5 * 1.3, "moved: " + moved);
+    }
+
+    @Test
+    void emptyRingShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing<>(List.of()));
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrainTrackerTest {
+    private Vertx vertx;
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        await(vertx.close());
+    }
+
+    @Test
+    void shouldCompleteOnceWatermarkIsProcessed() throws Exception {
+        DrainTracker tracker = new DrainTracker();
+        tracker.admit(3);
+        Future<Boolean> drained = tracker.awaitCompleted(vertx, tracker.watermark(), DrainTracker.NO_DEADLINE);
+        // Records admitted after the drain started are not waited for
+        tracker.admit(5);
+        tracker.complete(2);
+        vertx.setTimer(30, id -> tracker.complete(1));
+
+        assertTrue(await(drained));
+        assertEquals(5, tracker.getPending());
+    }
+
+    @Test
+    void shouldGiveUpAtDeadline() throws Exception {
+        DrainTracker tracker = new DrainTracker();
+        tracker.admit(1);
+
+        assertFalse(await(tracker.awaitCompleted(vertx, tracker.watermark(), DrainTracker.deadlineOf(Duration.ofMillis(50)))));
+        assertFalse(await(DrainTracker.awaitWithin(vertx, Promise.promise().future(), DrainTracker.deadlineOf(Duration.ofMillis(50)))));
+        assertTrue(await(DrainTracker.awaitWithin(vertx, Future.failedFuture("done"), DrainTracker.deadlineOf(Duration.ZERO))));
+        assertEquals(DrainTracker.NO_DEADLINE, DrainTracker.deadlineOf(Duration.ofSeconds(Long.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightWindowTest {
+    @Test
+    void submitShouldQueueBeyondCapacityAndStartInOrder() {
+        InFlightWindow window = new InFlightWindow(2);
+        List<Promise<Void>> started = new ArrayList<>();
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(window.submit(() -> {
+                Promise<Void> promise = Promise.promise();
+                started.add(promise);
+                return promise.future();
+            }));
+        }
+
+        assertEquals(2, started.size());
+        assertEquals(2, window.getInFlight());
+        assertEquals(2, window.getQueued());
+
+        started.get(1).complete();
+        assertEquals(3, started.size());
+        assertTrue(results.get(1).succeeded());
+        assertFalse(results.get(0).isComplete());
+
+        started.get(0).fail("boom");
+        assertEquals(4, started.size());
+        assertTrue(results.get(0).failed());
+
+        started.get(2).complete();
+        started.get(3).complete();
+        assertEquals(0, window.getInFlight());
+        assertEquals(0, window.getQueued());
+    }
+
+    @Test
+    void awaitAvailableShouldApplyBackpressureWhenFull() {
+        InFlightWindow window = new InFlightWindow(1);
+        assertTrue(window.awaitAvailable().succeeded());
+
+        Promise<Void> first = Promise.promise();
+        window.submit(first::future);
+        Future<Void> available = window.awaitAvailable();
+        assertFalse(available.isComplete());
+
+        first.complete();
+        assertTrue(available.succeeded());
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    void submitShouldReleaseSlotWhenTaskThrows() {
+        InFlightWindow window = new InFlightWindow(1);
+
+        Future<Void> result = window.submit(() -> {
+            throw new IllegalStateException("cannot start");
+        });
+
+        assertTrue(result.failed());
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    void capacityShouldBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new InFlightWindow(0));
+    }
+}
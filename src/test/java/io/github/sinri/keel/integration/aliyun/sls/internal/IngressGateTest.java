@@ -0,0 +1,120 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.OverflowPolicy;
+import io.github.sinri.keel.logger.api.LogLevel;
+import io.github.sinri.keel.logger.api.log.Log;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngressGateTest {
+    @Test
+    void dropByLevelShouldReserveHeadroomForSeriousLogs() {
+        IngressGate gate = new IngressGate(8, OverflowPolicy.DROP_BY_LEVEL, LogLevel.WARNING, 0);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(gate.tryAdmit(LogLevel.INFO));
+        }
+        assertFalse(gate.tryAdmit(LogLevel.DEBUG));
+        assertTrue(gate.tryAdmit(LogLevel.ERROR));
+        assertTrue(gate.tryAdmit(LogLevel.WARNING));
+        assertFalse(gate.tryAdmit(LogLevel.ERROR));
+
+        assertEquals(8, gate.getQueued());
+        assertEquals(1, gate.getDroppedCount(LogLevel.DEBUG));
+        assertEquals(1, gate.getDroppedCount(LogLevel.ERROR));
+        assertEquals(2, gate.getDroppedCount());
+
+        gate.release(8);
+        assertEquals(0, gate.getQueued());
+        assertTrue(gate.tryAdmit(LogLevel.DEBUG));
+    }
+
+    @Test
+    void unboundedShouldAdmitEverything() {
+        IngressGate gate = new IngressGate(2, OverflowPolicy.UNBOUNDED, LogLevel.WARNING, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(gate.tryAdmit(LogLevel.DEBUG));
+        }
+        assertEquals(10, gate.getQueued());
+        assertEquals(0, gate.getDroppedCount());
+    }
+
+    @Test
+    void dropOldestShouldEvictFromQueueHeadWithinCapacity() {
+        int capacity = 4;
+        IngressRing ring = new IngressRing(capacity);
+        IngressGate gate = new IngressGate(capacity, OverflowPolicy.DROP_OLDEST, LogLevel.WARNING, 0,
+                () -> ring.poll() == null ? null : LogLevel.INFO);
+
+        List<SpecificLog<?>> logs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Log log = new Log();
+            logs.add(log);
+            assertTrue(gate.tryAdmit(LogLevel.INFO));
+            assertTrue(ring.offer("topic", log));
+            assertTrue(ring.size() <= capacity);
+            assertTrue(gate.getQueued() <= capacity);
+        }
+        assertEquals(capacity, gate.getQueued());
+        assertEquals(6, gate.getDroppedCount(LogLevel.INFO));
+
+        // Only the newest logs remain, in arrival order
+        List<SpecificLog<?>> retained = new ArrayList<>();
+        ring.drain((topic, log) -> retained.add(log), 10);
+        assertEquals(capacity, retained.size());
+        for (int i = 0; i < capacity; i++) {
+            assertSame(logs.get(6 + i), retained.get(i));
+        }
+    }
+
+    @Test
+    void dropOldestShouldDropNewLogWhenNothingIsEvictable() {
+        IngressGate gate = new IngressGate(2, OverflowPolicy.DROP_OLDEST, LogLevel.WARNING, 0, () -> null);
+
+        assertTrue(gate.tryAdmit(LogLevel.INFO));
+        assertTrue(gate.tryAdmit(LogLevel.INFO));
+        assertFalse(gate.tryAdmit(LogLevel.ERROR));
+        assertEquals(2, gate.getQueued());
+        assertEquals(1, gate.getDroppedCount(LogLevel.ERROR));
+    }
+
+    @Test
+    void sampleShouldNeverExceedCapacity() {
+        IngressGate gate = new IngressGate(100, OverflowPolicy.SAMPLE, LogLevel.WARNING, 0);
+
+        int admitted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (gate.tryAdmit(LogLevel.INFO)) {
+                admitted++;
+            }
+        }
+        assertTrue(admitted >= 50 && admitted <= 100, "admitted " + admitted);
+        assertEquals(admitted, gate.getQueued());
+        assertEquals(1000 - admitted, gate.getDroppedCount());
+    }
+
+    @Test
+    void blockShouldWaitForReleaseThenTimeOut() throws Exception {
+        IngressGate gate = new IngressGate(1, OverflowPolicy.BLOCK, LogLevel.WARNING, 2_000);
+        assertTrue(gate.tryAdmit(LogLevel.INFO));
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> gate.tryAdmit(LogLevel.INFO));
+        Thread.sleep(50);
+        assertFalse(blocked.isDone());
+        gate.release(1);
+        assertTrue(blocked.get(1, TimeUnit.SECONDS));
+
+        IngressGate shortGate = new IngressGate(1, OverflowPolicy.BLOCK, LogLevel.WARNING, 20);
+        assertTrue(shortGate.tryAdmit(LogLevel.INFO));
+        assertFalse(shortGate.tryAdmit(LogLevel.ERROR));
+        assertEquals(1, shortGate.getDroppedCount(LogLevel.ERROR));
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.log.Log;
+import io.github.sinri.keel.logger.api.log.SpecificLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngressRingTest {
+    @Test
+    void capacityShouldRoundUpToPowerOfTwo() {
+        assertEquals(2, IngressRing.capacityFor(0));
+        assertEquals(2, IngressRing.capacityFor(2));
+        assertEquals(4, IngressRing.capacityFor(3));
+        assertEquals(65536, IngressRing.capacityFor(65536));
+        assertEquals(131072, IngressRing.capacityFor(65537));
+        assertEquals(1 << 30, IngressRing.capacityFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void fullRingShouldRejectAndReuseSlotsAfterDrain() {
+        IngressRing ring = new IngressRing(4);
+        Log log = new Log();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("topic-" + i, log));
+        }
+        assertFalse(ring.offer("overflow", log));
+        assertEquals(4, ring.size());
+
+        List<String> topics = new ArrayList<>();
+        assertEquals(3, ring.drain((topic, l) -> topics.add(topic), 3));
+        assertEquals(List.of("topic-0", "topic-1", "topic-2"), topics);
+
+        // Wrap around the reused slots
+        for (int i = 4; i < 7; i++) {
+            assertTrue(ring.offer("topic-" + i, log));
+        }
+        topics.clear();
+        assertEquals(4, ring.drain((topic, l) -> topics.add(topic), 10));
+        assertEquals(List.of("topic-3", "topic-4", "topic-5", "topic-6"), topics);
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.drain((topic, l) -> fail(), 10));
+    }
+
+    @Test
+    void pollShouldTakeTheOldestLog() {
+        IngressRing ring = new IngressRing(2);
+        Log first = new Log();
+        Log second = new Log();
+        assertNull(ring.poll());
+        assertTrue(ring.offer("topic", first));
+        assertTrue(ring.offer("topic", second));
+
+        assertSame(first, ring.poll());
+        assertEquals(1, ring.size());
+        List<SpecificLog<?>> drained = new ArrayList<>();
+        assertEquals(1, ring.drain((topic, l) -> drained.add(l), 10));
+        assertSame(second, drained.get(0));
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void concurrentProducersShouldKeepTheirOwnOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        IngressRing ring = new IngressRing(256);
+        SpecificLog<?>[][] logs = new SpecificLog<?>[producers][perProducer];
+        for (SpecificLog<?>[] producerLogs : logs) {
+            for (int i = 0; i < perProducer; i++) {
+                producerLogs[i] = new Log();
+            }
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String topic = "producer-" + p;
+            SpecificLog<?>[] producerLogs = logs[p];
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    SpecificLog<?> log = producerLogs[i];
+                    while (!ring.offer(topic, log)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        int[] next = new int[producers];
+        long deadline = System.currentTimeMillis() + 30_000;
+        int received = 0;
+        start.countDown();
+        while (received < producers * perProducer && System.currentTimeMillis() < deadline) {
+            received += ring.drain((topic, log) -> {
+                int producer = Integer.parseInt(topic.substring("producer-".length()));
+                assertSame(logs[producer][next[producer]], log);
+                next[producer]++;
+            }, 64);
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+        assertEquals(producers * perProducer, received);
+        for (int count : next) {
+            assertEquals(perProducer, count);
+        }
+    }
+}
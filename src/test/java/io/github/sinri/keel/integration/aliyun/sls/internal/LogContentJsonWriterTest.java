@@ -0,0 +1,92 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogContentJsonWriterTest {
+    @Test
+    void writeObjectShouldMatchVertxEncoding() {
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("orderId", "ORD-2024-001");
+        context.put("amount", 99.99);
+        context.put("count", 3);
+        context.put("big", 12345678901L);
+        context.put("paid", true);
+        context.put("missing", null);
+        context.put("city", "杭州 \"quoted\"\n");
+        context.put("nested", new JsonObject().put("a", 1).put("b", new JsonArray().add("x").add(2)));
+        context.put("list", Arrays.asList(1, "two", null));
+        context.put("at", Instant.ofEpochSecond(1_720_000_000L));
+
+        String expected = new JsonObject(context).encode();
+        assertEquals(expected, new String(LogContentJsonWriter.writeObject(context), StandardCharsets.UTF_8));
+        // The per-thread generator is reused, so a second call must not carry over any state
+        assertEquals(expected, new String(LogContentJsonWriter.writeObject(context), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeStringArrayShouldMatchVertxEncoding() {
+        List<String> classification = List.of("order", "支付", "a\"b");
+
+        assertEquals(new JsonArray(classification).encode(),
+                new String(LogContentJsonWriter.writeStringArray(classification), StandardCharsets.UTF_8));
+        assertEquals("[]", new String(LogContentJsonWriter.writeStringArray(List.of()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeObjectShouldMatchVertxEncodingForEverySupportedType() {
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("string", "s");
+        context.put("int", 1);
+        context.put("long", Long.MAX_VALUE);
+        context.put("short", (short) 2);
+        context.put("byte", (byte) 3);
+        context.put("float", 1.5f);
+        context.put("double", -0.25);
+        context.put("nan", Double.NaN);
+        context.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+        context.put("bigDecimal", new BigDecimal("1.000000000000000000001"));
+        context.put("otherNumber", new AtomicInteger(7));
+        context.put("true", true);
+        context.put("null", null);
+        context.put("instant", Instant.ofEpochMilli(1_720_000_000_123L));
+        context.put("bytes", "中文".getBytes(StandardCharsets.UTF_8));
+        context.put("buffer", Buffer.buffer(new byte[]{(byte) 0xfb, (byte) 0xff}));
+        context.put("enum", TimeUnit.SECONDS);
+        context.put("jsonObject", new JsonObject().put("a", new JsonObject()));
+        context.put("map", new LinkedHashMap<>(Map.of("k", List.of())));
+        context.put("jsonArray", new JsonArray().add(1).addNull().add(new JsonArray()));
+        context.put("list", List.of("x", 2.0));
+
+        assertEquals(new JsonObject(context).encode(),
+                new String(LogContentJsonWriter.writeObject(context), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeObjectShouldRejectTypesVertxCannotEncode() {
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("thread", new StringBuilder("main"));
+        assertThrows(EncodeException.class, () -> new JsonObject(context).encode());
+        assertThrows(EncodeException.class, () -> LogContentJsonWriter.writeObject(context));
+
+        // The writer of this thread is still usable after a failure
+        assertEquals("{\"a\":1}", new String(LogContentJsonWriter.writeObject(Map.of("a", 1)), StandardCharsets.UTF_8));
+    }
+}
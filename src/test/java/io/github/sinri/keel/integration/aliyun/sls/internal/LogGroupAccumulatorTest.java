@@ -0,0 +1,76 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogGroupAccumulatorTest {
+    private static LogItem item(String message) {
+        return new LogItem(1_700_000_000).addContent("message", message);
+    }
+
+    @Test
+    void shouldKeepLogGroupOpenAcrossAddsUntilItemThreshold() {
+        LogGroupAccumulator accumulator = new LogGroupAccumulator("test", Integer.MAX_VALUE, 3, 1000);
+
+        assertTrue(accumulator.add("topic", "", item("a"), 0).isEmpty());
+        assertTrue(accumulator.add("topic", "", item("b"), 10).isEmpty());
+        List<LogGroupAccumulator.PendingLogGroup> ready = accumulator.add("topic", "", item("c"), 20);
+
+        assertEquals(1, ready.size());
+        assertEquals(3, ready.get(0).logGroup().getLogItems().size());
+        assertEquals("topic", ready.get(0).logGroup().getTopic());
+        assertTrue(accumulator.isEmpty());
+    }
+
+    @Test
+    void shouldFlushWhenSerializedSizeReachesThreshold() {
+        LogItem logItem = item("x".repeat(100));
+        LogGroupAccumulator accumulator = new LogGroupAccumulator("test", 250, Integer.MAX_VALUE, 0);
+
+        assertTrue(accumulator.add("topic", "", logItem, 0).isEmpty());
+        List<LogGroupAccumulator.PendingLogGroup> ready = accumulator.add("topic", "", logItem, 0);
+
+        assertEquals(1, ready.size());
+        assertTrue(ready.get(0).logGroup().getSerializedSize() >= 200);
+    }
+
+    @Test
+    void pollExpiredShouldOnlyReturnLogGroupsPastLinger() {
+        LogGroupAccumulator accumulator = new LogGroupAccumulator("test", Integer.MAX_VALUE, Integer.MAX_VALUE, 100);
+        accumulator.add("early", "", item("a"), 0);
+        accumulator.add("late", "", item("b"), 80);
+
+        List<LogGroupAccumulator.PendingLogGroup> expired = accumulator.pollExpired(100);
+        assertEquals(1, expired.size());
+        assertEquals("early", expired.get(0).logGroup().getTopic());
+
+        // linger is measured from the first item, later items do not extend it
+        accumulator.add("late", "", item("c"), 150);
+        expired = accumulator.pollExpired(180);
+        assertEquals(1, expired.size());
+        assertEquals(2, expired.get(0).logGroup().getLogItems().size());
+        assertTrue(accumulator.isEmpty());
+    }
+
+    @Test
+    void drainShouldReturnEveryOpenLogGroupPerRoute() {
+        LogGroupAccumulator accumulator = new LogGroupAccumulator("test", Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+        accumulator.add("a", "shard-0", item("1"), 0);
+        accumulator.add("a", "shard-1", item("2"), 0);
+        accumulator.add("b", "", item("3"), 0);
+
+        assertTrue(accumulator.pollExpired(Long.MAX_VALUE).isEmpty());
+
+        List<LogGroupAccumulator.PendingLogGroup> topicA = accumulator.drainTopic("a");
+        assertEquals(List.of("shard-0", "shard-1"), topicA.stream().map(LogGroupAccumulator.PendingLogGroup::routeKey).toList());
+
+        List<LogGroupAccumulator.PendingLogGroup> rest = accumulator.drainAll();
+        assertEquals(1, rest.size());
+        assertEquals("b", rest.get(0).logGroup().getTopic());
+        assertTrue(accumulator.isEmpty());
+    }
+}
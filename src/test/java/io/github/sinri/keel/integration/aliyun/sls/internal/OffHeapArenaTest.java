@@ -0,0 +1,124 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.EncodedLogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapArenaTest {
+    @Test
+    void allocationsShouldStayWithinTheCapAndRecycleReleasedChunks() {
+        OffHeapArena arena = new OffHeapArena(256, 128);
+        assertNull(arena.allocate(129));
+
+        List<OffHeapArena.Allocation> allocations = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            OffHeapArena.Allocation allocation = arena.allocate(64);
+            assertNotNull(allocation);
+            assertTrue(allocation.buffer().isDirect());
+            assertEquals(64, allocation.buffer().capacity());
+            allocations.add(allocation);
+        }
+        assertNull(arena.allocate(1));
+        assertEquals(256, arena.getReservedBytes());
+        assertEquals(256, arena.getUsedBytes());
+        assertEquals(2, arena.getRejectedAllocationCount());
+
+        // Releasing the first chunk makes it reusable without reserving more memory
+        allocations.get(0).release();
+        allocations.get(0).release();
+        assertNull(arena.allocate(1));
+        allocations.get(1).release();
+        assertNotNull(arena.allocate(100));
+        assertEquals(256, arena.getReservedBytes());
+        assertEquals(228, arena.getUsedBytes());
+    }
+
+    @Test
+    void singleChunkArenaShouldRecycleOnceDrained() {
+        OffHeapArena arena = new OffHeapArena(64, 64);
+        OffHeapArena.Allocation first = arena.allocate(40);
+        assertNotNull(first);
+        assertNull(arena.allocate(40));
+        first.release();
+        OffHeapArena.Allocation second = arena.allocate(40);
+        assertNotNull(second);
+        assertEquals(64, arena.getReservedBytes());
+        assertEquals(40, arena.getUsedBytes());
+    }
+
+    @Test
+    void concurrentAllocationsShouldNotOverlap() throws Exception {
+        int threads = 4;
+        int perThread = 20_000;
+        OffHeapArena arena = new OffHeapArena(64 * 1024, 4096);
+        AtomicInteger corrupted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            byte marker = (byte) (t + 1);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    OffHeapArena.Allocation allocation = arena.allocate(32);
+                    if (allocation == null) {
+                        continue;
+                    }
+                    for (int j = 0; j < 32; j++) {
+                        allocation.buffer().put(j, marker);
+                    }
+                    Thread.yield();
+                    for (int j = 0; j < 32; j++) {
+                        if (allocation.buffer().get(j) != marker) {
+                            corrupted.incrementAndGet();
+                            break;
+                        }
+                    }
+                    allocation.release();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(30_000);
+        }
+        assertEquals(0, corrupted.get());
+        assertEquals(0, arena.getUsedBytes());
+        assertTrue(arena.getReservedBytes() <= 64 * 1024);
+    }
+
+    @Test
+    void encodedLogItemInArenaShouldSpliceAndRelease() {
+        OffHeapArena arena = new OffHeapArena(1024);
+        LogItem logItem = new LogItem(1_720_000_001_234L)
+                .addContent("level", "ERROR")
+                .addContent("context", "{\"city\":\"杭州\"}".getBytes(StandardCharsets.UTF_8));
+        OffHeapArena.Allocation allocation = arena.allocate(logItem.getSerializedSize());
+        assertNotNull(allocation);
+        EncodedLogItem encoded = EncodedLogItem.encode(logItem, allocation.buffer(), allocation::release);
+
+        LogGroup plain = new LogGroup("topic", "source").addLogItem(logItem);
+        LogGroup spliced = new LogGroup("topic", "source").addLogItem(encoded);
+        assertArrayEquals(LogGroupEncoder.encodeToByteArray(plain), LogGroupEncoder.encodeToByteArray(spliced));
+        assertEquals("{\"city\":\"杭州\"}", encoded.getContents().get(1).getValue());
+        assertEquals(logItem.getSerializedSize(), arena.getUsedBytes());
+
+        encoded.release();
+        assertEquals(0, arena.getUsedBytes());
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.VertxException;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.json.EncodeException;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PutLogsRetryPolicyTest {
+    private final PutLogsRetryPolicy policy = new PutLogsRetryPolicy(3, 100, 1000);
+
+    @Test
+    void responsesShouldBeClassifiedByStatusAndErrorCode() {
+        assertTrue(policy.isRetryable(429, null));
+        assertTrue(policy.isRetryable(500, ""));
+        assertTrue(policy.isRetryable(503, "{\"errorCode\":\"ServerBusy\"}"));
+        assertTrue(policy.isRetryable(403, "{\"errorCode\":\"WriteQuotaExceed\",\"errorMessage\":\"quota\"}"));
+        assertTrue(policy.isRetryable(403, "{\"errorCode\":\"ShardWriteQuotaExceed\"}"));
+
+        assertFalse(policy.isRetryable(401, "{\"errorCode\":\"SignatureNotMatch\"}"));
+        assertFalse(policy.isRetryable(404, "{\"errorCode\":\"LogStoreNotExist\"}"));
+        assertFalse(policy.isRetryable(400, "not a json body"));
+    }
+
+    @Test
+    void transportFailuresShouldBeRetryable() {
+        assertTrue(policy.isRetryable(new TimeoutException("idle")));
+        assertTrue(policy.isRetryable(new ConnectException("refused")));
+        assertTrue(policy.isRetryable(new HttpClosedException("closed")));
+        assertTrue(policy.isRetryable(new RuntimeException(new TimeoutException("wrapped"))));
+        assertTrue(policy.isRetryable(new SocketException("Connection reset")));
+        assertTrue(policy.isRetryable(new VertxException(new ConnectException("refused"))));
+    }
+
+    @Test
+    void nonTransientFailuresShouldNotBeRetryable() {
+        assertFalse(policy.isRetryable(new IllegalStateException("bug")));
+        assertFalse(policy.isRetryable(new IllegalStateException("Client is closed")));
+        assertFalse(policy.isRetryable(new VertxException("invalid configuration")));
+        assertFalse(policy.isRetryable(new EncodeException("cannot encode")));
+        assertFalse(policy.isRetryable(new SSLHandshakeException("PKIX path building failed")));
+        assertFalse(policy.isRetryable(new VertxException(new SSLHandshakeException("handshake"))));
+    }
+
+    @Test
+    void backoffShouldGrowExponentiallyWithinJitterBounds() {
+        for (int i = 0; i < 100; i++) {
+            assertInRange(policy.computeBackoffMs(1), 50, 100);
+            assertInRange(policy.computeBackoffMs(2), 100, 200);
+            assertInRange(policy.computeBackoffMs(3), 200, 400);
+            assertInRange(policy.computeBackoffMs(5), 500, 1000);
+            assertInRange(policy.computeBackoffMs(64), 500, 1000);
+        }
+    }
+
+    @Test
+    void invalidArgumentsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PutLogsRetryPolicy(-1, 100, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new PutLogsRetryPolicy(1, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new PutLogsRetryPolicy(1, 100, 50));
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " not in [" + min + ", " + max + "]");
+    }
+}
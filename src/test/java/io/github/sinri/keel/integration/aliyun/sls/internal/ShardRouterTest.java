@@ -0,0 +1,57 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+    private static JsonObject shard(int id, String status, String begin, String end) {
+        return new JsonObject()
+                .put("shardID", id)
+                .put("status", status)
+                .put("inclusiveBeginKey", begin)
+                .put("exclusiveEndKey", end);
+    }
+
+    @Test
+    void parseShardsShouldKeepReadWriteShardsSortedByBeginKey() {
+        JsonArray array = new JsonArray()
+                .add(shard(2, "readwrite", "80000000000000000000000000000000", "ffffffffffffffffffffffffffffffff"))
+                .add(shard(0, "readonly", "00000000000000000000000000000000", "ffffffffffffffffffffffffffffffff"))
+                .add(shard(1, "readwrite", "00000000000000000000000000000000", "80000000000000000000000000000000"));
+
+        List<ShardRouter.Shard> shards = ShardRouter.parseShards(array);
+
+        assertEquals(2, shards.size());
+        assertEquals(1, shards.get(0).shardId());
+        assertEquals(2, shards.get(1).shardId());
+    }
+
+    @Test
+    void routeShouldRespectHalfOpenRanges() {
+        ShardRouter router = new ShardRouter();
+        assertFalse(router.isReady());
+        assertNull(router.route("00000000000000000000000000000000"));
+
+        router.updateShards(ShardRouter.parseShards(new JsonArray()
+                .add(shard(1, "readwrite", "00000000000000000000000000000000", "80000000000000000000000000000000"))
+                .add(shard(2, "readwrite", "80000000000000000000000000000000", "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF"))));
+
+        assertTrue(router.isReady());
+        assertEquals(1, router.route("00000000000000000000000000000000").shardId());
+        assertEquals(1, router.route("7fffffffffffffffffffffffffffffff").shardId());
+        assertEquals(2, router.route("80000000000000000000000000000000").shardId());
+        assertEquals(2, router.route("fffffffffffffffffffffffffffffffe").shardId());
+        assertNull(router.route("ffffffffffffffffffffffffffffffff"));
+    }
+
+    @Test
+    void computeHashKeyShouldBeLowerCaseMd5Hex() {
+        assertEquals("5d41402abc4b2a76b9719d911017c592", ShardRouter.computeHashKey("hello"));
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", ShardRouter.computeHashKey(""));
+    }
+}
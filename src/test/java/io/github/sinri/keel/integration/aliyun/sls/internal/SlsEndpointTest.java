@@ -0,0 +1,21 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlsEndpointTest {
+    @Test
+    void domainEndpointShouldUseProjectSubdomain() {
+        SlsEndpoint endpoint = SlsEndpoint.parse("cn-hangzhou.log.aliyuncs.com");
+        assertEquals("https://demo.cn-hangzhou.log.aliyuncs.com/logstores/app/shards/lb", endpoint.url("demo", "/logstores/app/shards/lb"));
+        assertEquals("demo.cn-hangzhou.log.aliyuncs.com", endpoint.host("demo"));
+    }
+
+    @Test
+    void endpointWithSchemeShouldBeCalledDirectly() {
+        SlsEndpoint endpoint = SlsEndpoint.parse("http://127.0.0.1:8080/");
+        assertEquals("http://127.0.0.1:8080/logstores/app/shards/lb", endpoint.url("demo", "/logstores/app/shards/lb"));
+        assertEquals("demo.127.0.0.1:8080", endpoint.host("demo"));
+    }
+}
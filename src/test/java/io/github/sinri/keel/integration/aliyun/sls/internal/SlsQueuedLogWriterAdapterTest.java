@@ -0,0 +1,97 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.base.configuration.ConfigElement;
+import io.github.sinri.keel.base.configuration.NotConfiguredException;
+import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import io.github.sinri.keel.logger.api.log.Log;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlsQueuedLogWriterAdapterTest {
+    /**
+     * Config with a ring of 4 slots under the default unbounded policy; the adapter is never deployed, so nothing drains the ring.
+     */
+    private static AliyunSlsConfigElement ringConfig(long overflowBlockTimeoutMs) {
+        Map<String, String> values = new HashMap<>();
+        values.put("project", "demo-project");
+        values.put("logstore", "app-log");
+        values.put("ingressRing", "true");
+        values.put("maxQueuedLogs", "4");
+        values.put("overflowBlockTimeoutMs", String.valueOf(overflowBlockTimeoutMs));
+        return new AliyunSlsConfigElement(ConfigElement.root()) {
+            @Override
+            public String readString(List<String> keychain) throws NotConfiguredException {
+                String value = values.get(String.join(".", keychain));
+                return value == null ? super.readString(keychain) : value;
+            }
+
+            @Override
+            public boolean readBoolean(List<String> keychain) throws NotConfiguredException {
+                String value = values.get(String.join(".", keychain));
+                return value == null ? super.readBoolean(keychain) : Boolean.parseBoolean(value);
+            }
+
+            @Override
+            public int readInteger(List<String> keychain) throws NotConfiguredException {
+                String value = values.get(String.join(".", keychain));
+                return value == null ? super.readInteger(keychain) : Integer.parseInt(value);
+            }
+
+            @Override
+            public long readLong(List<String> keychain) throws NotConfiguredException {
+                String value = values.get(String.join(".", keychain));
+                return value == null ? super.readLong(keychain) : Long.parseLong(value);
+            }
+        };
+    }
+
+    @Test
+    void fullIngressRingShouldNotParkEventLoop() throws Exception {
+        SlsQueuedLogWriterAdapter adapter = new SlsQueuedLogWriterAdapter(ringConfig(60_000));
+        Vertx vertx = Vertx.vertx();
+        try {
+            CompletableFuture<Void> accepted = new CompletableFuture<>();
+            vertx.runOnContext(v -> {
+                for (int i = 0; i < 10; i++) {
+                    adapter.accept("event-loop-topic", new Log().message("log-" + i));
+                }
+                accepted.complete(null);
+            });
+            accepted.get(5, TimeUnit.SECONDS);
+        } finally {
+            vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(6, adapter.getIngressRingOverflowCount());
+        assertEquals(10, adapter.getQueuedLogCount());
+        assertEquals(0, adapter.getDroppedLogCount());
+    }
+
+    @Test
+    void fullIngressRingShouldBoundTheWaitOfOtherThreads() throws Exception {
+        SlsQueuedLogWriterAdapter adapter = new SlsQueuedLogWriterAdapter(ringConfig(50));
+        for (int i = 0; i < 4; i++) {
+            adapter.accept("worker-topic", new Log().message("log-" + i));
+        }
+        assertEquals(0, adapter.getIngressRingOverflowCount());
+
+        long start = System.nanoTime();
+        adapter.accept("worker-topic", new Log().message("overflow"));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMs >= 50, "waited " + waitedMs + " ms");
+        assertTrue(waitedMs < 5_000, "waited " + waitedMs + " ms");
+        assertEquals(1, adapter.getIngressRingOverflowCount());
+        assertEquals(5, adapter.getQueuedLogCount());
+        assertEquals(0, adapter.getDroppedLogCount());
+    }
+}
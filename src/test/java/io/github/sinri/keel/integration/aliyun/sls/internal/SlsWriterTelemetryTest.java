@@ -0,0 +1,92 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.logger.api.metric.MetricRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlsWriterTelemetryTest {
+    private static Optional<MetricRecord> find(List<MetricRecord> records, String name, String labelKey, String labelValue) {
+        return records.stream()
+                      .filter(r -> r.metricName().equals(SlsWriterTelemetry.METRIC_PREFIX + name))
+                      .filter(r -> labelKey.isEmpty() || labelValue.equals(r.labels().get(labelKey)))
+                      .findFirst();
+    }
+
+    @Test
+    void histogramShouldEstimatePercentilesByBucketUpperBound() {
+        StripedHistogram histogram = new StripedHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        StripedHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(100, snapshot.count());
+        assertEquals(5050, snapshot.sum());
+        assertEquals(100, snapshot.max());
+        // 50 lies in [32, 64), 90 and 99 lie in [64, 128) capped by the max
+        assertEquals(63, snapshot.p50());
+        assertEquals(100, snapshot.p90());
+        assertEquals(100, snapshot.p99());
+
+        assertEquals(0, histogram.snapshotAndReset().count());
+    }
+
+    @Test
+    void shouldExportPerTopicSeries() {
+        SlsWriterTelemetry telemetry = new SlsWriterTelemetry();
+        telemetry.recordBatch("p", "s", "orders", 10);
+        telemetry.recordEncode("p", "s", "orders", 2_000_000, 1000, 250);
+        telemetry.recordPutLogs("p", "s", "orders", 5_000_000, 200);
+        telemetry.recordPutLogs("p", "s", "orders", 5_000_000, 500);
+        telemetry.recordPutLogs("p", "s", "orders", 5_000_000, SlsWriterTelemetry.STATUS_TRANSPORT_ERROR);
+        telemetry.recordRetry("p", "s", "orders");
+        telemetry.recordFallback("p", "s", "payments", 3);
+        telemetry.recordEnqueueEncodeFailure("p", "s", "payments");
+
+        List<MetricRecord> records = telemetry.export(1_000L);
+
+        MetricRecord logs = find(records, "logs_total", "topic", "orders").orElseThrow();
+        assertEquals(10, logs.value());
+        assertEquals("p", logs.labels().get("project"));
+        assertEquals("s", logs.labels().get("logstore"));
+        assertEquals(1_000L, logs.timestamp());
+        assertEquals(4.0, find(records, "compression_ratio", "topic", "orders").orElseThrow().value());
+        assertEquals(2.0, find(records, "encode_ms_max", "topic", "orders").orElseThrow().value());
+        assertEquals(1, find(records, "put_logs_total", "status", "500").orElseThrow().value());
+        assertEquals(1, find(records, "put_logs_total", "status", "error").orElseThrow().value());
+        assertEquals(1, find(records, "retries_total", "topic", "orders").orElseThrow().value());
+        assertEquals(3, find(records, "fallback_logs_total", "topic", "payments").orElseThrow().value());
+        assertEquals(1, find(records, "enqueue_encode_failures_total", "topic", "payments").orElseThrow().value());
+        assertEquals(0, find(records, "enqueue_encode_failures_total", "topic", "orders").orElseThrow().value());
+
+        // Histograms are reset per export, counters are cumulative
+        List<MetricRecord> next = telemetry.export(2_000L);
+        assertEquals(0, find(next, "put_logs_ms_count", "topic", "orders").orElseThrow().value());
+        assertTrue(find(next, "put_logs_ms_max", "topic", "orders").isEmpty());
+        assertEquals(10, find(next, "logs_total", "topic", "orders").orElseThrow().value());
+    }
+
+    @Test
+    void topicsBeyondTheSeriesCapShouldShareTheOtherSeries() {
+        SlsWriterTelemetry telemetry = new SlsWriterTelemetry();
+        for (int i = 0; i < SlsWriterTelemetry.MAX_TOPIC_SERIES; i++) {
+            telemetry.recordRetry("p", "s", "topic-" + i);
+        }
+        telemetry.recordBatch("p", "s", "overflow-a", 2);
+        telemetry.recordBatch("p", "s", "overflow-b", 3);
+        telemetry.recordRetry("p", "s", "topic-0");
+
+        List<MetricRecord> records = telemetry.export(1_000L);
+
+        long retrySeries = records.stream()
+                                  .filter(r -> r.metricName().equals(SlsWriterTelemetry.METRIC_PREFIX + "retries_total"))
+                                  .count();
+        assertEquals(SlsWriterTelemetry.MAX_TOPIC_SERIES + 1, retrySeries);
+        assertEquals(5, find(records, "logs_total", "topic", SlsWriterTelemetry.OTHER_TOPIC).orElseThrow().value());
+        assertTrue(find(records, "logs_total", "topic", "overflow-a").isEmpty());
+        assertEquals(2, find(records, "retries_total", "topic", "topic-0").orElseThrow().value());
+    }
+}
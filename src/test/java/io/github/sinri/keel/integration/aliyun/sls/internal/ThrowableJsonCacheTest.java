@@ -0,0 +1,75 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrowableJsonCacheTest {
+    private static IllegalStateException failure(String message) {
+        return new IllegalStateException(message, new RuntimeException("cause"));
+    }
+
+    /**
+     * Creates the failures from a single call site, so their stack traces are identical.
+     */
+    private static Throwable[] failures(String... messages) {
+        Throwable[] throwables = new Throwable[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            throwables[i] = failure(messages[i]);
+        }
+        return throwables;
+    }
+
+    @Test
+    void shouldReuseJsonForIdenticalThrowables() {
+        AtomicInteger encodings = new AtomicInteger();
+        ThrowableJsonCache cache = new ThrowableJsonCache(16, 0, t -> "json-" + encodings.incrementAndGet());
+
+        Throwable[] throwables = failures("order 42 failed", "order 42 failed", "order 43 failed");
+        ThrowableJsonCache.EncodedThrowable first = cache.encode(throwables[0], 0);
+        ThrowableJsonCache.EncodedThrowable second = cache.encode(throwables[1], 1);
+        ThrowableJsonCache.EncodedThrowable other = cache.encode(throwables[2], 2);
+
+        assertEquals(2, encodings.get());
+        assertEquals(first.json(), second.json());
+        assertNotEquals(first.json(), other.json());
+        // The message template ignores digits, so both failures share a fingerprint
+        assertEquals(first.fingerprint(), other.fingerprint());
+        assertEquals(16, first.fingerprint().length());
+    }
+
+    @Test
+    void fingerprintShouldDependOnClassAndStack() {
+        Throwable[] throwables = failures("x", "x", "x");
+        Throwable b = new IllegalArgumentException("x", new RuntimeException("cause"));
+        b.setStackTrace(throwables[0].getStackTrace());
+        throwables[2].setStackTrace(new StackTraceElement[]{new StackTraceElement("Foo", "bar", "Foo.java", 1)});
+
+        long base = ThrowableJsonCache.fingerprint(throwables[0]).template();
+        assertEquals(base, ThrowableJsonCache.fingerprint(throwables[1]).template());
+        assertNotEquals(base, ThrowableJsonCache.fingerprint(b).template());
+        assertNotEquals(base, ThrowableJsonCache.fingerprint(throwables[2]).template());
+    }
+
+    @Test
+    void shouldSendFullTraceOncePerWindow() {
+        ThrowableJsonCache cache = new ThrowableJsonCache(16, 1_000, t -> "{\"full\":true}");
+
+        Throwable[] throwables = failures("boom 1", "boom 2", "boom 3");
+        ThrowableJsonCache.EncodedThrowable first = cache.encode(throwables[0], 0);
+        ThrowableJsonCache.EncodedThrowable repeat = cache.encode(throwables[1], 500);
+        ThrowableJsonCache.EncodedThrowable nextWindow = cache.encode(throwables[2], 1_000);
+
+        assertTrue(first.fullTrace());
+        assertFalse(repeat.fullTrace());
+        assertTrue(nextWindow.fullTrace());
+
+        JsonObject reference = new JsonObject(repeat.json());
+        assertEquals(IllegalStateException.class.getName(), reference.getString("class"));
+        assertEquals("boom 2", reference.getString("message"));
+        assertEquals(first.fingerprint(), reference.getString("fingerprint"));
+    }
+}
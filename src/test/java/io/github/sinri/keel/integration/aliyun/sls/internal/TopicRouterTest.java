@@ -0,0 +1,67 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal;
+
+import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicRouterTest {
+    private static final TopicRouter.Destination DEFAULT = new TopicRouter.Destination("project", "app-log");
+    private static final TopicRouter.Destination AUDIT = new TopicRouter.Destination("project", "audit-log");
+    private static final TopicRouter.Destination ACCESS = new TopicRouter.Destination("gateway", "access-log");
+    private static final TopicRouter.Destination METRIC = new TopicRouter.Destination("project", "metric-log");
+
+    private static TopicRouter router() {
+        return new TopicRouter(DEFAULT, List.of(
+                new TopicRoute(TopicRoute.MatchType.EXACT, "audit", AUDIT),
+                new TopicRoute(TopicRoute.MatchType.PREFIX, "access.", ACCESS),
+                new TopicRoute(TopicRoute.MatchType.REGEX, "metric-\\d+", METRIC),
+                new TopicRoute(TopicRoute.MatchType.PREFIX, "audit", ACCESS)
+        ));
+    }
+
+    @Test
+    void topicsShouldRouteToFirstMatchingRule() {
+        TopicRouter router = router();
+        assertTrue(router.hasRoutes());
+        assertEquals(AUDIT, router.route("audit"));
+        // "audit-trail" is not an exact match, so the later prefix rule applies
+        assertEquals(ACCESS, router.route("audit-trail"));
+        assertEquals(ACCESS, router.route("access.nginx"));
+        assertEquals(METRIC, router.route("metric-42"));
+        // Regex rules must match the whole topic
+        assertEquals(DEFAULT, router.route("metric-42x"));
+        assertEquals(DEFAULT, router.route("other"));
+        assertEquals(DEFAULT, router.route(null));
+        // Cached decisions are returned unchanged
+        assertSame(router.route("access.nginx"), router.route("access.nginx"));
+    }
+
+    @Test
+    void routerWithoutRulesShouldUseDefault() {
+        TopicRouter router = new TopicRouter(DEFAULT, List.of());
+        assertFalse(router.hasRoutes());
+        assertEquals(DEFAULT, router.route("audit"));
+        assertEquals("project/app-log", router.getDefaultDestination().toString());
+    }
+
+    @Test
+    void matchTypeShouldParseConfigValues() {
+        assertEquals(TopicRoute.MatchType.EXACT, TopicRoute.MatchType.fromConfigValue("exact"));
+        assertEquals(TopicRoute.MatchType.PREFIX, TopicRoute.MatchType.fromConfigValue("Prefix"));
+        assertEquals(TopicRoute.MatchType.REGEX, TopicRoute.MatchType.fromConfigValue("REGEX"));
+        assertNull(TopicRoute.MatchType.fromConfigValue("glob"));
+    }
+
+    @Test
+    void routesShouldBeBuiltFromConfig() {
+        TopicRoute route = TopicRoute.fromConfig(new AliyunSlsConfigElement.TopicRouteConfig("metric-\\d+", "regex", "project", "metric-log"));
+        assertEquals(TopicRoute.MatchType.REGEX, route.getMatchType());
+        assertEquals(METRIC, route.getDestination());
+        assertTrue(route.matches("metric-7"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TopicRoute.fromConfig(new AliyunSlsConfigElement.TopicRouteConfig("audit", "glob", "project", "audit-log")));
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.entity;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogGroupEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogGroupTest {
+    @Test
+    void serializedSizeShouldMatchEncodedLength() {
+        LogGroup logGroup = new LogGroup("topic", "source")
+                .addLogTag(new LogTag("env", "test"));
+        assertEquals(LogGroupEncoder.encodeToByteArray(logGroup).length, logGroup.getSerializedSize());
+
+        logGroup.addLogItem(new LogItem(1_720_000_000_123L)
+                .addContent("level", "INFO")
+                .addContent("message", "日志内容 with ascii"));
+        logGroup.addLogItem(new LogItem(1_720_000_001)
+                .addContent("payload", "x".repeat(200)));
+
+        assertEquals(LogGroupEncoder.encodeToByteArray(logGroup).length, logGroup.getSerializedSize());
+        assertEquals(logGroup.toProtobuf().getSerializedSize(), logGroup.getSerializedSize());
+
+        logGroup.addLogTags(List.of(new LogTag("region", "cn-hangzhou"), new LogTag("host", "主机-01")));
+        assertEquals(LogGroupEncoder.encodeToByteArray(logGroup).length, logGroup.getSerializedSize());
+        assertEquals(logGroup.toProtobuf().getSerializedSize(), logGroup.getSerializedSize());
+    }
+
+    @Test
+    void logItemSerializedSizeShouldFollowNanoPartChanges() {
+        LogItem logItem = new LogItem(1_720_000_000).addContent("k", "v");
+        int sizeWithoutNano = logItem.getSerializedSize();
+
+        logItem.setNanoPartOfTime(1);
+        assertEquals(logItem.toProtobuf().getSerializedSize(), logItem.getSerializedSize());
+        logItem.setNanoPartOfTime(2);
+        assertEquals(logItem.toProtobuf().getSerializedSize(), logItem.getSerializedSize());
+        logItem.setNanoPartOfTime(null);
+        assertEquals(sizeWithoutNano, logItem.getSerializedSize());
+    }
+
+    @Test
+    void canAcceptShouldRespectItemCountLimit() {
+        LogGroup logGroup = new LogGroup("topic", null, Integer.MAX_VALUE, 3);
+        for (int i = 0; i < 3; i++) {
+            LogItem logItem = new LogItem(i).addContent("i", String.valueOf(i));
+            assertTrue(logGroup.canAccept(logItem));
+            logGroup.addLogItem(logItem);
+        }
+
+        assertFalse(logGroup.canAccept(new LogItem(3).addContent("i", "3")));
+    }
+
+    @Test
+    void canAcceptShouldRespectExactByteLimit() {
+        LogItem first = new LogItem(1).addContent("payload", "a".repeat(100));
+        LogItem second = new LogItem(2).addContent("payload", "b".repeat(100));
+        LogGroup probe = new LogGroup("topic", null).addLogItem(first).addLogItem(second);
+        int exactSize = probe.getSerializedSize();
+
+        LogGroup fits = new LogGroup("topic", null, exactSize, LogGroup.DEFAULT_MAX_LOG_ITEMS).addLogItem(first);
+        assertTrue(fits.canAccept(second));
+
+        LogGroup tooSmall = new LogGroup("topic", null, exactSize - 1, LogGroup.DEFAULT_MAX_LOG_ITEMS).addLogItem(first);
+        assertFalse(tooSmall.canAccept(second));
+    }
+
+    @Test
+    void emptyGroupShouldAcceptOversizedItem() {
+        LogGroup logGroup = new LogGroup("topic", null, 16, 1);
+
+        assertTrue(logGroup.isEmpty());
+        assertTrue(logGroup.canAccept(new LogItem(1).addContent("payload", "x".repeat(64))));
+    }
+}
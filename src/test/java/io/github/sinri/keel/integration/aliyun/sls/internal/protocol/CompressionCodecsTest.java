@@ -0,0 +1,82 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionCodecsTest {
+    private static Buffer sample() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("{\"orderId\":\"ORD-").append(i).append("\",\"amount\":").append(i * 3.5).append("}\n");
+        }
+        return Buffer.buffer(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void everyCodecShouldRoundTrip() {
+        Buffer raw = sample();
+        for (CompressionCodec codec : new CompressionCodec[]{
+                CompressionCodecs.lz4(), CompressionCodecs.zstd(), CompressionCodecs.zstd(9), CompressionCodecs.deflate()
+        }) {
+            Buffer compressed = codec.compress(raw);
+            assertTrue(compressed.length() < raw.length(), codec.getCompressType());
+            assertArrayEquals(raw.getBytes(), codec.decompress(compressed, raw.length()).getBytes(), codec.getCompressType());
+        }
+    }
+
+    @Test
+    void incompressibleAndEmptyInputShouldRoundTrip() {
+        byte[] noise = new byte[70_000];
+        new java.util.Random(7).nextBytes(noise);
+        Buffer raw = Buffer.buffer(noise);
+        for (CompressionCodec codec : new CompressionCodec[]{
+                CompressionCodecs.lz4(), CompressionCodecs.zstd(), CompressionCodecs.deflate()
+        }) {
+            assertArrayEquals(noise, codec.decompress(codec.compress(raw), noise.length).getBytes());
+            assertEquals(0, codec.compress(Buffer.buffer()).length());
+        }
+    }
+
+    @Test
+    void directByteBufPathShouldRoundTripWithoutTouchingSource() {
+        byte[] raw = sample().getBytes();
+        for (CompressionCodec codec : new CompressionCodec[]{
+                CompressionCodecs.lz4(), CompressionCodecs.zstd(), CompressionCodecs.deflate()
+        }) {
+            ByteBuf source = PooledByteBufAllocator.DEFAULT.directBuffer(raw.length);
+            source.writeBytes(raw);
+            ByteBuf compressed = codec.compress(source, PooledByteBufAllocator.DEFAULT);
+            try {
+                assertEquals(0, source.readerIndex());
+                assertEquals(raw.length, source.writerIndex());
+                Buffer restored = codec.decompress(Buffer.buffer(ByteBufUtil.getBytes(compressed)), raw.length);
+                assertArrayEquals(raw, restored.getBytes(), codec.getCompressType());
+            } finally {
+                assertTrue(source.release());
+                assertTrue(compressed.release());
+            }
+        }
+        ByteBuf lz4 = CompressionCodecs.lz4().compress(Unpooled.wrappedBuffer(raw), PooledByteBufAllocator.DEFAULT);
+        try {
+            assertArrayEquals(Lz4Utils.compress(raw), ByteBufUtil.getBytes(lz4));
+        } finally {
+            lz4.release();
+        }
+    }
+
+    @Test
+    void forCompressTypeShouldResolveKnownNames() {
+        assertEquals("lz4", CompressionCodecs.forCompressType("LZ4").getCompressType());
+        assertEquals("zstd", CompressionCodecs.forCompressType("zstd").getCompressType());
+        assertEquals("deflate", CompressionCodecs.forCompressType("deflate").getCompressType());
+        assertNull(CompressionCodecs.forCompressType("gzip"));
+    }
+}
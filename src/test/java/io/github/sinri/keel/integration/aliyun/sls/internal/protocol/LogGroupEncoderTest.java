@@ -0,0 +1,142 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.protocol;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.EncodedLogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogGroupEncoderTest {
+    @Test
+    void encodeShouldMatchDynamicMessageForTypicalGroup() {
+        LogGroup logGroup = new LogGroup("test-topic", "192.0.2.1")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogTag(new LogTag("region", "cn-hangzhou"))
+                .addLogItem(new LogItem(1_720_000_000)
+                        .addContent("level", "INFO")
+                        .addContent("message", "hello"))
+                .addLogItem(new LogItem(1_720_000_001_234L)
+                        .addContent("level", "ERROR")
+                        .addContent("context", "{\"orderId\":\"ORD-2024-001\",\"amount\":99.99}"));
+
+        assertSameBytes(logGroup);
+    }
+
+    @Test
+    void encodeShouldWriteUtf8ContentValuesAsStrings() {
+        LogGroup logGroup = new LogGroup("test-topic", "")
+                .addLogItem(new LogItem(1_720_000_000)
+                        .addContent("context", "{\"city\":\"杭州\"}".getBytes(StandardCharsets.UTF_8))
+                        .addContent("message", "hello"));
+
+        assertSameBytes(logGroup);
+        String json = "{\"city\":\"杭州\"}";
+        assertEquals(
+                new LogContent("context", json).getSerializedSize(),
+                new LogContent("context", json.getBytes(StandardCharsets.UTF_8)).getSerializedSize()
+        );
+    }
+
+    @Test
+    void encodeShouldMatchDynamicMessageWithoutTopicAndSource() {
+        LogGroup logGroup = new LogGroup(null, null)
+                .addLogItem(new LogItem(0).addContent("k", ""));
+
+        assertSameBytes(logGroup);
+    }
+
+    @Test
+    void encodeShouldMatchDynamicMessageForEmptyStringsAndEmptyGroup() {
+        assertSameBytes(new LogGroup("", ""));
+        assertSameBytes(new LogGroup("topic", null).addLogItem(new LogItem(1)));
+    }
+
+    @Test
+    void encodeShouldMatchDynamicMessageForMultiByteContent() {
+        LogGroup logGroup = new LogGroup("日志主题", "来源")
+                .addLogItem(new LogItem(1_720_000_000)
+                        .setNanoPartOfTime(999_999_999)
+                        .addContent("消息", "写入阿里云日志服务 🚀 emoji and 中文"));
+
+        assertSameBytes(logGroup);
+    }
+
+    @Test
+    void encodeShouldMatchDynamicMessageForLargeGroup() {
+        LogGroup logGroup = new LogGroup("bulk", "source");
+        String longValue = "x".repeat(300);
+        for (int i = 0; i < 1000; i++) {
+            logGroup.addLogItem(new LogItem(1_720_000_000 + i)
+                    .addContent("index", String.valueOf(i))
+                    .addContent("payload", longValue));
+        }
+
+        assertSameBytes(logGroup);
+    }
+
+    @Test
+    void encodeBufferShouldMatchByteArray() {
+        LogGroup logGroup = new LogGroup("topic", "source")
+                .addLogItem(new LogItem(1_720_000_000).addContent("message", "buffer"));
+
+        assertArrayEquals(LogGroupEncoder.encodeToByteArray(logGroup), LogGroupEncoder.encode(logGroup).getBytes());
+    }
+
+    @Test
+    void encodeIntoDirectByteBufShouldMatchByteArray() {
+        LogGroup logGroup = new LogGroup("topic", "source")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogItem(new LogItem(1_720_000_000).addContent("message", "直接内存"));
+
+        ByteBuf byteBuf = LogGroupEncoder.encode(logGroup, PooledByteBufAllocator.DEFAULT);
+        try {
+            assertTrue(byteBuf.isDirect());
+            assertArrayEquals(LogGroupEncoder.encodeToByteArray(logGroup), ByteBufUtil.getBytes(byteBuf));
+        } finally {
+            assertTrue(byteBuf.release());
+        }
+    }
+
+    @Test
+    void preEncodedLogItemsShouldBeSplicedWithoutChangingBytes() {
+        LogItem first = new LogItem(1_720_000_001_234L)
+                .addContent("level", "ERROR")
+                .addContent("context", "{\"city\":\"杭州\"}".getBytes(StandardCharsets.UTF_8));
+        LogItem second = new LogItem(1_720_000_000).addContent("message", "plain");
+        LogGroup plain = new LogGroup("topic", "source")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogItem(first)
+                .addLogItem(second);
+
+        EncodedLogItem encoded = EncodedLogItem.encode(first);
+        assertEquals(first.getSerializedSize(), encoded.getSerializedSize());
+        LogGroup spliced = new LogGroup("topic", "source")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogItem(encoded)
+                .addLogItem(second);
+        assertArrayEquals(LogGroupEncoder.encodeToByteArray(plain), LogGroupEncoder.encodeToByteArray(spliced));
+        assertSameBytes(spliced);
+
+        // Contents are decoded back only when read, e.g. for fallback output
+        assertEquals(2, encoded.getContents().size());
+        assertEquals("level", encoded.getContents().get(0).getKey());
+        assertEquals("{\"city\":\"杭州\"}", encoded.getContents().get(1).getValue());
+        assertEquals(Integer.valueOf(234), encoded.getNanoPartOfTime());
+        assertEquals(first.getTime(), encoded.getTime());
+        assertEquals(first.toProtobuf(), encoded.toProtobuf());
+    }
+
+    private static void assertSameBytes(LogGroup logGroup) {
+        assertArrayEquals(logGroup.toProtobuf().toByteArray(), LogGroupEncoder.encodeToByteArray(logGroup));
+    }
+}
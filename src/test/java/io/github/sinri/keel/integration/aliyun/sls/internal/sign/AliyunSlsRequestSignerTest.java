@@ -0,0 +1,84 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.sign;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliyunSlsRequestSignerTest {
+    private final AliyunSlsRequestSigner signer = new AliyunSlsRequestSigner("test-id", "test-secret");
+
+    @Test
+    void signatureShouldMatchSignatureKit() {
+        String signature = signer.message("POST", "49DFDD54B01CBCD2D2AB5E9E5EE6B9B9", "application/json",
+                                          "Tue, 23 Aug 2022 12:12:03 GMT")
+                                 .header("x-log-apiversion", "0.6.0")
+                                 .header("x-log-bodyrawsize", "0")
+                                 .header("x-log-signaturemethod", "hmac-sha1")
+                                 .sign("/logstores", "offset=1&size=10");
+
+        assertEquals("gXVb+439g2a3lRG1kSJRWITwS1w=", signature);
+    }
+
+    @Test
+    void signatureShouldMatchSignatureKitForPutLogsAndGetRequests() {
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("Content-MD5", "0123456789ABCDEF0123456789ABCDEF");
+        headers.put("Content-Type", "application/x-protobuf");
+        headers.put("Host", "project.cn-hangzhou.log.aliyuncs.com");
+        headers.put("x-log-apiversion", "0.6.0");
+        headers.put("x-log-bodyrawsize", "1024");
+        headers.put("x-log-compresstype", "lz4");
+        headers.put("x-log-signaturemethod", "hmac-sha1");
+        String date = "Mon, 09 Nov 2015 06:11:16 GMT";
+
+        String expected = AliyunSlsSignatureKit.calculateSignature(
+                "POST", Buffer.buffer(), "application/x-protobuf", date, headers,
+                "/logstores/store/shards/route", "key=00000000000000000000000000000000", "test-secret");
+        String actual = signer.message("POST", "0123456789ABCDEF0123456789ABCDEF", "application/x-protobuf", date)
+                              .header("x-log-apiversion", "0.6.0")
+                              .header("x-log-bodyrawsize", "1024")
+                              .header("x-log-compresstype", "lz4")
+                              .header("x-log-signaturemethod", "hmac-sha1")
+                              .sign("/logstores/store/shards/route", "key=00000000000000000000000000000000");
+        assertEquals(expected, actual);
+
+        Map<String, String> getHeaders = Map.of(
+                "x-log-apiversion", "0.6.0",
+                "x-log-bodyrawsize", "0",
+                "x-log-signaturemethod", "hmac-sha1"
+        );
+        String expectedGet = AliyunSlsSignatureKit.calculateSignature(
+                "GET", null, null, date, getHeaders, "/logstores/存储/shards", null, "test-secret");
+        String authorization = signer.message("GET", null, null, date)
+                                     .header("x-log-apiversion", "0.6.0")
+                                     .header("x-log-bodyrawsize", "0")
+                                     .header("x-log-signaturemethod", "hmac-sha1")
+                                     .authorization("/logstores/存储/shards", null);
+        assertEquals("LOG test-id:" + expectedGet, authorization);
+    }
+
+    @Test
+    void headersOutOfOrderShouldBeRejected() {
+        AliyunSlsRequestSigner.MessageBuilder builder = signer.message("GET", null, null, "date")
+                                                              .header("x-log-signaturemethod", "hmac-sha1");
+        assertThrows(IllegalArgumentException.class, () -> builder.header("x-log-apiversion", "0.6.0"));
+    }
+
+    @Test
+    void gmtDateShouldMatchRfc1123Format() {
+        SimpleDateFormat legacy = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
+        legacy.setTimeZone(TimeZone.getTimeZone("GMT"));
+        for (long epochSecond : new long[]{0L, 1_441_779_076L, 1_720_000_000L, 1_767_225_599L}) {
+            assertEquals(legacy.format(new Date(epochSecond * 1000)), AliyunSlsRequestSigner.formatGmtDate(epochSecond));
+        }
+        assertEquals(AliyunSlsRequestSigner.currentGmtDate().length(), AliyunSlsSignatureKit.getGMTDate().length());
+    }
+}
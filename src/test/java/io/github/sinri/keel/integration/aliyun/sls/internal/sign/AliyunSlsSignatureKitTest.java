@@ -1,8 +1,11 @@
 package io.github.sinri.keel.integration.aliyun.sls.internal.sign;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.vertx.core.buffer.Buffer;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -16,6 +19,21 @@ class AliyunSlsSignatureKitTest {
         assertEquals("49DFDD54B01CBCD2D2AB5E9E5EE6B9B9", AliyunSlsSignatureKit.contentMd5(body));
     }
 
+    @Test
+    void contentMd5OfDirectByteBufShouldMatchBuffer() {
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            direct.writeBytes("skip".getBytes(StandardCharsets.UTF_8));
+            direct.readerIndex(4);
+            direct.writeBytes("{\"hello\": \"world\"}".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("49DFDD54B01CBCD2D2AB5E9E5EE6B9B9", AliyunSlsSignatureKit.contentMd5(direct));
+            assertEquals(4, direct.readerIndex());
+        } finally {
+            direct.release();
+        }
+    }
+
     @Test
     void buildSignatureMessageShouldUseContentMd5Header() {
         Map<String, String> headers = new TreeMap<>();
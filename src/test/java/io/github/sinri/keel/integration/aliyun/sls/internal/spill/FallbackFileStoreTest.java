@@ -0,0 +1,106 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroupItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FallbackFileStoreTest {
+    @TempDir
+    Path directory;
+
+    private static FallbackRecord record(int index) {
+        LogGroup logGroup = new LogGroup("topic-" + index, "source")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogItem(new LogItem(1_720_000_000 + index)
+                        .setNanoPartOfTime(index)
+                        .addContent("message", "line \"" + index + "\"\n中文")
+                        .addContent("context", "{\"k\":1}".getBytes(StandardCharsets.UTF_8))
+                        .addContent("message", "duplicate key"));
+        return new FallbackRecord("project", "logstore", logGroup);
+    }
+
+    private static List<FallbackRecord> readAll(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                    .map(FallbackFileStore::decode)
+                    .filter(record -> record != null)
+                    .toList();
+    }
+
+    @Test
+    void recordsShouldRoundTripThroughClosedFiles() throws IOException {
+        try (FallbackFileStore store = FallbackFileStore.open(directory, 1024 * 1024, 60_000, 1024 * 1024 * 1024)) {
+            assertTrue(store.append(record(1)));
+            assertTrue(store.append(record(2)));
+            // The active file is not listed until it rotates or the store is closed
+            assertTrue(store.listClosedFiles().isEmpty());
+        }
+        try (FallbackFileStore store = FallbackFileStore.open(directory, 1024 * 1024, 60_000, 1024 * 1024 * 1024)) {
+            List<Path> files = store.listClosedFiles();
+            assertEquals(1, files.size());
+            List<FallbackRecord> records = readAll(files.get(0));
+            assertEquals(2, records.size());
+
+            FallbackRecord first = records.get(0);
+            assertEquals("project", first.project());
+            assertEquals("logstore", first.logstore());
+            assertEquals("topic-1", first.logGroup().getTopic());
+            assertEquals("test", first.logGroup().getLogTags().get(0).getValue());
+            LogGroupItem logItem = first.logGroup().getLogItems().get(0);
+            assertEquals(1_720_000_001, logItem.getTime());
+            assertEquals(Integer.valueOf(1), logItem.getNanoPartOfTime());
+            assertEquals(3, logItem.getContents().size());
+            assertEquals("line \"1\"\n中文", logItem.getContents().get(0).getValue());
+            assertEquals("{\"k\":1}", logItem.getContents().get(1).getValue());
+            assertEquals("duplicate key", logItem.getContents().get(2).getValue());
+
+            store.delete(files.get(0));
+            assertTrue(store.listClosedFiles().isEmpty());
+            assertEquals(0, store.getTotalBytes());
+        }
+    }
+
+    @Test
+    void filesShouldRotateBySizeAndStopAtCapacity() throws IOException {
+        try (FallbackFileStore store = FallbackFileStore.open(directory, 200, 60_000, 1500)) {
+            int appended = 0;
+            while (store.append(record(appended))) {
+                appended++;
+            }
+            assertTrue(appended > 2);
+            store.flush();
+            assertEquals(appended, store.listClosedFiles().size());
+            assertTrue(store.getTotalBytes() >= 1500);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.allMatch(file -> file.getFileName().toString().endsWith(".ndjson")));
+        }
+    }
+
+    @Test
+    void truncatedLineShouldBeSkipped() throws IOException {
+        try (FallbackFileStore store = FallbackFileStore.open(directory, 1024 * 1024, 60_000, 1024 * 1024 * 1024)) {
+            assertTrue(store.append(record(1)));
+        }
+        Path file;
+        try (Stream<Path> files = Files.list(directory)) {
+            file = files.findFirst().orElseThrow();
+        }
+        Files.writeString(file, "{\"project\":\"project\",\"logs\":[{\"ti", StandardOpenOption.APPEND);
+
+        assertEquals(1, readAll(file).size());
+        assertNull(FallbackFileStore.decode("{\"project\":\"project\",\"logs\":[{\"ti"));
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.sinri.keel.integration.aliyun.sls.internal.spill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillStoreTest {
+    private static final long SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private static SpillRecord record(int index, int payloadSize) {
+        byte[] payload = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            payload[i] = (byte) (index + i);
+        }
+        return new SpillRecord("project", "logstore-" + index, "lz4", index * 10, payload);
+    }
+
+    private static void assertRecord(int index, int payloadSize, SpillRecord actual) {
+        SpillRecord expected = record(index, payloadSize);
+        assertEquals(expected.project(), actual.project());
+        assertEquals(expected.logstore(), actual.logstore());
+        assertEquals(expected.compressType(), actual.compressType());
+        assertEquals(expected.rawSize(), actual.rawSize());
+        assertArrayEquals(expected.payload(), actual.payload());
+    }
+
+    @Test
+    void recordsShouldBeReadInOrderAcrossSegments() throws IOException {
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            assertFalse(store.hasPending());
+            assertNull(store.peek());
+
+            for (int i = 0; i < 20; i++) {
+                assertTrue(store.append(record(i, 500)));
+            }
+            assertTrue(store.getSegmentCount() > 1);
+
+            for (int i = 0; i < 20; i++) {
+                SpillRecord peeked = store.peek();
+                assertNotNull(peeked);
+                assertRecord(i, 500, peeked);
+                assertRecord(i, 500, store.peek());
+                store.commit();
+            }
+            assertNull(store.peek());
+            assertFalse(store.hasPending());
+            assertEquals(1, store.getSegmentCount());
+        }
+    }
+
+    @Test
+    void reopenShouldResumeFromCheckpoint() throws IOException {
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(record(i, 700));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertNotNull(store.peek());
+                store.commit();
+            }
+            // peeked but not committed: delivered again after restart
+            assertNotNull(store.peek());
+        }
+
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            assertTrue(store.hasPending());
+            for (int i = 4; i < 10; i++) {
+                SpillRecord peeked = store.peek();
+                assertNotNull(peeked);
+                assertRecord(i, 700, peeked);
+                store.commit();
+            }
+            assertNull(store.peek());
+            assertTrue(store.append(record(10, 10)));
+            assertRecord(10, 10, store.peek());
+        }
+    }
+
+    @Test
+    void appendShouldBeRejectedWhenFullOrOversized() throws IOException {
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 2)) {
+            assertFalse(store.append(record(0, (int) SEGMENT_SIZE)));
+
+            int appended = 0;
+            while (store.append(record(appended, 1000))) {
+                appended++;
+            }
+            assertEquals(6, appended);
+            assertEquals(2, store.getSegmentCount());
+
+            // draining the first segment frees room for a new one
+            for (int i = 0; i < 3; i++) {
+                store.peek();
+                store.commit();
+            }
+            store.peek();
+            assertTrue(store.append(record(6, 1000)));
+        }
+    }
+
+    @Test
+    void tornRecordShouldBeDiscardedOnReopen() throws IOException {
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            store.append(record(0, 100));
+            store.append(record(1, 100));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".spill")).findFirst().orElseThrow();
+        }
+        int secondRecordOffset = 8 + 4 + 2 + 7 + 2 + "logstore-0".length() + 2 + 3 + 100;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), secondRecordOffset + 20);
+        }
+
+        try (SpillStore store = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            assertRecord(0, 100, store.peek());
+            store.commit();
+            assertNull(store.peek());
+
+            assertTrue(store.append(record(2, 100)));
+            assertRecord(2, 100, store.peek());
+        }
+    }
+
+    @Test
+    void directoryShouldBeLockedByOneStore() throws IOException {
+        try (SpillStore ignored = SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16)) {
+            assertThrows(IOException.class, () -> SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16));
+        }
+        SpillStore.open(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16).close();
+    }
+}
@@ -0,0 +1,521 @@
+package io.github.sinri.keel.integration.aliyun.sls.mock;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.LogEntityDescriptors;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.Lz4Utils;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsSignatureKit;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 内嵌的 SLS 替身服务，用于不依赖阿里云账号的集成测试与压测。
+ * <p>
+ * 支持 PutLogs（{@code /shards/lb} 与 {@code /shards/route}）、ListShards 与 GetLogsV2：
+ * 校验 LOG 签名与 Content-MD5，按 {@code x-log-compresstype} 解压 PutLogs 请求体并解码 Protobuf 后存入内存，
+ * GetLogsV2 从内存中按时间区间与主题查询，并按 {@code Accept-Encoding: lz4} 压缩响应。
+ * <p>
+ * 通过 {@link FaultProfile} 注入固定延迟以及按比例出现的限流（429）、服务端错误（500）与连接重置；
+ * 通过 {@link #scriptFaults(Fault...)} 指定接下来若干个请求的故障，便于编写确定性的测试。
+ * <p>
+ * 发送方将接入点配置为 {@link #getEndpoint()}（如 {@code http://127.0.0.1:12345}）即可，Project 取自 {@code Host} 请求头。
+ */
+@NullMarked
+public final class MockSlsServer {
+    private static final Pattern PUT_LOGS_PATH = Pattern.compile("^/logstores/([^/]+)/shards/(lb|route)$");
+    private static final Pattern LIST_SHARDS_PATH = Pattern.compile("^/logstores/([^/]+)/shards$");
+    private static final Pattern GET_LOGS_PATH = Pattern.compile("^/logstores/([^/]+)/logs$");
+
+    private final Vertx vertx;
+    private final String accessKeyId;
+    private final String accessKeySecret;
+    private final Map<String, Queue<StoredLog>> store = new ConcurrentHashMap<>();
+    private final Queue<Fault> scriptedFaults = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, AtomicInteger> responseCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger putLogsRequests = new AtomicInteger();
+    private final AtomicInteger resets = new AtomicInteger();
+    private volatile FaultProfile faultProfile = FaultProfile.none();
+    private volatile Random random = new Random(0);
+    private volatile boolean retainLogs = true;
+    private volatile @Nullable Consumer<StoredLog> storeListener;
+    private @Nullable HttpServer server;
+
+    public MockSlsServer(Vertx vertx, String accessKeyId, String accessKeySecret) {
+        this.vertx = vertx;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+    }
+
+    /**
+     * 在本机回环地址的随机端口上启动。
+     *
+     * @return 启动完成时完成的 Future
+     */
+    public Future<MockSlsServer> start() {
+        return start(0);
+    }
+
+    /**
+     * 在本机回环地址的指定端口上启动。
+     *
+     * @param port 端口，为 0 时随机选择
+     * @return 启动完成时完成的 Future
+     */
+    public Future<MockSlsServer> start(int port) {
+        return vertx.createHttpServer(new HttpServerOptions().setHost("127.0.0.1").setPort(port))
+                    .requestHandler(this::handle)
+                    .listen()
+                    .map(listening -> {
+                        this.server = listening;
+                        return this;
+                    });
+    }
+
+    public Future<Void> close() {
+        HttpServer current = this.server;
+        if (current == null) {
+            return Future.succeededFuture();
+        }
+        return current.close();
+    }
+
+    /**
+     * @return 供发送方配置的接入点
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public int getPort() {
+        return Objects.requireNonNull(server, "server not started").actualPort();
+    }
+
+    /**
+     * 设置故障注入配置，并以其随机种子重置随机序列。
+     */
+    public void setFaultProfile(FaultProfile faultProfile) {
+        this.faultProfile = faultProfile;
+        this.random = new Random(faultProfile.seed());
+    }
+
+    /**
+     * 设置是否在内存中保留收到的日志；长时间压测时可关闭，只通过 {@link #setStoreListener(Consumer)} 观察。
+     */
+    public void setRetainLogs(boolean retainLogs) {
+        this.retainLogs = retainLogs;
+    }
+
+    /**
+     * 设置每条日志被成功写入时的回调，在事件循环线程上调用，不应阻塞。
+     */
+    public void setStoreListener(@Nullable Consumer<StoredLog> storeListener) {
+        this.storeListener = storeListener;
+    }
+
+    /**
+     * 指定接下来若干个请求依次遇到的故障，优先于 {@link FaultProfile} 的随机故障。
+     */
+    public void scriptFaults(Fault... faults) {
+        scriptedFaults.addAll(Arrays.asList(faults));
+    }
+
+    /**
+     * @return 已存入的日志，按写入顺序排列
+     */
+    public List<StoredLog> getLogs(String project, String logstore) {
+        Queue<StoredLog> logs = store.get(storeKey(project, logstore));
+        return logs == null ? List.of() : List.copyOf(logs);
+    }
+
+    /**
+     * @return 收到的 PutLogs 请求数（含被注入故障的请求）
+     */
+    public int getPutLogsRequests() {
+        return putLogsRequests.get();
+    }
+
+    /**
+     * @return 以该状态码响应的请求数
+     */
+    public int getResponseCount(int statusCode) {
+        AtomicInteger counter = responseCounts.get(statusCode);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * @return 被注入重置的连接数
+     */
+    public int getResets() {
+        return resets.get();
+    }
+
+    private static String storeKey(String project, String logstore) {
+        return project + "/" + logstore;
+    }
+
+    private void handle(HttpServerRequest request) {
+        request.body()
+               .onSuccess(body -> {
+                   if (PUT_LOGS_PATH.matcher(request.path()).matches()) {
+                       putLogsRequests.incrementAndGet();
+                   }
+                   Fault fault = nextFault();
+                   long latencyMs = faultProfile.latencyMs();
+                   if (latencyMs > 0) {
+                       vertx.setTimer(latencyMs, timerId -> respond(request, body, fault));
+                   } else {
+                       respond(request, body, fault);
+                   }
+               })
+               .onFailure(throwable -> request.connection().close());
+    }
+
+    private Fault nextFault() {
+        Fault scripted = scriptedFaults.poll();
+        if (scripted != null) {
+            return scripted;
+        }
+        FaultProfile profile = this.faultProfile;
+        double dice;
+        synchronized (this) {
+            dice = random.nextDouble();
+        }
+        if (dice < profile.throttleRate()) {
+            return Fault.THROTTLE;
+        }
+        dice -= profile.throttleRate();
+        if (dice < profile.serverErrorRate()) {
+            return Fault.SERVER_ERROR;
+        }
+        dice -= profile.serverErrorRate();
+        if (dice < profile.resetRate()) {
+            return Fault.RESET;
+        }
+        return Fault.NONE;
+    }
+
+    private void respond(HttpServerRequest request, Buffer body, Fault fault) {
+        switch (fault) {
+            case RESET -> {
+                resets.incrementAndGet();
+                request.connection().close();
+                return;
+            }
+            case THROTTLE -> {
+                error(request, 429, "WriteQuotaExceed", "Project write quota exceed");
+                return;
+            }
+            case SERVER_ERROR -> {
+                error(request, 500, "InternalServerError", "Injected server error");
+                return;
+            }
+            default -> {
+            }
+        }
+
+        String authenticationError = authenticate(request, body);
+        if (authenticationError != null) {
+            error(request, 401, "SignatureNotMatch", authenticationError);
+            return;
+        }
+        String project = resolveProject(request);
+        Matcher matcher;
+        if (request.method() == HttpMethod.POST && (matcher = PUT_LOGS_PATH.matcher(request.path())).matches()) {
+            putLogs(request, project, matcher.group(1), body);
+        } else if (request.method() == HttpMethod.GET && (matcher = LIST_SHARDS_PATH.matcher(request.path())).matches()) {
+            listShards(request);
+        } else if (request.method() == HttpMethod.POST && (matcher = GET_LOGS_PATH.matcher(request.path())).matches()) {
+            getLogs(request, project, matcher.group(1), body);
+        } else {
+            error(request, 404, "RequestNotSupported", request.method() + " " + request.path());
+        }
+    }
+
+    /**
+     * 按 SLS 的规则重新计算 LOG 签名并与请求比对，同时校验 Content-MD5。
+     *
+     * @return 校验失败的原因，通过时为 null
+     */
+    private @Nullable String authenticate(HttpServerRequest request, Buffer body) {
+        String authorization = request.getHeader("Authorization");
+        String prefix = "LOG " + accessKeyId + ":";
+        if (authorization == null || !authorization.startsWith(prefix)) {
+            return "Authorization header missing or AccessKeyId mismatch";
+        }
+        String date = request.getHeader("Date");
+        if (date == null) {
+            return "Date header missing";
+        }
+        String contentMd5 = request.getHeader("Content-MD5");
+        if (body.length() > 0 && (contentMd5 == null || !contentMd5.equals(AliyunSlsSignatureKit.contentMd5(body)))) {
+            return "Content-MD5 mismatch";
+        }
+
+        Map<String, String> signedHeaders = new HashMap<>();
+        request.headers().forEach(header -> {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith("x-log-") || name.startsWith("x-acs-")) {
+                signedHeaders.put(name, header.getValue());
+            }
+        });
+        if (contentMd5 != null) {
+            signedHeaders.put("Content-MD5", contentMd5);
+        }
+        String expected = AliyunSlsSignatureKit.calculateSignature(
+                request.method().name(),
+                body,
+                request.getHeader("Content-Type"),
+                date,
+                signedHeaders,
+                request.path(),
+                request.query(),
+                accessKeySecret
+        );
+        if (!authorization.substring(prefix.length()).equals(expected)) {
+            return "Signature mismatch";
+        }
+        return null;
+    }
+
+    private static String resolveProject(HttpServerRequest request) {
+        String host = request.getHeader("Host");
+        if (host == null) {
+            return "";
+        }
+        int dot = host.indexOf('.');
+        return dot < 0 ? host : host.substring(0, dot);
+    }
+
+    private void putLogs(HttpServerRequest request, String project, String logstore, Buffer body) {
+        String rawSizeHeader = request.getHeader("x-log-bodyrawsize");
+        String compressType = request.getHeader("x-log-compresstype");
+        Buffer raw;
+        try {
+            if (compressType == null || compressType.isEmpty()) {
+                raw = body;
+            } else {
+                CompressionCodec codec = CompressionCodecs.forCompressType(compressType);
+                if (codec == null || rawSizeHeader == null) {
+                    error(request, 400, "InvalidCompressType", "Unsupported compress type " + compressType);
+                    return;
+                }
+                raw = codec.decompress(body, Integer.parseInt(rawSizeHeader));
+            }
+        } catch (RuntimeException e) {
+            error(request, 400, "InvalidBody", "Failed to decompress body: " + e.getMessage());
+            return;
+        }
+
+        List<StoredLog> decoded;
+        try {
+            decoded = decodeLogGroup(project, logstore, raw.getBytes());
+        } catch (InvalidProtocolBufferException e) {
+            error(request, 400, "PostBodyInvalid", "Failed to decode LogGroup: " + e.getMessage());
+            return;
+        }
+        if (retainLogs) {
+            store.computeIfAbsent(storeKey(project, logstore), k -> new ConcurrentLinkedQueue<>()).addAll(decoded);
+        }
+        Consumer<StoredLog> listener = this.storeListener;
+        if (listener != null) {
+            decoded.forEach(listener);
+        }
+        respond(request, 200, Buffer.buffer());
+    }
+
+    private static List<StoredLog> decodeLogGroup(String project, String logstore, byte[] raw) throws InvalidProtocolBufferException {
+        LogEntityDescriptors descriptors = LogEntityDescriptors.getInstance();
+        Descriptors.Descriptor groupDescriptor = descriptors.getLogGroupDescriptor();
+        Descriptors.Descriptor logDescriptor = descriptors.getLogDescriptor();
+        Descriptors.Descriptor contentDescriptor = descriptors.getContentDescriptor();
+        Descriptors.Descriptor tagDescriptor = descriptors.getLogTagDescriptor();
+
+        DynamicMessage group = DynamicMessage.parseFrom(groupDescriptor, raw);
+        String topic = (String) group.getField(groupDescriptor.findFieldByName("Topic"));
+        String source = (String) group.getField(groupDescriptor.findFieldByName("Source"));
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        Descriptors.FieldDescriptor tagsField = groupDescriptor.findFieldByName("LogTags");
+        for (int i = 0; i < group.getRepeatedFieldCount(tagsField); i++) {
+            DynamicMessage tag = (DynamicMessage) group.getRepeatedField(tagsField, i);
+            tags.put((String) tag.getField(tagDescriptor.findFieldByName("Key")),
+                    (String) tag.getField(tagDescriptor.findFieldByName("Value")));
+        }
+
+        List<StoredLog> logs = new ArrayList<>();
+        Descriptors.FieldDescriptor logsField = groupDescriptor.findFieldByName("Logs");
+        Descriptors.FieldDescriptor contentsField = logDescriptor.findFieldByName("Contents");
+        for (int i = 0; i < group.getRepeatedFieldCount(logsField); i++) {
+            DynamicMessage log = (DynamicMessage) group.getRepeatedField(logsField, i);
+            Map<String, String> contents = new LinkedHashMap<>();
+            for (int j = 0; j < log.getRepeatedFieldCount(contentsField); j++) {
+                DynamicMessage content = (DynamicMessage) log.getRepeatedField(contentsField, j);
+                contents.put((String) content.getField(contentDescriptor.findFieldByName("Key")),
+                        (String) content.getField(contentDescriptor.findFieldByName("Value")));
+            }
+            int time = (Integer) log.getField(logDescriptor.findFieldByName("Time"));
+            logs.add(new StoredLog(project, logstore, topic, source, time, Map.copyOf(tags), contents));
+        }
+        return logs;
+    }
+
+    private void listShards(HttpServerRequest request) {
+        JsonArray shards = new JsonArray().add(new JsonObject()
+                .put("shardID", 0)
+                .put("status", "readwrite")
+                .put("inclusiveBeginKey", "00000000000000000000000000000000")
+                .put("exclusiveEndKey", "ffffffffffffffffffffffffffffffff")
+                .put("createTime", 1_700_000_000));
+        respond(request, 200, shards.toBuffer());
+    }
+
+    /**
+     * 按 {@code from}/{@code to}（秒，左闭右开）与 {@code topic} 过滤，支持 {@code offset}、{@code line} 与 {@code reverse}；
+     * 不解析 {@code query} 语句。
+     */
+    private void getLogs(HttpServerRequest request, String project, String logstore, Buffer body) {
+        JsonObject query = body.length() == 0 ? new JsonObject() : body.toJsonObject();
+        int from = query.getInteger("from", 0);
+        int to = query.getInteger("to", Integer.MAX_VALUE);
+        String topic = query.getString("topic");
+        int offset = query.getInteger("offset", 0);
+        int line = query.getInteger("line", 100);
+        boolean reverse = query.getBoolean("reverse", false);
+
+        List<StoredLog> matched = new ArrayList<>();
+        for (StoredLog log : getLogs(project, logstore)) {
+            if (log.time() >= from && log.time() < to && (topic == null || topic.equals(log.topic()))) {
+                matched.add(log);
+            }
+        }
+        if (reverse) {
+            Collections.reverse(matched);
+        }
+        JsonArray data = new JsonArray();
+        matched.stream().skip(offset).limit(line).forEach(log -> data.add(log.toQueryRow()));
+
+        JsonObject response = new JsonObject()
+                .put("meta", new JsonObject()
+                        .put("progress", "Complete")
+                        .put("aggQuery", "")
+                        .put("whereQuery", "")
+                        .put("hasSQL", false)
+                        .put("processedRows", matched.size())
+                        .put("elapsedMillisecond", 0)
+                        .put("count", data.size())
+                        .put("keys", new JsonArray())
+                        .put("terms", new JsonArray()))
+                .put("data", data);
+
+        Buffer raw = response.toBuffer();
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("lz4")) {
+            request.response()
+                   .putHeader("x-log-compresstype", "lz4")
+                   .putHeader("x-log-bodyrawsize", String.valueOf(raw.length()));
+            respond(request, 200, Lz4Utils.compress(raw));
+        } else {
+            respond(request, 200, raw);
+        }
+    }
+
+    private void error(HttpServerRequest request, int statusCode, String errorCode, String errorMessage) {
+        respond(request, statusCode, new JsonObject()
+                .put("errorCode", errorCode)
+                .put("errorMessage", errorMessage)
+                .toBuffer());
+    }
+
+    private void respond(HttpServerRequest request, int statusCode, Buffer body) {
+        responseCounts.computeIfAbsent(statusCode, k -> new AtomicInteger()).incrementAndGet();
+        request.response()
+               .setStatusCode(statusCode)
+               .putHeader("Content-Type", "application/json")
+               .putHeader("x-log-requestid", UUID.randomUUID().toString())
+               .end(body);
+    }
+
+    /**
+     * 注入的故障类型。
+     */
+    public enum Fault {
+        NONE,
+        /**
+         * HTTP 429 {@code WriteQuotaExceed}。
+         */
+        THROTTLE,
+        /**
+         * HTTP 500 {@code InternalServerError}。
+         */
+        SERVER_ERROR,
+        /**
+         * 不响应，直接关闭连接。
+         */
+        RESET
+    }
+
+    /**
+     * 故障注入配置：每个请求先等待固定延迟，再按比例随机遇到一种故障，比例之和应不超过 1。
+     *
+     * @param latencyMs       每个请求的响应延迟（毫秒）
+     * @param throttleRate    响应 429 的比例
+     * @param serverErrorRate 响应 500 的比例
+     * @param resetRate       重置连接的比例
+     * @param seed            随机种子，相同的种子与请求顺序得到相同的故障序列
+     */
+    public record FaultProfile(long latencyMs, double throttleRate, double serverErrorRate, double resetRate, long seed) {
+        public static FaultProfile none() {
+            return new FaultProfile(0, 0, 0, 0, 0);
+        }
+
+        public static FaultProfile latency(long latencyMs) {
+            return new FaultProfile(latencyMs, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * 存入替身服务的一条日志。
+     */
+    public record StoredLog(
+            String project,
+            String logstore,
+            String topic,
+            String source,
+            int time,
+            Map<String, String> tags,
+            Map<String, String> contents
+    ) {
+        /**
+         * @return GetLogsV2 返回的行格式
+         */
+        JsonObject toQueryRow() {
+            JsonObject row = new JsonObject()
+                    .put("__time__", time)
+                    .put("__topic__", topic)
+                    .put("__source__", source);
+            tags.forEach((key, value) -> row.put("__tag__:" + key, value));
+            contents.forEach(row::put);
+            return row;
+        }
+    }
+}
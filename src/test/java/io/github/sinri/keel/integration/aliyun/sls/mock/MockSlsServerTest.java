@@ -0,0 +1,272 @@
+package io.github.sinri.keel.integration.aliyun.sls.mock;
+
+import io.github.sinri.keel.integration.aliyun.sls.internal.AliyunSLSLogPutter;
+import io.github.sinri.keel.integration.aliyun.sls.internal.AliyunSLSLogPutterOptions;
+import io.github.sinri.keel.integration.aliyun.sls.internal.PutLogsRetryPolicy;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogContent;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogGroup;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogItem;
+import io.github.sinri.keel.integration.aliyun.sls.internal.entity.LogTag;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodec;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.CompressionCodecs;
+import io.github.sinri.keel.integration.aliyun.sls.internal.protocol.Lz4Utils;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsRequestSigner;
+import io.github.sinri.keel.integration.aliyun.sls.internal.sign.AliyunSlsSignatureKit;
+import io.github.sinri.keel.integration.aliyun.sls.internal.spill.FallbackFileStore;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockSlsServerTest {
+    private static final String ACCESS_KEY_ID = "mock-id";
+    private static final String ACCESS_KEY_SECRET = "mock-secret";
+    private static final String PROJECT = "demo-project";
+    private static final String LOGSTORE = "app-log";
+
+    private Vertx vertx;
+    private MockSlsServer server;
+    private AliyunSLSLogPutter putter;
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    private static LogGroup logGroup(String message) {
+        return new LogGroup("test-topic", "test-source")
+                .addLogTag(new LogTag("env", "test"))
+                .addLogItem(new LogItem(1_720_000_000).addContent(new LogContent("message", message)));
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        server = await(new MockSlsServer(vertx, ACCESS_KEY_ID, ACCESS_KEY_SECRET).start());
+        putter = newPutter(ACCESS_KEY_SECRET);
+    }
+
+    private AliyunSLSLogPutter newPutter(String accessKeySecret) {
+        return new AliyunSLSLogPutter(
+                vertx,
+                ACCESS_KEY_ID,
+                accessKeySecret,
+                server.getEndpoint(),
+                new AliyunSLSLogPutterOptions()
+                        .setMaxInFlightRequests(2)
+                        .setRetryPolicy(new PutLogsRetryPolicy(3, 10, 20))
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        await(putter.close());
+        await(server.close());
+        await(vertx.close());
+    }
+
+    @Test
+    void putLogsShouldBeDecodedIntoStore() throws Exception {
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("hello")));
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("routed"), "00000000000000000000000000000000"));
+
+        List<MockSlsServer.StoredLog> logs = server.getLogs(PROJECT, LOGSTORE);
+        assertEquals(2, logs.size());
+        assertEquals("hello", logs.get(0).contents().get("message"));
+        assertEquals("test-topic", logs.get(0).topic());
+        assertEquals("test", logs.get(0).tags().get("env"));
+        assertEquals(1_720_000_000, logs.get(0).time());
+        assertEquals("routed", logs.get(1).contents().get("message"));
+    }
+
+    @Test
+    void parallelEncodingShouldKeepSendOrder() throws Exception {
+        // The first log group takes much longer to compress than the ones submitted after it
+        AtomicLong slowEncodedAt = new AtomicLong();
+        CompressionCodec lz4 = CompressionCodecs.lz4();
+        CompressionCodec slowForLargeGroups = new CompressionCodec() {
+            @Override
+            public String getCompressType() {
+                return lz4.getCompressType();
+            }
+
+            @Override
+            public Buffer compress(Buffer raw) {
+                return lz4.compress(raw);
+            }
+
+            @Override
+            public ByteBuf compress(ByteBuf raw, ByteBufAllocator allocator) {
+                if (raw.readableBytes() < 1024) {
+                    return lz4.compress(raw, allocator);
+                }
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ByteBuf compressed = lz4.compress(raw, allocator);
+                slowEncodedAt.set(System.nanoTime());
+                return compressed;
+            }
+
+            @Override
+            public Buffer decompress(Buffer compressed, int rawSize) {
+                return lz4.decompress(compressed, rawSize);
+            }
+        };
+        AliyunSLSLogPutter parallelPutter = new AliyunSLSLogPutter(
+                vertx,
+                ACCESS_KEY_ID,
+                ACCESS_KEY_SECRET,
+                server.getEndpoint(),
+                new AliyunSLSLogPutterOptions()
+                        .setMaxInFlightRequests(4)
+                        .setEncodeWorkers(4)
+                        .setCompressionCodec(slowForLargeGroups)
+        );
+        Map<String, Long> storedAt = new ConcurrentHashMap<>();
+        server.setStoreListener(log -> storedAt.put(log.contents().get("message"), System.nanoTime()));
+        try {
+            List<Future<Void>> puts = new ArrayList<>();
+            puts.add(parallelPutter.putLogs(PROJECT, LOGSTORE, logGroup("slow-" + "x".repeat(4096))));
+            for (int i = 0; i < 3; i++) {
+                puts.add(parallelPutter.putLogs(PROJECT, LOGSTORE, logGroup("fast-" + i)));
+            }
+            await(Future.all(puts));
+        } finally {
+            await(parallelPutter.close());
+        }
+
+        assertEquals(4, storedAt.size());
+        // The fast groups finished encoding first, yet none of them was sent before the slow one was handed over
+        for (int i = 0; i < 3; i++) {
+            assertTrue(storedAt.get("fast-" + i) >= slowEncodedAt.get(), "fast-" + i + " was sent out of order");
+        }
+    }
+
+    @Test
+    void wrongSecretShouldBeRejected() throws Exception {
+        AliyunSLSLogPutter wrongPutter = newPutter("wrong-secret");
+        try {
+            // Rejected requests are not retryable, so they fall back to the local output
+            await(wrongPutter.putLogs(PROJECT, LOGSTORE, logGroup("hello")));
+        } finally {
+            await(wrongPutter.close());
+        }
+        assertEquals(1, server.getResponseCount(401));
+        assertTrue(server.getLogs(PROJECT, LOGSTORE).isEmpty());
+    }
+
+    @Test
+    void injectedFaultsShouldBeRetried() throws Exception {
+        server.scriptFaults(MockSlsServer.Fault.THROTTLE, MockSlsServer.Fault.SERVER_ERROR, MockSlsServer.Fault.RESET);
+
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("eventually")));
+
+        assertEquals(4, server.getPutLogsRequests());
+        assertEquals(1, server.getResponseCount(429));
+        assertEquals(1, server.getResponseCount(500));
+        assertEquals(1, server.getResets());
+        assertEquals(1, server.getLogs(PROJECT, LOGSTORE).size());
+    }
+
+    @Test
+    void fallbackFilesShouldBeUploadedOnceServerRecovers(@TempDir Path fallbackDirectory) throws Exception {
+        try (FallbackFileStore store = FallbackFileStore.open(fallbackDirectory, 1024 * 1024, 1, 1024 * 1024)) {
+            putter.attachFallbackFileStore(store);
+            // Exhaust the retries so that the log group falls back to the file
+            server.scriptFaults(MockSlsServer.Fault.SERVER_ERROR, MockSlsServer.Fault.SERVER_ERROR,
+                    MockSlsServer.Fault.SERVER_ERROR, MockSlsServer.Fault.SERVER_ERROR);
+            await(putter.putLogs(PROJECT, LOGSTORE, logGroup("recovered")));
+            assertTrue(server.getLogs(PROJECT, LOGSTORE).isEmpty());
+
+            // The periodic upload rotates the file and puts it again
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (server.getLogs(PROJECT, LOGSTORE).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            List<MockSlsServer.StoredLog> logs = server.getLogs(PROJECT, LOGSTORE);
+            assertEquals(1, logs.size());
+            assertEquals("recovered", logs.get(0).contents().get("message"));
+            assertEquals("test-topic", logs.get(0).topic());
+            while (!store.listClosedFiles().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(store.listClosedFiles().isEmpty());
+        }
+    }
+
+    @Test
+    void storeListenerShouldSeeLogsWithoutRetaining() throws Exception {
+        List<MockSlsServer.StoredLog> seen = new CopyOnWriteArrayList<>();
+        server.setRetainLogs(false);
+        server.setStoreListener(seen::add);
+
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("observed")));
+
+        assertEquals(1, seen.size());
+        assertEquals("observed", seen.get(0).contents().get("message"));
+        assertTrue(server.getLogs(PROJECT, LOGSTORE).isEmpty());
+    }
+
+    @Test
+    void getLogsV2ShouldServeStoredLogs() throws Exception {
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("first")));
+        await(putter.putLogs(PROJECT, LOGSTORE, logGroup("second")));
+
+        // Signed the same way as SlsReader
+        String uri = "/logstores/" + LOGSTORE + "/logs";
+        Buffer body = new JsonObject().put("from", 1_719_999_999).put("to", 1_720_000_001).put("reverse", true).toBuffer();
+        String date = AliyunSlsRequestSigner.currentGmtDate();
+        String contentMd5 = AliyunSlsSignatureKit.contentMd5(body);
+        String authorization = new AliyunSlsRequestSigner(ACCESS_KEY_ID, ACCESS_KEY_SECRET)
+                .message("POST", contentMd5, "application/json", date)
+                .header("x-log-apiversion", "0.6.0")
+                .header("x-log-signaturemethod", "hmac-sha1")
+                .authorization(uri, null);
+        WebClient client = WebClient.create(vertx);
+        HttpResponse<Buffer> response;
+        try {
+            response = await(client.postAbs(server.getEndpoint() + uri)
+                                   .putHeader("Date", date)
+                                   .putHeader("Content-Type", "application/json")
+                                   .putHeader("Content-MD5", contentMd5)
+                                   .putHeader("x-log-apiversion", "0.6.0")
+                                   .putHeader("x-log-signaturemethod", "hmac-sha1")
+                                   .putHeader("Host", PROJECT + ".127.0.0.1")
+                                   .putHeader("Accept-Encoding", "lz4")
+                                   .putHeader("Authorization", authorization)
+                                   .sendBuffer(body));
+        } finally {
+            client.close();
+        }
+
+        assertEquals(200, response.statusCode());
+        assertEquals("lz4", response.getHeader("x-log-compresstype"));
+        JsonObject result = Lz4Utils.decompress(response.body(), Integer.parseInt(response.getHeader("x-log-bodyrawsize")))
+                                    .toJsonObject();
+        assertEquals("Complete", result.getJsonObject("meta").getString("progress"));
+        assertEquals(2, result.getJsonArray("data").size());
+        assertEquals("second", result.getJsonArray("data").getJsonObject(0).getString("message"));
+        assertEquals("test-topic", result.getJsonArray("data").getJsonObject(0).getString("__topic__"));
+    }
+}
@@ -0,0 +1,417 @@
+package io.github.sinri.keel.integration.aliyun.sls.mock;
+
+import io.github.sinri.keel.base.configuration.ConfigElement;
+import io.github.sinri.keel.integration.aliyun.sls.AliyunSlsConfigElement;
+import io.github.sinri.keel.integration.aliyun.sls.SlsLoggerFactory;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsEndpoint;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsMetricRecorder;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsQueuedLogWriterAdapter;
+import io.github.sinri.keel.integration.aliyun.sls.internal.SlsShardedLogWriterAdapter;
+import io.github.sinri.keel.logger.api.log.Log;
+import io.github.sinri.keel.logger.api.logger.Logger;
+import io.github.sinri.keel.tesuto.KeelInstantRunner;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.ThreadingModel;
+import org.jspecify.annotations.NullMarked;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link SlsLoggerFactory} 的端到端压测：以可配置的速率、日志形态、主题数与并发线程数通过 {@code SlsLogger} 写日志，
+ * 由内嵌的 {@link MockSlsServer} 接收，周期性输出吞吐、端到端延迟分位数、堆与 GC 情况以及丢弃与降级条数。
+ * <p>
+ * 日志服务配置照常取自 {@code aliyun.sls}，其中 {@code endpoint} 须为本机地址（如 {@code http://127.0.0.1:18080}），
+ * 替身服务以配置中的 AccessKey 在该端口上启动；{@code bufferSize}、{@code maxQueuedLogs}、{@code overflowPolicy}、
+ * {@code lingerMs}、{@code encodeWorkers} 等写入参数均按配置生效。将 {@code telemetryIntervalMs} 调小（如 {@code 1000}）
+ * 可及时看到降级与重试条数。
+ * <p>
+ * 压测参数通过系统属性指定：
+ * <ul>
+ *     <li>{@code soak.rate}：总速率（条/秒），{@code 0} 表示不限速，默认 {@code 20000}</li>
+ *     <li>{@code soak.concurrency}：写日志的线程数，默认 {@code 4}</li>
+ *     <li>{@code soak.topics}：主题数，默认 {@code 8}</li>
+ *     <li>{@code soak.payload}：日志形态，{@code small}、{@code medium}（默认）、{@code large} 或 {@code exception}</li>
+ *     <li>{@code soak.durationSeconds}：写入时长，默认 {@code 60}</li>
+ *     <li>{@code soak.warmupSeconds}：预热时长，不计入汇总，默认 {@code 10}</li>
+ *     <li>{@code soak.reportSeconds}：周期报告间隔，默认 {@code 5}</li>
+ *     <li>{@code soak.drainSeconds}：停止写入后等待积压送达的最长时间，默认 {@code 30}</li>
+ *     <li>{@code soak.latencyMs}、{@code soak.throttleRate}、{@code soak.serverErrorRate}、{@code soak.resetRate}：
+ *     替身服务的故障注入，见 {@link MockSlsServer.FaultProfile}</li>
+ * </ul>
+ * <p>
+ * 端到端延迟自日志按计划应当写出的时刻起算（不限速时为实际写出时刻），到替身服务解码出该日志为止，
+ * 因此写入方被阻塞或积压时的排队时间也计入延迟。
+ */
+@NullMarked
+public class SlsSoakRunner extends KeelInstantRunner {
+    private static final String SENT_NANOS_KEY = "soak_sent_nanos";
+    private static final String FALLBACK_METRIC = "keel_sls_writer_fallback_logs_total";
+    private static final String RETRIES_METRIC = "keel_sls_writer_retries_total";
+
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LatencyHistogram intervalLatency = new LatencyHistogram();
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+    private final Map<String, Long> fallbackSeries = new ConcurrentHashMap<>();
+    private final Map<String, Long> retrySeries = new ConcurrentHashMap<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    private static long sum(Map<String, Long> series) {
+        return series.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    protected Future<Void> run() throws Exception {
+        long rate = longProperty("soak.rate", 20_000);
+        int concurrency = (int) longProperty("soak.concurrency", 4);
+        int topics = (int) longProperty("soak.topics", 8);
+        Payload payload = Payload.valueOf(System.getProperty("soak.payload", "medium").toUpperCase(Locale.ROOT));
+        long durationSeconds = longProperty("soak.durationSeconds", 60);
+        long warmupSeconds = longProperty("soak.warmupSeconds", 10);
+        long reportSeconds = longProperty("soak.reportSeconds", 5);
+        long drainSeconds = longProperty("soak.drainSeconds", 30);
+        MockSlsServer.FaultProfile faultProfile = new MockSlsServer.FaultProfile(
+                longProperty("soak.latencyMs", 0),
+                doubleProperty("soak.throttleRate", 0),
+                doubleProperty("soak.serverErrorRate", 0),
+                doubleProperty("soak.resetRate", 0),
+                0
+        );
+
+        AliyunSlsConfigElement config = AliyunSlsConfigElement.forSls(ConfigElement.root());
+        SlsEndpoint endpoint = SlsEndpoint.parse(config.getEndpoint());
+        int colon = endpoint.authority().lastIndexOf(':');
+        if (!"http".equals(endpoint.scheme()) || colon < 0) {
+            throw new IllegalStateException("Soak runner needs a local endpoint such as http://127.0.0.1:18080, got " + config.getEndpoint());
+        }
+        int port = Integer.parseInt(endpoint.authority().substring(colon + 1));
+
+        MockSlsServer server = new MockSlsServer(getKeel(), config.getAccessKeyId(), config.getAccessKeySecret());
+        server.setRetainLogs(false);
+        server.setFaultProfile(faultProfile);
+        server.setStoreListener(this::onStored);
+
+        SlsMetricRecorder telemetryRecorder = new SlsMetricRecorder(config);
+        SlsLoggerFactory factory = new SlsLoggerFactory(config, telemetryRecorder);
+        DeploymentOptions workerOptions = new DeploymentOptions().setThreadingModel(ThreadingModel.WORKER);
+
+        return server.start(port)
+                     .compose(started -> telemetryRecorder.deployMe(getKeel(), workerOptions))
+                     .compose(recorderDeployed -> factory.deployMe(getKeel(), workerOptions))
+                     .compose(factoryDeployed -> {
+                         getLogger().info(String.format(Locale.ROOT,
+                                 "Soak started: rate=%d/s concurrency=%d topics=%d payload=%s duration=%ds warmup=%ds faults=%s",
+                                 rate, concurrency, topics, payload, durationSeconds, warmupSeconds, faultProfile));
+                         List<Logger> loggers = new ArrayList<>(topics);
+                         for (int i = 0; i < topics; i++) {
+                             loggers.add(factory.createLogger("soak-" + i));
+                         }
+                         return drive(factory, loggers, payload, rate, concurrency, durationSeconds, warmupSeconds, reportSeconds);
+                     })
+                     .compose(summary -> drain(factory, summary, drainSeconds))
+                     .eventually(() -> factory.undeployMe())
+                     .eventually(() -> telemetryRecorder.undeployMe())
+                     .eventually(server::close);
+    }
+
+    private void onStored(MockSlsServer.StoredLog log) {
+        if (SlsQueuedLogWriterAdapter.TELEMETRY_METRIC_TOPIC.equals(log.topic())) {
+            String name = log.contents().get("__name__");
+            String labels = log.contents().getOrDefault("__labels__", "");
+            String value = log.contents().get("__value__");
+            if (value != null && FALLBACK_METRIC.equals(name)) {
+                fallbackSeries.put(labels, (long) Double.parseDouble(value));
+            } else if (value != null && RETRIES_METRIC.equals(name)) {
+                retrySeries.put(labels, (long) Double.parseDouble(value));
+            }
+            return;
+        }
+        delivered.increment();
+        String context = log.contents().get(Log.MapKeyContext);
+        if (context == null) {
+            return;
+        }
+        int keyAt = context.indexOf(SENT_NANOS_KEY);
+        if (keyAt < 0) {
+            return;
+        }
+        int start = keyAt + SENT_NANOS_KEY.length() + 2;
+        int end = start;
+        while (end < context.length() && Character.isDigit(context.charAt(end))) {
+            end++;
+        }
+        long latencyMicros = (System.nanoTime() - Long.parseLong(context.substring(start, end))) / 1000;
+        intervalLatency.record(latencyMicros);
+        totalLatency.record(latencyMicros);
+    }
+
+    private Future<Snapshot> drive(
+            SlsLoggerFactory factory, List<Logger> loggers, Payload payload,
+            long rate, int concurrency, long durationSeconds, long warmupSeconds, long reportSeconds
+    ) {
+        long intervalNanos = rate <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) * concurrency / rate;
+        AtomicInteger running = new AtomicInteger(concurrency);
+        Promise<Void> producersDone = Promise.promise();
+        for (int t = 0; t < concurrency; t++) {
+            int producerIndex = t;
+            Thread producer = new Thread(() -> {
+                try {
+                    produce(loggers, payload, producerIndex, concurrency, intervalNanos);
+                } finally {
+                    if (running.decrementAndGet() == 0) {
+                        producersDone.complete();
+                    }
+                }
+            }, "soak-producer-" + t);
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        Snapshot[] previous = {Snapshot.take(this, factory)};
+        Snapshot[] warmedUp = {previous[0]};
+        long startedAt = System.nanoTime();
+        long reportTimer = getKeel().setPeriodic(TimeUnit.SECONDS.toMillis(reportSeconds), timerId -> {
+            Snapshot current = Snapshot.take(this, factory);
+            getLogger().info(current.describeSince(previous[0], intervalLatency));
+            intervalLatency.reset();
+            previous[0] = current;
+        });
+        getKeel().setTimer(TimeUnit.SECONDS.toMillis(Math.max(1, warmupSeconds)), timerId -> {
+            totalLatency.reset();
+            warmedUp[0] = Snapshot.take(this, factory);
+            getLogger().info("Warmup finished after " + (System.nanoTime() - startedAt) / 1_000_000 + "ms");
+        });
+        getKeel().setTimer(TimeUnit.SECONDS.toMillis(durationSeconds), timerId -> stopped.set(true));
+
+        return producersDone.future()
+                            .map(v -> {
+                                getKeel().cancelTimer(reportTimer);
+                                return warmedUp[0];
+                            });
+    }
+
+    private void produce(List<Logger> loggers, Payload payload, int producerIndex, int concurrency, long intervalNanos) {
+        long next = System.nanoTime();
+        long seq = producerIndex;
+        while (!stopped.get()) {
+            long sentNanos;
+            if (intervalNanos > 0) {
+                long waitNanos = next - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                // Measure from the intended send time so that stalls of the caller are not hidden
+                sentNanos = next;
+                next += intervalNanos;
+            } else {
+                sentNanos = System.nanoTime();
+            }
+            long current = seq;
+            loggers.get((int) (current % loggers.size()))
+                   .info(log -> payload.fill(log, current).context(SENT_NANOS_KEY, sentNanos));
+            emitted.increment();
+            seq += concurrency;
+        }
+    }
+
+    private Future<Void> drain(SlsLoggerFactory factory, Snapshot warmedUp, long drainSeconds) {
+        Snapshot stoppedAt = Snapshot.take(this, factory);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+        Promise<Void> drained = Promise.promise();
+        getKeel().setPeriodic(100, timerId -> {
+            Snapshot current = Snapshot.take(this, factory);
+            if (current.delivered + current.dropped + current.fallback >= current.emitted || System.nanoTime() > deadline) {
+                getKeel().cancelTimer(timerId);
+                getLogger().info(current.summarize(warmedUp, stoppedAt, totalLatency));
+                drained.complete();
+            }
+        });
+        return drained.future();
+    }
+
+    /**
+     * 日志形态。
+     */
+    private enum Payload {
+        SMALL, MEDIUM, LARGE, EXCEPTION;
+
+        private static final String LONG_TEXT = "x".repeat(2048);
+        private static final List<Throwable> EXCEPTIONS = List.of(
+                new IllegalStateException("order state mismatch"),
+                new IllegalArgumentException("invalid sku"),
+                new RuntimeException("upstream timeout", new java.io.IOException("connection reset"))
+        );
+
+        Log fill(Log log, long seq) {
+            switch (this) {
+                case SMALL -> log.message("soak " + seq);
+                case MEDIUM -> log.message("order " + seq + " accepted")
+                                  .classification(List.of("soak", "order"))
+                                  .context("order_id", seq)
+                                  .context("user_id", seq % 10_000)
+                                  .context("amount", 1999)
+                                  .context("currency", "CNY")
+                                  .context("channel", "app")
+                                  .context("region", "cn-hangzhou");
+                case LARGE -> {
+                    log.message("batch " + seq + " " + LONG_TEXT).classification(List.of("soak", "batch"));
+                    for (int i = 0; i < 32; i++) {
+                        log.context("field_" + i, "value-" + (seq + i));
+                    }
+                }
+                case EXCEPTION -> MEDIUM.fill(log, seq).exception(EXCEPTIONS.get((int) (seq % EXCEPTIONS.size())));
+            }
+            return log;
+        }
+    }
+
+    /**
+     * 某一时刻的累计计数与 JVM 状态。
+     */
+    private record Snapshot(
+            long nanos, long emitted, long delivered, long dropped, long fallback, long retries, int queued,
+            long heapUsed, long heapCommitted, long gcCount, long gcMillis
+    ) {
+        static Snapshot take(SlsSoakRunner runner, SlsLoggerFactory factory) {
+            long dropped = 0;
+            int queued = 0;
+            if (factory.sharedAdapter() instanceof SlsQueuedLogWriterAdapter adapter) {
+                dropped = adapter.getDroppedLogCount();
+                queued = adapter.getQueuedLogCount();
+            } else if (factory.sharedAdapter() instanceof SlsShardedLogWriterAdapter adapter) {
+                dropped = adapter.getDroppedLogCount();
+                queued = adapter.getQueuedLogCount();
+            }
+            long gcCount = 0;
+            long gcMillis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcMillis += Math.max(0, gc.getCollectionTime());
+            }
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            return new Snapshot(
+                    System.nanoTime(), runner.emitted.sum(), runner.delivered.sum(), dropped,
+                    sum(runner.fallbackSeries), sum(runner.retrySeries), queued,
+                    heap.getUsed(), heap.getCommitted(), gcCount, gcMillis
+            );
+        }
+
+        private double perSecond(long count, Snapshot since) {
+            return count * 1e9 / Math.max(1, nanos - since.nanos);
+        }
+
+        String describeSince(Snapshot previous, LatencyHistogram latency) {
+            return String.format(Locale.ROOT,
+                    "emitted=%.0f/s delivered=%.0f/s queued=%d dropped=%d fallback=%d retries=%d "
+                            + "latency(ms) p50=%.1f p99=%.1f p999=%.1f max=%.1f "
+                            + "heap=%dMiB/%dMiB gc=%d (%dms)",
+                    perSecond(emitted - previous.emitted, previous), perSecond(delivered - previous.delivered, previous),
+                    queued, dropped, fallback, retries,
+                    latency.percentileMillis(0.5), latency.percentileMillis(0.99), latency.percentileMillis(0.999),
+                    latency.maxMillis(),
+                    heapUsed >> 20, heapCommitted >> 20, gcCount - previous.gcCount, gcMillis - previous.gcMillis);
+        }
+
+        String summarize(Snapshot warmedUp, Snapshot stoppedAt, LatencyHistogram latency) {
+            long lost = emitted - delivered - dropped - fallback;
+            return String.format(Locale.ROOT,
+                    "Soak summary (after warmup): sustained=%.0f logs/s emitted=%d delivered=%d dropped=%d fallback=%d "
+                            + "undelivered=%d retries=%d latency(ms) p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f "
+                            + "gc=%d (%dms, %.2f%% of wall time)",
+                    stoppedAt.perSecond(stoppedAt.delivered - warmedUp.delivered, warmedUp),
+                    emitted, delivered, dropped, fallback, Math.max(0, lost), retries,
+                    latency.percentileMillis(0.5), latency.percentileMillis(0.9), latency.percentileMillis(0.99),
+                    latency.percentileMillis(0.999), latency.maxMillis(),
+                    gcCount - warmedUp.gcCount, gcMillis - warmedUp.gcMillis,
+                    (gcMillis - warmedUp.gcMillis) * 1e8 / Math.max(1, nanos - warmedUp.nanos));
+        }
+    }
+
+    /**
+     * 微秒级延迟直方图：按 2 的幂分段，每段再等分为 16 个桶，相对误差约 6%。
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+        private long count;
+        private long max;
+
+        static int indexOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(0, value);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBoundOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        synchronized void record(long micros) {
+            counts[indexOf(micros)]++;
+            count++;
+            max = Math.max(max, micros);
+        }
+
+        synchronized void reset() {
+            counts = new long[counts.length];
+            count = 0;
+            max = 0;
+        }
+
+        synchronized long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        double percentileMillis(double quantile) {
+            return percentile(quantile) / 1000.0;
+        }
+
+        synchronized double maxMillis() {
+            return max / 1000.0;
+        }
+    }
+}